@@ -1,10 +1,37 @@
 package com.implemica.CurrencyConverter.configuration;
 
 import com.implemica.CurrencyConverter.dao.DialogDao;
+import com.implemica.CurrencyConverter.dao.RateHistoryDao;
+import com.implemica.CurrencyConverter.dao.RateSnapshotDao;
+import com.implemica.CurrencyConverter.dao.StateJournalDao;
 import com.implemica.CurrencyConverter.dao.impl.DialogDaoImpl;
+import com.implemica.CurrencyConverter.dao.impl.RateHistoryDaoImpl;
+import com.implemica.CurrencyConverter.dao.impl.RateSnapshotDaoImpl;
+import com.implemica.CurrencyConverter.dao.impl.StateJournalDaoImpl;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.AsyncExecutor;
+import com.implemica.CurrencyConverter.service.CircuitBreakerRegistry;
+import com.implemica.CurrencyConverter.service.ConnectivityMonitor;
+import com.implemica.CurrencyConverter.service.ConverterRanking;
+import com.implemica.CurrencyConverter.service.ConverterService;
+import com.implemica.CurrencyConverter.service.HedgedInvoker;
+import com.implemica.CurrencyConverter.service.RateCheckpointer;
+import com.implemica.CurrencyConverter.service.RateRefresher;
+import com.implemica.CurrencyConverter.service.RequestBudgetRegistry;
+import com.implemica.CurrencyConverter.service.UpdateDispatcher;
+import com.implemica.CurrencyConverter.service.converters.JsonHttpClient;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import com.implemica.CurrencyConverter.service.rates.RateHistory;
+import com.implemica.CurrencyConverter.service.state.ConcurrentUserStateStore;
+import com.implemica.CurrencyConverter.service.state.JournaledUserStateStore;
+import com.implemica.CurrencyConverter.service.state.PackedUserStateStore;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.File;
+
 /**
  *
  * @author Dmytro K.
@@ -17,4 +44,260 @@ public class SpringConfiguration {
    public DialogDao transactionDao() {
       return new DialogDaoImpl();
    }
-}
\ No newline at end of file
+
+   /**
+    * Storage of snapshots of rates.
+    *
+    * @param file snapshot file
+    */
+   @Bean
+   public RateSnapshotDao rateSnapshotDao(@Value("${converter.snapshot.file:rates.snapshot}") String file) {
+      return new RateSnapshotDaoImpl(new File(file));
+   }
+
+   /**
+    * Cache of rates which were received from APIs. The cache is filled
+    * from the last snapshot, before any service uses it.
+    *
+    * @param timeToLive time in ms during which a rate is fresh
+    * @param maxStaleness time in ms after which a stale rate can't be used
+    * @param maxSize max count of pairs in the cache
+    * @param pivots pivot currencies of cross rates
+    * @param snapshotDao storage of snapshots of rates
+    */
+   @Bean
+   public RateCache rateCache(@Value("${converter.cache.timeToLive:3600000}") long timeToLive,
+                              @Value("${converter.cache.maxStaleness:1209600000}") long maxStaleness,
+                              @Value("${converter.cache.maxSize:10000}") int maxSize,
+                              @Value("${converter.cache.pivots:USD,EUR,UAH}") Currency[] pivots,
+                              RateSnapshotDao snapshotDao) {
+      RateCache rateCache = new RateCache(timeToLive, maxStaleness, maxSize, pivots);
+      snapshotDao.load(rateCache);
+      return rateCache;
+   }
+
+   /**
+    * Saver of snapshots of rates.
+    *
+    * @param rateCache cache of rates
+    * @param snapshotDao storage of snapshots of rates
+    * @param interval time between snapshots in ms
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public RateCheckpointer rateCheckpointer(RateCache rateCache, RateSnapshotDao snapshotDao,
+                                            @Value("${converter.snapshot.interval:300000}") long interval) {
+      return new RateCheckpointer(rateCache, snapshotDao, interval);
+   }
+
+   /**
+    * Storage of history of rates.
+    *
+    * @param directory directory with segments of history
+    */
+   @Bean
+   public RateHistoryDao rateHistoryDao(@Value("${converter.history.directory:history}") String directory) {
+      return new RateHistoryDaoImpl(new File(directory));
+   }
+
+   /**
+    * History of rates, which gets every rate put to the cache.
+    *
+    * @param rateCache cache of rates
+    * @param historyDao storage of history of rates
+    * @param retention time in ms during which history is kept
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public RateHistory rateHistory(RateCache rateCache, RateHistoryDao historyDao,
+                                  @Value("${converter.history.retention:7776000000}") long retention) {
+      RateHistory rateHistory = new RateHistory(historyDao, retention);
+      rateCache.addListener(rateHistory::record);
+      return rateHistory;
+   }
+
+   /**
+    * Monitor of internet connection.
+    *
+    * @param host host which is used for checking connection
+    * @param port port of the host
+    * @param timeout time for connection to the host in ms
+    * @param interval time between checks in ms
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public ConnectivityMonitor connectivityMonitor(@Value("${converter.connectivity.host:www.google.com}") String host,
+                                                  @Value("${converter.connectivity.port:80}") int port,
+                                                  @Value("${converter.connectivity.timeout:3000}") int timeout,
+                                                  @Value("${converter.connectivity.interval:30000}") long interval) {
+      return new ConnectivityMonitor(host, port, timeout, interval);
+   }
+
+   /**
+    * Invoker of converters. In hedged mode the next converter is started
+    * when the previous one has not answered within the delay.
+    *
+    * @param hedged defines hedged mode
+    * @param threads max count of threads for converters
+    * @param queueSize max count of calls, which wait for a thread, when it's full, only the first converter is called
+    * @param delay time in ms after which the next converter is started
+    */
+   @Bean(destroyMethod = "shutdown")
+   public HedgedInvoker hedgedInvoker(@Value("${converter.hedge.enabled:true}") boolean hedged,
+                                      @Value("${converter.hedge.threads:16}") int threads,
+                                      @Value("${converter.hedge.queueSize:100}") int queueSize,
+                                      @Value("${converter.hedge.delay:1500}") long delay) {
+      return hedged ? new HedgedInvoker(threads, queueSize, delay) : new HedgedInvoker();
+   }
+
+   /**
+    * Circuit breakers of converters.
+    *
+    * @param failureRate rate of failures, when a breaker opens
+    * @param window count of last calls, which are used for calculating rate of failures
+    * @param minimumCalls min count of calls, which is needed for opening a breaker
+    * @param coolDown time in ms during which a breaker stays open
+    */
+   @Bean
+   public CircuitBreakerRegistry circuitBreakerRegistry(@Value("${converter.breaker.failureRate:0.5}") double failureRate,
+                                                        @Value("${converter.breaker.window:10}") int window,
+                                                        @Value("${converter.breaker.minimumCalls:5}") int minimumCalls,
+                                                        @Value("${converter.breaker.coolDown:60000}") long coolDown) {
+      return new CircuitBreakerRegistry(failureRate, window, minimumCalls, coolDown);
+   }
+
+   /**
+    * Budgets of requests to converters, which have a limit.
+    *
+    * @param file file with state of budgets
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public RequestBudgetRegistry requestBudgetRegistry(@Value("${converter.budget.file:budgets.properties}") String file) {
+      return new RequestBudgetRegistry(new File(file));
+   }
+
+   /**
+    * Statistics of converters, which define the order of calls of converters without limit.
+    *
+    * @param enabled defines if converters are reordered by statistics
+    * @param window count of last calls of a converter, which are remembered
+    * @param minimumCalls min count of fresh calls, which is needed for ranking of a converter
+    * @param maxAge time in ms, after which a call is not used for ranking
+    */
+   @Bean
+   public ConverterRanking converterRanking(@Value("${converter.ranking.enabled:true}") boolean enabled,
+                                            @Value("${converter.ranking.window:50}") int window,
+                                            @Value("${converter.ranking.minimumCalls:5}") int minimumCalls,
+                                            @Value("${converter.ranking.maxAge:600000}") long maxAge) {
+      return new ConverterRanking(enabled, window, minimumCalls, maxAge);
+   }
+
+   /**
+    * Executor of asynchronous conversions.
+    *
+    * @param threads count of threads for conversions
+    * @param queueSize max count of conversions, which wait for a thread
+    * @param timeout time in ms after which a conversion is cancelled
+    */
+   @Bean(destroyMethod = "shutdown")
+   public AsyncExecutor asyncExecutor(@Value("${converter.async.threads:8}") int threads,
+                                      @Value("${converter.async.queueSize:100}") int queueSize,
+                                      @Value("${converter.async.timeout:10000}") long timeout) {
+      return new AsyncExecutor(threads, queueSize, timeout);
+   }
+
+   /**
+    * HTTP client, which is shared by converters with JSON API.
+    *
+    * @param maxConnections max count of connections in the pool
+    * @param connectTimeout time for connection to server in ms
+    * @param readTimeout time of waiting for data from server in ms
+    */
+   @Bean(destroyMethod = "close")
+   public JsonHttpClient jsonHttpClient(@Value("${converter.http.maxConnections:20}") int maxConnections,
+                                        @Value("${converter.http.connectTimeout:3000}") int connectTimeout,
+                                        @Value("${converter.http.readTimeout:5000}") int readTimeout) {
+      return new JsonHttpClient(maxConnections, connectTimeout, readTimeout);
+   }
+
+   /**
+    * Service of conversions. Converters, which are slow to start, are warmed up in background after creation.
+    *
+    * @param rateCache cache of rates
+    * @param connectivityMonitor monitor of internet connection
+    * @param invoker invoker of converters
+    * @param circuitBreakers circuit breakers of converters
+    * @param requestBudgets budgets of requests to converters, which have a limit
+    * @param ranking statistics and order of converters
+    * @param asyncExecutor executor of asynchronous conversions
+    * @param httpClient client, which is shared by converters with JSON API
+    */
+   @Bean(initMethod = "warmUp")
+   public ConverterService converterService(RateCache rateCache, ConnectivityMonitor connectivityMonitor,
+                                            HedgedInvoker invoker, CircuitBreakerRegistry circuitBreakers,
+                                            RequestBudgetRegistry requestBudgets, ConverterRanking ranking,
+                                            AsyncExecutor asyncExecutor, JsonHttpClient httpClient) {
+      return new ConverterService(rateCache, connectivityMonitor, invoker, circuitBreakers, requestBudgets, ranking,
+              asyncExecutor, httpClient);
+   }
+
+   /**
+    * Refresher of rates between popular currencies.
+    *
+    * @param converterService service, which fetches rates
+    * @param bases popular currencies
+    * @param interval time between refreshes in ms
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public RateRefresher rateRefresher(ConverterService converterService,
+                                      @Value("${converter.refresh.bases:USD,EUR,UAH,BTC}") Currency[] bases,
+                                      @Value("${converter.refresh.interval:1800000}") long interval) {
+      return new RateRefresher(converterService, bases, interval);
+   }
+
+   /**
+    * Storage of transitions of users' states between restarts.
+    *
+    * @param file journal file
+    */
+   @Bean
+   public StateJournalDao stateJournalDao(@Value("${bot.state.journal:states.journal}") String file) {
+      return new StateJournalDaoImpl(new File(file));
+   }
+
+   /**
+    * Storage of states of dialogs with bot and of users' chats. States are
+    * restored from the journal, before the bot gets messages.
+    *
+    * @param journalDao storage of transitions of states
+    * @param packed defines if states are packed into primitive tables, it takes less memory for many users
+    * @param timeToLive time in ms, after which a user, who doesn't write to bot, starts a new dialog
+    * @param maxUsers max count of stored users and chats
+    * @param compactInterval time in ms between compactions of the journal
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public UserStateStore userStateStore(StateJournalDao journalDao,
+                                        @Value("${bot.state.packed:false}") boolean packed,
+                                        @Value("${bot.state.timeToLive:86400000}") long timeToLive,
+                                        @Value("${bot.state.maxUsers:100000}") int maxUsers,
+                                        @Value("${bot.state.compactInterval:3600000}") long compactInterval) {
+      UserStateStore states = packed
+              ? new PackedUserStateStore(timeToLive, maxUsers)
+              : new ConcurrentUserStateStore(timeToLive, maxUsers);
+
+      return new JournaledUserStateStore(states, journalDao, timeToLive, compactInterval);
+   }
+
+   /**
+    * Dispatcher of Telegram updates to workers by chats.
+    *
+    * @param workers count of workers, 0 - updates are processed by the thread of long polling
+    * @param queueSize max count of updates, which wait in the queue of a worker
+    * @param backpressure reaction to a full queue: BLOCK - long polling waits, DROP - the update is dropped
+    * @param blockTimeout time in ms, during which long polling waits for a place in a full queue
+    */
+   @Bean(initMethod = "start", destroyMethod = "stop")
+   public UpdateDispatcher updateDispatcher(@Value("${bot.dispatcher.workers:8}") int workers,
+                                            @Value("${bot.dispatcher.queueSize:100}") int queueSize,
+                                            @Value("${bot.dispatcher.backpressure:BLOCK}") UpdateDispatcher.Backpressure backpressure,
+                                            @Value("${bot.dispatcher.blockTimeout:5000}") long blockTimeout) {
+      return new UpdateDispatcher(workers, queueSize, backpressure, blockTimeout);
+   }
+}
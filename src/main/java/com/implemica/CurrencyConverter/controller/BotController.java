@@ -1,9 +1,11 @@
 package com.implemica.CurrencyConverter.controller;
 
+import com.implemica.CurrencyConverter.model.Answer;
 import com.implemica.CurrencyConverter.model.ConvertStep;
-import com.implemica.CurrencyConverter.model.State;
 import com.implemica.CurrencyConverter.model.User;
 import com.implemica.CurrencyConverter.service.BotService;
+import com.implemica.CurrencyConverter.service.UpdateDispatcher;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -62,84 +64,87 @@ public class BotController extends TelegramLongPollingBot {
    private final BotService bot;
 
    /**
-    * Sender messages to user
+    * Stores users states and id chats, where they communicate with bot
     */
-   private SendMessage sendMessage;
+   private final UserStateStore states;
 
    /**
-    * Id of chat
+    * Runs processing of updates, updates of one chat are processed in order
     */
-   private long chatId;
-
-   /**
-    * Stores users and id chats, where they communicate with bot
-    */
-   private static Map<User, Long> listOfChats = State.listOfChats;
-
-   /**
-    * Stores users states
-    */
-   private static Map<Integer, State> usersStates = State.statesOfUsers;
+   private final UpdateDispatcher dispatcher;
 
    /**
     * Creates new telegram bot's controller
     *
-    * @param bot stores bot's logic
+    * @param bot        stores bot's logic
+    * @param states     stores users states and their chats
+    * @param dispatcher runs processing of updates
     */
    @Autowired
-   public BotController(BotService bot) {
+   public BotController(BotService bot, UserStateStore states, UpdateDispatcher dispatcher) {
       this.bot = bot;
-      sendMessage = new SendMessage();
+      this.states = states;
+      this.dispatcher = dispatcher;
    }
 
    /**
-    * Gets Users input and processes it. Writes conversation to storage
+    * Gets Users input and passes it to the worker of its chat, so the thread of updates is not blocked
+    * by processing of other chats and updates of one chat are processed in order of receiving.
     *
     * @param update represents an incoming update from Telegram
     */
    @Override
    public void onUpdateReceived(Update update) {
-      Message message;
+      CallbackQuery callbackQuery = update.hasMessage() ? null : update.getCallbackQuery();
+      Message message = callbackQuery == null ? update.getMessage() : callbackQuery.getMessage();
+
+      dispatcher.dispatch(message.getChatId(), () -> processUpdate(message, callbackQuery));
+   }
+
+   /**
+    * Processes Users input. Writes conversation to storage. The worker of chat waits for the response,
+    * so responses are sent in order of messages of the chat, and the keyboard is chosen by the state,
+    * which was created together with the response. Controller keeps nothing about the update in its fields,
+    * so updates may be processed by many threads.
+    *
+    * @param message       incoming message or message with the pressed button
+    * @param callbackQuery pressed button of inline keyboard, null for an incoming message
+    */
+   private void processUpdate(Message message, CallbackQuery callbackQuery) {
       User user;
       String command;
       boolean isBot = false;
 
-      if (update.hasMessage()) {
-         message = update.getMessage();
+      if (callbackQuery == null) {
          command = getCommand(message);
 
       } else {
-         CallbackQuery callbackQuery = update.getCallbackQuery();
          command = callbackQuery.getData();
 
-         message = callbackQuery.getMessage();
-
          long message_id = message.getMessageId();
-         chatId = message.getChatId();
 
          isBot = true;
          String answer = "You chose " + command;
-         sendEditMessage(message_id, answer);
+         sendEditMessage(message.getChatId(), message_id, answer);
       }
 
+      long chat = message.getChatId();
       user = getInformationAboutUser(message);
 
       if (isBot) {
-         user = chooseUser(user);
+         user = chooseUser(user, chat);
       }
 
-      String response = bot.processCommand(command, user);
-      sendMessage(message, response);
+      Answer answer = bot.processCommandAsync(command, user);
+      states.putChat(chat, user);
 
-      int userId = user.getUserId();
-      ConvertStep step = getStep(userId);
+      sendMessage(chat, answer.getResponse().join());
+      ConvertStep step = answer.getState().getConvertStep();
 
       if (step.equals(FIRST) || step.equals(SECOND)) {
-         SendMessage s = new SendMessage().setChatId(chatId).setText("You can choose popular currencies: ");
+         SendMessage s = new SendMessage().setChatId(chat).setText("You can choose popular currencies: ");
          createKeyboard(s);
       }
-
-      listOfChats.put(user, chatId);
    }
 
    /**
@@ -150,7 +155,6 @@ public class BotController extends TelegramLongPollingBot {
     */
    private String getCommand(Message message) {
       String command;
-      chatId = message.getChatId();
 
       if (message.hasText()) {
          command = message.getText();
@@ -181,12 +185,13 @@ public class BotController extends TelegramLongPollingBot {
    /**
     * Sends message to user in Telegram
     *
-    * @param request  represents an incoming message from Telegram
+    * @param chat     id of chat, where message has to be sent
     * @param response message, which has to be sent to user
     */
-   private void sendMessage(Message request, String response) {
-      sendMessage.setText(response);
-      sendMessage.setChatId(request.getChatId());
+   private void sendMessage(long chat, String response) {
+      SendMessage sendMessage = new SendMessage()
+              .setText(response)
+              .setChatId(chat);
 
       try {
          execute(sendMessage);
@@ -199,12 +204,13 @@ public class BotController extends TelegramLongPollingBot {
    /**
     * Changes message's text to specified
     *
+    * @param chat      id of chat, where message is
     * @param messageId id if message, which has to be changed
     * @param text      new text of message
     */
-   private void sendEditMessage(long messageId, String text) {
+   private void sendEditMessage(long chat, long messageId, String text) {
       EditMessageText new_message = new EditMessageText()
-              .setChatId(chatId)
+              .setChatId(chat)
               .setMessageId(toIntExact(messageId))
               .setText(text);
 
@@ -276,28 +282,12 @@ public class BotController extends TelegramLongPollingBot {
     * Finds user, who talk to bot
     *
     * @param user bot user
+    * @param chat id of chat
     * @return the user who is in the same chat
     */
-   private User chooseUser(User user) {
-      Set<Map.Entry<User, Long>> entrySet = listOfChats.entrySet();
-      for (Map.Entry<User, Long> pair : entrySet) {
-         long id = pair.getValue();
-         if (chatId == id) {
-            user = pair.getKey();
-         }
-      }
-      return user;
-   }
-
-   /**
-    * Finds User by their key and gets their conversion step
-    *
-    * @param id users id
-    * @return step of conversion for given user
-    */
-   private ConvertStep getStep(int id) {
-      State state = usersStates.get(id);
-      return state.getConvertStep();
+   private User chooseUser(User user, long chat) {
+      User userOfChat = states.getUser(chat);
+      return userOfChat == null ? user : userOfChat;
    }
 }
 
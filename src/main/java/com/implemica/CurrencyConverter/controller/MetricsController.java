@@ -0,0 +1,139 @@
+package com.implemica.CurrencyConverter.controller;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.RateBar;
+import com.implemica.CurrencyConverter.service.CircuitBreakerRegistry;
+import com.implemica.CurrencyConverter.service.ConverterRanking;
+import com.implemica.CurrencyConverter.service.RequestBudgetRegistry;
+import com.implemica.CurrencyConverter.service.UpdateDispatcher;
+import com.implemica.CurrencyConverter.service.rates.RateHistory;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for show state of converter's components as JSON.
+ *
+ * @see CircuitBreakerRegistry
+ * @see RequestBudgetRegistry
+ * @see ConverterRanking
+ * @see RateHistory
+ * @see UserStateStore
+ * @see UpdateDispatcher
+ *
+ * @author Dmytro K.
+ */
+@RestController
+public class MetricsController {
+
+   /** Circuit breakers of converters. */
+   private final CircuitBreakerRegistry circuitBreakers;
+
+   /** Budgets of requests to converters. */
+   private final RequestBudgetRegistry requestBudgets;
+
+   /** Statistics of converters. */
+   private final ConverterRanking ranking;
+
+   /** History of rates. */
+   private final RateHistory rateHistory;
+
+   /** States of users' dialogs. */
+   private final UserStateStore userStates;
+
+   /** Dispatcher of Telegram updates. */
+   private final UpdateDispatcher dispatcher;
+
+   @Autowired
+   public MetricsController(CircuitBreakerRegistry circuitBreakers, RequestBudgetRegistry requestBudgets,
+                            ConverterRanking ranking, RateHistory rateHistory, UserStateStore userStates,
+                            UpdateDispatcher dispatcher) {
+      this.circuitBreakers = circuitBreakers;
+      this.requestBudgets = requestBudgets;
+      this.ranking = ranking;
+      this.rateHistory = rateHistory;
+      this.userStates = userStates;
+      this.dispatcher = dispatcher;
+   }
+
+   /**
+    * Mapping shows states of circuit breakers of converters.
+    *
+    * @return list of states.
+    */
+   @GetMapping("/metrics/breakers")
+   public List<Map<String, Object>> breakers() {
+      return circuitBreakers.getMetrics();
+   }
+
+   /**
+    * Mapping shows budgets of requests to converters, which have a limit.
+    *
+    * @return list of budgets.
+    */
+   @GetMapping("/metrics/budgets")
+   public List<Map<String, Object>> budgets() {
+      return requestBudgets.getMetrics();
+   }
+
+   /**
+    * Mapping shows latency and failures of converters, which define their order.
+    *
+    * @return list of statistics.
+    */
+   @GetMapping("/metrics/converters")
+   public List<Map<String, Object>> converters() {
+      return ranking.getMetrics();
+   }
+
+   /**
+    * Mapping shows count of stored states of users and their evictions.
+    *
+    * @return metrics of the storage.
+    */
+   @GetMapping("/metrics/states")
+   public Map<String, Object> states() {
+      return userStates.getMetrics();
+   }
+
+   /**
+    * Mapping shows depths of queues of workers, which process Telegram updates, and dropped updates.
+    *
+    * @return metrics of the dispatcher.
+    */
+   @GetMapping("/metrics/dispatcher")
+   public Map<String, Object> dispatcher() {
+      return dispatcher.getMetrics();
+   }
+
+   /**
+    * Mapping shows history of rates of the pair. Periods up to
+    * {@link RateHistory#MAX_HOURS} hours are shown by hours, longer ones by days.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param period count of days or hours (E. g. : 30d, 24h)
+    * @return list of bars in time order.
+    */
+   @GetMapping("/metrics/history")
+   public List<RateBar> history(@RequestParam Currency from, @RequestParam Currency to,
+                                @RequestParam(defaultValue = "7d") String period) {
+      long periodInMs;
+
+      try {
+         periodInMs = RateHistory.parsePeriod(period);
+      } catch (ParseException e) {
+         throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+      }
+
+      return rateHistory.getLastBars(from, to, periodInMs, RateHistory.getBarSize(periodInMs));
+   }
+}
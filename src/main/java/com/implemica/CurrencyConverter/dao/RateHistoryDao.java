@@ -0,0 +1,47 @@
+package com.implemica.CurrencyConverter.dao;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+
+/**
+ * Class for storing observations of rates, which are never changed
+ * after they were written.
+ *
+ * @see com.implemica.CurrencyConverter.service.rates.RateHistory
+ *
+ * @author Dmytro K.
+ */
+public interface RateHistoryDao {
+
+   /**
+    * Adds the observation to the buffer, it is written to the storage by {@link #flush()}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate cost of 1 unit
+    * @param time time of observation in ms
+    */
+   void append(Currency from, Currency to, double rate, long time);
+
+   /**
+    * Writes all buffered observations to the storage.
+    */
+   void flush();
+
+   /**
+    * Reads all observations, which were made not before the given time,
+    * in time order.
+    *
+    * @param since min time of observation in ms
+    * @param consumer consumer of observations
+    * @return count of read observations
+    */
+   int load(long since, RateCache.RateConsumer consumer);
+
+   /**
+    * Removes observations, which were made before the given time.
+    *
+    * @param time time in ms
+    */
+   void deleteBefore(long time);
+}
@@ -0,0 +1,30 @@
+package com.implemica.CurrencyConverter.dao;
+
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+
+/**
+ * Class for saving rates of {@link RateCache} between restarts.
+ *
+ * @see RateCache
+ *
+ * @author Dmytro K.
+ */
+public interface RateSnapshotDao {
+
+   /**
+    * Saves all usable rates of the cache to a storage.
+    *
+    * @param rateCache cache of rates
+    * @return count of saved rates
+    */
+   int save(RateCache rateCache);
+
+   /**
+    * Puts rates from a storage to the cache. Rates, which are already too
+    * old, are skipped.
+    *
+    * @param rateCache cache of rates
+    * @return count of loaded rates
+    */
+   int load(RateCache rateCache);
+}
@@ -0,0 +1,62 @@
+package com.implemica.CurrencyConverter.dao;
+
+import com.implemica.CurrencyConverter.model.State;
+
+/**
+ * Class for storing transitions of states of users' dialogs between
+ * restarts. Transitions are only appended, and the journal is compacted
+ * from time to time, so only the last state of every user is kept.
+ *
+ * @see com.implemica.CurrencyConverter.service.state.JournaledUserStateStore
+ *
+ * @author Dmytro K.
+ */
+public interface StateJournalDao {
+
+   /**
+    * Adds the transition to the buffer, it is written to the storage by {@link #flush()}.
+    *
+    * @param userId id of user
+    * @param state new state of dialog
+    * @param time time of transition in ms
+    */
+   void append(int userId, State state, long time);
+
+   /**
+    * Writes all buffered transitions to the storage.
+    */
+   void flush();
+
+   /**
+    * Reads the last state of every user, if it was saved not before the
+    * given time and is not {@link State#INITIAL}.
+    *
+    * @param since min time of transition in ms
+    * @param consumer consumer of states
+    * @return count of read states
+    */
+   int load(long since, StateConsumer consumer);
+
+   /**
+    * Writes buffered transitions and rewrites the storage, so it keeps only
+    * states, which would be read by {@link #load(long, StateConsumer)}.
+    *
+    * @param since min time of transition in ms
+    * @return count of kept states
+    */
+   int compact(long since);
+
+   /**
+    * Consumer of saved states.
+    */
+   @FunctionalInterface
+   interface StateConsumer {
+
+      /**
+       * @param userId id of user
+       * @param state state of dialog
+       * @param time time of transition in ms
+       */
+      void accept(int userId, State state, long time);
+   }
+}
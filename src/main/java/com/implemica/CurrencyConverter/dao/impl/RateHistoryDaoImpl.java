@@ -0,0 +1,332 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.dao.RateHistoryDao;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * This class writes observations of rates to segment files, one file
+ * per day (UTC).
+ *
+ * A segment starts with a header and the table of names of currencies,
+ * then every observation takes 20 bytes: indexes of both currencies in
+ * the table, the time and the rate. Observations are only appended to
+ * the segment of their day, and old segments are removed as a whole. A
+ * record, which was written partly during a crash, is skipped on reading
+ * and cut off before the next writing, and a record with a currency out
+ * of the table is skipped.
+ *
+ * @see RateHistoryDao
+ *
+ * @author Dmytro K.
+ */
+public class RateHistoryDaoImpl implements RateHistoryDao {
+
+   /** First bytes of a segment. */
+   private static final int MAGIC = 0x52485354;
+
+   /** Version of format of segments. */
+   private static final int VERSION = 1;
+
+   /** Size of an observation in bytes. */
+   private static final int RECORD_SIZE = Short.BYTES * 2 + Long.BYTES + Double.BYTES;
+
+   /** Count of observations, which are kept in the buffer before writing. */
+   private static final int BUFFER_RECORDS = 4096;
+
+   /** Time in ms of one segment. */
+   private static final long DAY = 24 * 60 * 60 * 1000L;
+
+   /** Prefix of names of segments. */
+   private static final String SEGMENT_PREFIX = "rates-";
+
+   /** Extension of segments. */
+   private static final String SEGMENT_SUFFIX = ".seg";
+
+   /** All currencies by ordinal. */
+   private static final Currency[] CURRENCIES = Currency.values();
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(RateHistoryDao.class.getName());
+
+   /** Directory with segments, null if observations are not saved. */
+   private final File directory;
+
+   /** Buffered observations of {@link #bufferDay}. */
+   private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+
+   /** Day of buffered observations, number of days since epoch. */
+   private long bufferDay = -1;
+
+   /**
+    * Creates dao for the given directory.
+    *
+    * @param directory directory with segments, null if observations are not saved
+    */
+   public RateHistoryDaoImpl(File directory) {
+      this.directory = directory;
+   }
+
+   @Override
+   public synchronized void append(Currency from, Currency to, double rate, long time) {
+      if (directory == null) {
+         return;
+      }
+
+      long day = Math.floorDiv(time, DAY);
+
+      if (day != bufferDay || !buffer.hasRemaining()) {
+         flush();
+         bufferDay = day;
+      }
+
+      buffer.putShort((short) from.ordinal()).putShort((short) to.ordinal()).putLong(time).putDouble(rate);
+   }
+
+   @Override
+   public synchronized void flush() {
+      if (directory == null || buffer.position() == 0) {
+         return;
+      }
+
+      buffer.flip();
+
+      try {
+         if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Directory " + directory + " was not created");
+         }
+
+         File segment = getSegment(bufferDay);
+
+         try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.CREATE,
+                 StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = getValidSize(channel, segment);
+
+            if (size < channel.size()) {
+               logger.warn("Partly written tail of segment " + segment + " was removed");
+               channel.truncate(size);
+            }
+
+            ByteBuffer header = size == 0 ? createHeader() : ByteBuffer.allocate(0);
+            ByteBuffer[] buffers = {header, buffer};
+            channel.position(size);
+
+            while (header.hasRemaining() || buffer.hasRemaining()) {
+               channel.write(buffers);
+            }
+         }
+
+      } catch (IOException e) {
+         logger.error("History of rates was not saved", e);
+      }
+
+      buffer.clear();
+   }
+
+   @Override
+   public synchronized int load(long since, RateCache.RateConsumer consumer) {
+      int count = 0;
+
+      for (File segment : getSegments()) {
+         if (getDay(segment) < Math.floorDiv(since, DAY)) {
+            continue;
+         }
+
+         try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            count += readSegment(mapped, since, consumer);
+
+         } catch (IOException | RuntimeException e) {
+            logger.error("Segment " + segment + " was not loaded", e);
+         }
+      }
+
+      return count;
+   }
+
+   @Override
+   public synchronized void deleteBefore(long time) {
+      for (File segment : getSegments()) {
+         if (getDay(segment) < Math.floorDiv(time, DAY) && !segment.delete()) {
+            logger.error("Segment " + segment + " was not removed");
+         }
+      }
+   }
+
+   /**
+    * Reads observations of the segment, which were made not before the given time.
+    */
+   private int readSegment(ByteBuffer segment, long since, RateCache.RateConsumer consumer) throws IOException {
+      if (segment.getInt() != MAGIC || segment.getInt() != VERSION) {
+         throw new IOException("Unknown format of segment");
+      }
+
+      Currency[] currencies = new Currency[segment.getShort()];
+
+      for (int i = 0; i < currencies.length; i++) {
+         byte[] name = new byte[segment.get()];
+         segment.get(name);
+
+         try {
+            currencies[i] = Currency.valueOf(new String(name, StandardCharsets.US_ASCII));
+         } catch (IllegalArgumentException e) {
+            currencies[i] = null;
+         }
+      }
+
+      int count = 0;
+
+      while (segment.remaining() >= RECORD_SIZE) {
+         Currency from = getCurrency(currencies, segment.getShort());
+         Currency to = getCurrency(currencies, segment.getShort());
+         long time = segment.getLong();
+         double rate = segment.getDouble();
+
+         if (from != null && to != null && time >= since) {
+            consumer.accept(from, to, rate, time);
+            count++;
+         }
+      }
+
+      return count;
+   }
+
+   /**
+    * @return currency with the given index in the table, null if the index is out of the table.
+    */
+   private static Currency getCurrency(Currency[] currencies, short index) {
+      return index >= 0 && index < currencies.length ? currencies[index] : null;
+   }
+
+   /**
+    * Finds the end of the last whole observation, so new observations are not
+    * appended after an observation, which was written partly during a crash.
+    *
+    * @param channel channel of the segment
+    * @param segment segment file
+    * @return size of the header and whole observations in bytes, 0 if even the header is not whole.
+    * @throws IOException if the segment has unknown format or was not read
+    */
+   private static long getValidSize(FileChannel channel, File segment) throws IOException {
+      long size = channel.size();
+      int tableStart = Integer.BYTES * 2 + Short.BYTES;
+
+      if (size < tableStart) {
+         return 0;
+      }
+
+      ByteBuffer start = read(channel, 0, tableStart);
+
+      if (start.getInt() != MAGIC || start.getInt() != VERSION) {
+         throw new IOException("Unknown format of segment " + segment);
+      }
+
+      long headerSize = tableStart;
+
+      for (int i = start.getShort(); i > 0; i--) {
+         if (headerSize >= size) {
+            return 0;
+         }
+
+         headerSize += 1 + read(channel, headerSize, 1).get();
+      }
+
+      if (headerSize > size) {
+         return 0;
+      }
+
+      return headerSize + (size - headerSize) / RECORD_SIZE * RECORD_SIZE;
+   }
+
+   /**
+    * Reads the given count of bytes from the given position.
+    */
+   private static ByteBuffer read(FileChannel channel, long position, int count) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(count);
+
+      while (bytes.hasRemaining()) {
+         if (channel.read(bytes, position + bytes.position()) < 0) {
+            throw new IOException("Segment ends unexpectedly");
+         }
+      }
+
+      bytes.flip();
+      return bytes;
+   }
+
+   /**
+    * @return segments in time order.
+    */
+   private File[] getSegments() {
+      File[] segments = directory == null ? null : directory.listFiles((dir, name) ->
+              name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+
+      if (segments == null) {
+         return new File[0];
+      }
+
+      Arrays.sort(segments);
+      return segments;
+   }
+
+   private File getSegment(long day) {
+      return new File(directory, SEGMENT_PREFIX + createDayFormat().format(new Date(day * DAY)) + SEGMENT_SUFFIX);
+   }
+
+   /**
+    * @return day of the segment, number of days since epoch, or -1 if name of the segment is incorrect.
+    */
+   private long getDay(File segment) {
+      String name = segment.getName();
+      String date = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+
+      try {
+         return Math.floorDiv(createDayFormat().parse(date).getTime(), DAY);
+      } catch (ParseException e) {
+         return -1;
+      }
+   }
+
+   private static SimpleDateFormat createDayFormat() {
+      SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd");
+      format.setTimeZone(TimeZone.getTimeZone("UTC"));
+      return format;
+   }
+
+   /**
+    * Creates the header with the table of currencies.
+    */
+   private static ByteBuffer createHeader() {
+      int size = Integer.BYTES * 2 + Short.BYTES;
+
+      for (Currency currency : CURRENCIES) {
+         size += 1 + currency.name().length();
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(size);
+      header.putInt(MAGIC).putInt(VERSION).putShort((short) CURRENCIES.length);
+
+      for (Currency currency : CURRENCIES) {
+         byte[] name = currency.name().getBytes(StandardCharsets.US_ASCII);
+         header.put((byte) name.length).put(name);
+      }
+
+      header.flip();
+      return header;
+   }
+}
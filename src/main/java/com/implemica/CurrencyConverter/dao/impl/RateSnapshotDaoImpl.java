@@ -0,0 +1,190 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.dao.RateSnapshotDao;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class saves rates to a binary snapshot file and loads them back.
+ *
+ * The file starts with a header and the table of names of currencies,
+ * so rates are loaded correctly, even if {@link Currency} was changed
+ * between restarts. Then every rate takes 20 bytes: indexes of both
+ * currencies in the table, the rate and the time of fetching. The file
+ * is written through {@link FileChannel} to a temporary file, which
+ * replaces the snapshot at once, so a crash during saving never breaks
+ * the previous snapshot. The file is read through a memory-mapped buffer.
+ *
+ * @see RateCache
+ *
+ * @author Dmytro K.
+ */
+public class RateSnapshotDaoImpl implements RateSnapshotDao {
+
+   /** First bytes of the snapshot file. */
+   private static final int MAGIC = 0x52415445;
+
+   /** Version of format of the file. */
+   private static final int VERSION = 1;
+
+   /** Size of a rate in the file in bytes. */
+   private static final int RATE_SIZE = Short.BYTES * 2 + Double.BYTES + Long.BYTES;
+
+   /** All currencies by ordinal. */
+   private static final Currency[] CURRENCIES = Currency.values();
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(RateSnapshotDao.class.getName());
+
+   /** Snapshot file, null if rates are not saved. */
+   private final File file;
+
+   /**
+    * Creates dao for the given file.
+    *
+    * @param file snapshot file, null if rates are not saved
+    */
+   public RateSnapshotDaoImpl(File file) {
+      this.file = file;
+   }
+
+   @Override
+   public int save(RateCache rateCache) {
+      if (file == null) {
+         return 0;
+      }
+
+      ByteBuffer header = createHeader();
+      ByteBuffer[] rates = {ByteBuffer.allocate((rateCache.size() + 1) * RATE_SIZE)};
+      int[] count = {0};
+
+      rateCache.forEach((from, to, rate, fetched) -> {
+         if (rates[0].remaining() < RATE_SIZE) {
+            rates[0] = grow(rates[0]);
+         }
+
+         rates[0].putShort((short) from.ordinal()).putShort((short) to.ordinal())
+                 .putDouble(rate).putLong(fetched);
+         count[0]++;
+      });
+
+      header.putInt(count[0]).flip();
+      rates[0].flip();
+
+      Path target = file.toPath().toAbsolutePath();
+      Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+      try {
+         try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, rates[0]};
+
+            while (header.hasRemaining() || rates[0].hasRemaining()) {
+               channel.write(buffers);
+            }
+            channel.force(true);
+         }
+
+         Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         return count[0];
+
+      } catch (IOException e) {
+         logger.error("Snapshot of rates was not saved", e);
+         return 0;
+      }
+   }
+
+   @Override
+   public int load(RateCache rateCache) {
+      if (file == null || !file.exists()) {
+         return 0;
+      }
+
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return readSnapshot(buffer, rateCache);
+
+      } catch (IOException | RuntimeException e) {
+         logger.error("Snapshot of rates was not loaded", e);
+         return 0;
+      }
+   }
+
+   /**
+    * Reads the header, the table of currencies and rates and puts rates to the cache.
+    */
+   private int readSnapshot(ByteBuffer buffer, RateCache rateCache) throws IOException {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+         throw new IOException("Unknown format of snapshot " + file);
+      }
+
+      Currency[] currencies = new Currency[buffer.getShort()];
+
+      for (int i = 0; i < currencies.length; i++) {
+         byte[] name = new byte[buffer.get()];
+         buffer.get(name);
+
+         try {
+            currencies[i] = Currency.valueOf(new String(name, StandardCharsets.US_ASCII));
+         } catch (IllegalArgumentException e) {
+            currencies[i] = null;
+         }
+      }
+
+      int count = buffer.getInt();
+      int loaded = 0;
+
+      for (int i = 0; i < count; i++) {
+         Currency from = currencies[buffer.getShort()];
+         Currency to = currencies[buffer.getShort()];
+         double rate = buffer.getDouble();
+         long fetched = buffer.getLong();
+
+         if (from != null && to != null && rateCache.restore(from, to, rate, fetched)) {
+            loaded++;
+         }
+      }
+
+      return loaded;
+   }
+
+   /**
+    * Creates the header with the table of currencies and the place for count of rates.
+    */
+   private static ByteBuffer createHeader() {
+      int size = Integer.BYTES * 3 + Short.BYTES;
+
+      for (Currency currency : CURRENCIES) {
+         size += 1 + currency.name().length();
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(size);
+      header.putInt(MAGIC).putInt(VERSION).putShort((short) CURRENCIES.length);
+
+      for (Currency currency : CURRENCIES) {
+         byte[] name = currency.name().getBytes(StandardCharsets.US_ASCII);
+         header.put((byte) name.length).put(name);
+      }
+
+      return header;
+   }
+
+   private static ByteBuffer grow(ByteBuffer buffer) {
+      ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+      buffer.flip();
+      return bigger.put(buffer);
+   }
+}
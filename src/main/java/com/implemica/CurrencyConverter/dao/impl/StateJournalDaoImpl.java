@@ -0,0 +1,344 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.dao.StateJournalDao;
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class appends transitions of states to a binary journal file.
+ *
+ * The file starts with a header and the table of names of currencies,
+ * then every transition takes 17 bytes: id of user, indexes of both
+ * currencies in the table (-1 for an empty currency), ordinal of the step
+ * and the time. A record, which was written partly during a crash, is
+ * skipped on reading and cut off before the next writing. Compaction writes the last states of users to a
+ * temporary file, which replaces the journal at once, so a crash during
+ * compaction never breaks the journal.
+ *
+ * @see StateJournalDao
+ *
+ * @author Dmytro K.
+ */
+public class StateJournalDaoImpl implements StateJournalDao {
+
+   /** First bytes of the journal. */
+   private static final int MAGIC = 0x53544a4e;
+
+   /** Version of format of the journal. */
+   private static final int VERSION = 1;
+
+   /** Size of a transition in bytes. */
+   private static final int RECORD_SIZE = Integer.BYTES + Short.BYTES * 2 + Byte.BYTES + Long.BYTES;
+
+   /** Count of transitions, which are kept in the buffer before writing. */
+   private static final int BUFFER_RECORDS = 4096;
+
+   /** All currencies by ordinal. */
+   private static final Currency[] CURRENCIES = Currency.values();
+
+   /** All steps by ordinal. */
+   private static final ConvertStep[] STEPS = ConvertStep.values();
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(StateJournalDao.class.getName());
+
+   /** Journal file, null if states are not saved. */
+   private final File file;
+
+   /** Buffered transitions. */
+   private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+
+   /**
+    * Creates dao for the given file.
+    *
+    * @param file journal file, null if states are not saved
+    */
+   public StateJournalDaoImpl(File file) {
+      this.file = file;
+   }
+
+   @Override
+   public synchronized void append(int userId, State state, long time) {
+      if (file == null) {
+         return;
+      }
+
+      if (!buffer.hasRemaining()) {
+         flush();
+      }
+
+      putRecord(buffer, userId, state, time);
+   }
+
+   @Override
+   public synchronized void flush() {
+      if (file == null || buffer.position() == 0) {
+         return;
+      }
+
+      buffer.flip();
+
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+              StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+         long size = getValidSize(channel);
+
+         if (size < channel.size()) {
+            logger.warn("Partly written tail of journal " + file + " was removed");
+            channel.truncate(size);
+         }
+
+         ByteBuffer header = size == 0 ? createHeader() : ByteBuffer.allocate(0);
+         ByteBuffer[] buffers = {header, buffer};
+         channel.position(size);
+
+         while (header.hasRemaining() || buffer.hasRemaining()) {
+            channel.write(buffers);
+         }
+
+      } catch (IOException e) {
+         logger.error("States of users were not saved", e);
+      }
+
+      buffer.clear();
+   }
+
+   @Override
+   public synchronized int load(long since, StateConsumer consumer) {
+      Map<Integer, Record> records = readJournal(since);
+
+      for (Map.Entry<Integer, Record> pair : records.entrySet()) {
+         consumer.accept(pair.getKey(), pair.getValue().state, pair.getValue().time);
+      }
+
+      return records.size();
+   }
+
+   @Override
+   public synchronized int compact(long since) {
+      if (file == null) {
+         return 0;
+      }
+
+      flush();
+      Map<Integer, Record> records = readJournal(since);
+
+      ByteBuffer header = createHeader();
+      ByteBuffer content = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+
+      for (Map.Entry<Integer, Record> pair : records.entrySet()) {
+         putRecord(content, pair.getKey(), pair.getValue().state, pair.getValue().time);
+      }
+      content.flip();
+
+      Path target = file.toPath().toAbsolutePath();
+      Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+      try {
+         try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, content};
+
+            while (header.hasRemaining() || content.hasRemaining()) {
+               channel.write(buffers);
+            }
+            channel.force(true);
+         }
+
+         Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         return records.size();
+
+      } catch (IOException e) {
+         logger.error("Journal of states was not compacted", e);
+         return 0;
+      }
+   }
+
+   /**
+    * Finds the end of the last whole record, so new records are not appended
+    * after a record, which was written partly during a crash.
+    *
+    * @param channel channel of the journal
+    * @return size of the header and whole records in bytes, 0 if even the header is not whole.
+    * @throws IOException if the journal has unknown format or was not read
+    */
+   private long getValidSize(FileChannel channel) throws IOException {
+      long size = channel.size();
+      int tableStart = Integer.BYTES * 2 + Short.BYTES;
+
+      if (size < tableStart) {
+         return 0;
+      }
+
+      ByteBuffer start = read(channel, 0, tableStart);
+
+      if (start.getInt() != MAGIC || start.getInt() != VERSION) {
+         throw new IOException("Unknown format of journal " + file);
+      }
+
+      long headerSize = tableStart;
+
+      for (int i = start.getShort(); i > 0; i--) {
+         if (headerSize >= size) {
+            return 0;
+         }
+
+         headerSize += 1 + read(channel, headerSize, 1).get();
+      }
+
+      if (headerSize > size) {
+         return 0;
+      }
+
+      return headerSize + (size - headerSize) / RECORD_SIZE * RECORD_SIZE;
+   }
+
+   /**
+    * Reads the given count of bytes from the given position.
+    */
+   private static ByteBuffer read(FileChannel channel, long position, int count) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(count);
+
+      while (bytes.hasRemaining()) {
+         if (channel.read(bytes, position + bytes.position()) < 0) {
+            throw new IOException("Journal ends unexpectedly");
+         }
+      }
+
+      bytes.flip();
+      return bytes;
+   }
+
+   /**
+    * Reads the journal, the last transition of every user wins.
+    *
+    * @param since min time of transition in ms
+    * @return the last states of users, which were saved not before the time and are not initial.
+    */
+   private Map<Integer, Record> readJournal(long since) {
+      Map<Integer, Record> records = new LinkedHashMap<>();
+
+      if (file == null || !file.exists()) {
+         return records;
+      }
+
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         readRecords(mapped, records);
+
+      } catch (IOException | RuntimeException e) {
+         logger.error("Journal of states was not loaded", e);
+      }
+
+      records.values().removeIf(record -> record.time < since || record.state.equals(State.INITIAL));
+      return records;
+   }
+
+   /**
+    * Reads the header, the table of currencies and transitions.
+    */
+   private void readRecords(ByteBuffer journal, Map<Integer, Record> records) throws IOException {
+      if (journal.getInt() != MAGIC || journal.getInt() != VERSION) {
+         throw new IOException("Unknown format of journal " + file);
+      }
+
+      String[] currencies = new String[journal.getShort()];
+
+      for (int i = 0; i < currencies.length; i++) {
+         byte[] name = new byte[journal.get()];
+         journal.get(name);
+
+         try {
+            currencies[i] = Currency.valueOf(new String(name, StandardCharsets.US_ASCII)).name();
+         } catch (IllegalArgumentException e) {
+            currencies[i] = null;
+         }
+      }
+
+      while (journal.remaining() >= RECORD_SIZE) {
+         int userId = journal.getInt();
+         short first = journal.getShort();
+         short second = journal.getShort();
+         byte step = journal.get();
+         long time = journal.getLong();
+
+         String firstCurrency = first < 0 ? "" : currencies[first];
+         String secondCurrency = second < 0 ? "" : currencies[second];
+
+         if (firstCurrency != null && secondCurrency != null && step >= 0 && step < STEPS.length) {
+            records.remove(userId);
+            records.put(userId, new Record(new State(firstCurrency, secondCurrency, STEPS[step]), time));
+         }
+      }
+   }
+
+   private static void putRecord(ByteBuffer buffer, int userId, State state, long time) {
+      buffer.putInt(userId)
+              .putShort(getIndex(state.getFirstCurrency()))
+              .putShort(getIndex(state.getSecondCurrency()))
+              .put((byte) state.getConvertStep().ordinal())
+              .putLong(time);
+   }
+
+   /**
+    * @param currency empty string or name of currency
+    * @return index of currency in the table, -1 for empty string.
+    */
+   private static short getIndex(String currency) {
+      return (short) (currency.isEmpty() ? -1 : Currency.valueOf(currency).ordinal());
+   }
+
+   /**
+    * Creates the header with the table of currencies.
+    */
+   private static ByteBuffer createHeader() {
+      int size = Integer.BYTES * 2 + Short.BYTES;
+
+      for (Currency currency : CURRENCIES) {
+         size += 1 + currency.name().length();
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(size);
+      header.putInt(MAGIC).putInt(VERSION).putShort((short) CURRENCIES.length);
+
+      for (Currency currency : CURRENCIES) {
+         byte[] name = currency.name().getBytes(StandardCharsets.US_ASCII);
+         header.put((byte) name.length).put(name);
+      }
+
+      header.flip();
+      return header;
+   }
+
+   /**
+    * The last transition of user.
+    */
+   private static final class Record {
+
+      /** State of dialog. */
+      private final State state;
+
+      /** Time of transition in ms. */
+      private final long time;
+
+      private Record(State state, long time) {
+         this.state = state;
+         this.time = time;
+      }
+   }
+}
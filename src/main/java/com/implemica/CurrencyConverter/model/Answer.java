@@ -0,0 +1,25 @@
+package com.implemica.CurrencyConverter.model;
+
+import lombok.Value;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class represents result of processing of user's message: the new state of dialog and future bot's response.
+ * Both are taken from the same step of dialog, so the response and keyboard, which is shown to user, always match.
+ *
+ * @author Daria S.
+ */
+@Value
+public class Answer {
+
+   /**
+    * New state of user's dialog
+    */
+   private State state;
+
+   /**
+    * Bot's response to user, it's completed, when conversion of currencies is done
+    */
+   private CompletableFuture<String> response;
+}
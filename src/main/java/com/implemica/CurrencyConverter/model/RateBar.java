@@ -0,0 +1,45 @@
+package com.implemica.CurrencyConverter.model;
+
+import lombok.Getter;
+
+/**
+ * Rates of a currency pair during one period: the first, the highest,
+ * the lowest and the last rate.
+ *
+ * @author Dmytro K.
+ */
+@Getter
+public class RateBar {
+
+   /** Start of the period in ms. */
+   private final long time;
+
+   /** The first rate of the period. */
+   private final double open;
+
+   /** The highest rate of the period. */
+   private final double high;
+
+   /** The lowest rate of the period. */
+   private final double low;
+
+   /** The last rate of the period. */
+   private final double close;
+
+   /**
+    * Creates a bar.
+    *
+    * @param time start of the period in ms
+    * @param open the first rate of the period
+    * @param high the highest rate of the period
+    * @param low the lowest rate of the period
+    * @param close the last rate of the period
+    */
+   public RateBar(long time, double open, double high, double low, double close) {
+      this.time = time;
+      this.open = open;
+      this.high = high;
+      this.low = low;
+      this.close = close;
+   }
+}
@@ -1,28 +1,21 @@
 package com.implemica.CurrencyConverter.model;
 
-import lombok.Data;
-
-import java.util.HashMap;
-import java.util.Map;
+import lombok.Value;
 
 /**
  * This class is represents state of dialog. This is necessary so that each user has his own dialogue with the bot,
- * regardless of other statesOfUsers
+ * regardless of other users. State is immutable, every step of dialog creates a new one, so it may be
+ * shared between threads, which process messages.
  *
  * @author Daria S.
  */
-@Data
+@Value
 public class State {
 
    /**
-    * Stores all statesOfUsers, which use bot and their last command
+    * State of user, who didn't communicate with bot yet
     */
-   public static Map<Integer, State> statesOfUsers = new HashMap<>();
-
-   /**
-    * Stores user connection with his chat
-    */
-   public static Map<User, Long> listOfChats = new HashMap<>();
+   public static final State INITIAL = new State("", "", ConvertStep.ZERO);
 
    /**
     * Stores firstCurrency, which was entered by user
@@ -40,13 +33,23 @@ public class State {
    /**
     * Creates a state of dialog
     *
-    * @param firstCurrency  state of {@link com.implemica.CurrencyConverter.service.BotService#firstCurrency}
-    * @param secondCurrency state of {@link com.implemica.CurrencyConverter.service.BotService#secondCurrency}
-    * @param convertStep    state of {@link com.implemica.CurrencyConverter.service.BotService#convertStep}
+    * @param firstCurrency  the currency to convert from
+    * @param secondCurrency the currency to convert to
+    * @param convertStep    step of conversion
     */
    public State(String firstCurrency, String secondCurrency, ConvertStep convertStep) {
       this.firstCurrency = firstCurrency;
       this.secondCurrency = secondCurrency;
       this.convertStep = convertStep;
    }
+
+   /**
+    * Creates a state with the same currencies and given step
+    *
+    * @param convertStep new step of conversion
+    * @return new state of dialog
+    */
+   public State withConvertStep(ConvertStep convertStep) {
+      return new State(firstCurrency, secondCurrency, convertStep);
+   }
 }
@@ -0,0 +1,126 @@
+package com.implemica.CurrencyConverter.service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class runs blocking tasks on a bounded pool of I/O threads and
+ * returns their results as {@link CompletableFuture}.
+ *
+ * The pool has a fixed count of threads and a bounded queue, so a burst
+ * of requests can't create unlimited count of threads: when the queue is
+ * full, the future is completed by {@link RejectedExecutionException}.
+ * Each task has a timeout, after which its future is completed by
+ * {@link TimeoutException} and the task is interrupted.
+ *
+ * @see ConverterService#convertAsync(com.implemica.CurrencyConverter.model.Currency,
+ *      com.implemica.CurrencyConverter.model.Currency, java.math.BigDecimal)
+ *
+ * @author Dmytro K.
+ */
+public class AsyncExecutor {
+
+   /** Executor for tasks. */
+   private final ThreadPoolExecutor executor;
+
+   /** Scheduler of timeouts. */
+   private final ScheduledExecutorService timer;
+
+   /** Time in ms after which a task is cancelled by default. */
+   private final long timeout;
+
+   /**
+    * Creates executor.
+    *
+    * @param threads max count of threads for tasks
+    * @param queueSize max count of tasks, which wait for a thread
+    * @param timeout time in ms after which a task is cancelled by default, 0 - without timeout
+    */
+   public AsyncExecutor(int threads, int queueSize, long timeout) {
+      this.executor = createExecutor(threads, queueSize);
+      this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "converter-async-timer");
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.timeout = timeout;
+   }
+
+   /**
+    * Runs the task with the default timeout.
+    *
+    * @param task task
+    * @param <T> type of result
+    * @return future result of the task.
+    */
+   public <T> CompletableFuture<T> supply(Callable<T> task) {
+      return supply(task, timeout);
+   }
+
+   /**
+    * Runs the task with the given timeout.
+    *
+    * @param task task
+    * @param timeout time in ms after which the task is cancelled, 0 - without timeout
+    * @param <T> type of result
+    * @return future result of the task.
+    */
+   public <T> CompletableFuture<T> supply(Callable<T> task, long timeout) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      Future<?> future;
+
+      try {
+         future = executor.submit(() -> {
+            try {
+               result.complete(task.call());
+            } catch (Throwable e) {
+               result.completeExceptionally(e);
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         result.completeExceptionally(e);
+         return result;
+      }
+
+      if (timeout > 0) {
+         ScheduledFuture<?> expiration = timer.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("Task was not completed in " + timeout + " ms"))) {
+               future.cancel(true);
+            }
+         }, timeout, TimeUnit.MILLISECONDS);
+
+         result.whenComplete((value, e) -> expiration.cancel(false));
+      }
+
+      return result;
+   }
+
+   /**
+    * @return count of tasks, which wait for a thread.
+    */
+   public int getQueueSize() {
+      return executor.getQueue().size();
+   }
+
+   /**
+    * Stops the executor.
+    */
+   public void shutdown() {
+      executor.shutdownNow();
+      timer.shutdownNow();
+   }
+
+   private static ThreadPoolExecutor createExecutor(int threads, int queueSize) {
+      AtomicInteger counter = new AtomicInteger();
+
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(queueSize), runnable -> {
+         Thread thread = new Thread(runnable, "converter-async-" + counter.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+
+      return executor;
+   }
+}
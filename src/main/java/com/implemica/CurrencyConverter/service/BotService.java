@@ -3,6 +3,8 @@ package com.implemica.CurrencyConverter.service;
 
 import com.implemica.CurrencyConverter.dao.DialogDao;
 import com.implemica.CurrencyConverter.model.*;
+import com.implemica.CurrencyConverter.service.rates.RateHistory;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
 import com.implemica.CurrencyConverter.validator.BotValidator;
 import com.tunyk.currencyconverter.api.CurrencyConverterException;
 import org.slf4j.Logger;
@@ -16,8 +18,14 @@ import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import static com.implemica.CurrencyConverter.model.ConvertStep.*;
 import static com.implemica.CurrencyConverter.validator.BotValidator.formatNumber;
@@ -98,6 +106,33 @@ public class BotService {
     * Bot's command to stop conversation
     */
    private static final String STOP = "/stop";
+
+   /**
+    * Bot's command to show history of rates (E. g. : /history USD EUR 30d)
+    */
+   private static final String HISTORY = "/history";
+
+   /**
+    * Period of history, if user didn't give it
+    */
+   private static final long DEFAULT_HISTORY_PERIOD = 7 * RateHistory.DAY;
+
+   /**
+    * Bot's response for incorrect /history command
+    */
+   private static final String HISTORY_USAGE_MESSAGE = "Please, type in /history command with two currencies and " +
+           "period in days (up to " + RateHistory.MAX_DAYS + "d) or hours (up to " + RateHistory.MAX_HOURS + "h)" +
+           "\n(E. g. : /history USD EUR 30d)";
+
+   /**
+    * End of message about incorrect period of history
+    */
+   private static final String IS_NOT_A_VALID_PERIOD = "\" is not a valid period. ";
+
+   /**
+    * Sign of history message
+    */
+   private static final String CHART_SIGN = "\uD83D\uDCC8";
    /**
     * Bot's response for /convert command
     */
@@ -129,38 +164,39 @@ public class BotService {
     */
    private static final String NOT_TEXT_CONTENT = "Users message has incorrect content.";
    /**
-    * The currency to convert from
-    */
-   private String firstCurrency = "";
-   /**
-    * The currency to convert to
+    * Count of words in one line request
     */
-   private String secondCurrency = "";
+   private static final int WORDS_COUNT = 4;
 
    /**
-    * Step of conversion
+    * Separator of currencies to convert to in one line request (E. g. : 10 USD in EUR,UAH,GBP)
     */
-   private ConvertStep convertStep = ZERO;
+   private static final String TARGETS_SEPARATOR = ",";
 
    /**
-    * Count of words in one line request
+    * Message for currency, which could not be converted in request with several currencies to convert to
     */
-   private static final int WORDS_COUNT = 4;
+   private static final String IS_NOT_CONVERTED = " could not be converted.";
    /**
     * Logger for this class
     */
    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
    /**
-    * Stores Users and their commands
+    * Stores Users and their states of dialog
     */
-   private Map<Integer, State> states = State.statesOfUsers;
+   private final UserStateStore states;
 
    /**
     * Converter for currencies
     */
    private final ConverterService converterService;
 
+   /**
+    * History of rates
+    */
+   private final RateHistory rateHistory;
+
    /**
     * Date format for writing to file
     */
@@ -172,91 +208,132 @@ public class BotService {
     * @param converterService converter for currencies
     * @param dialogDao        write dialog into storage
     * @param template         send messages to webSocket
+    * @param rateHistory      history of rates
+    * @param states           stores states of users
     */
    @Autowired
-   public BotService(ConverterService converterService, DialogDao dialogDao, SimpMessagingTemplate template) {
+   public BotService(ConverterService converterService, DialogDao dialogDao, SimpMessagingTemplate template,
+                     RateHistory rateHistory, UserStateStore states) {
       this.converterService = converterService;
       this.dialogDao = dialogDao;
       this.template = template;
+      this.rateHistory = rateHistory;
+      this.states = states;
    }
 
    /**
-    * Gets Users input and processes it, writes conversation to storage and sends their to webSocket
+    * Message for user, when server did not respond
+    */
+   private static final String SERVER_IS_NOT_RESPONDING = "❗Sorry, but server is not responding. Please, try again later.";
+
+   /**
+    * Gets Users input and processes it, writes conversation to storage and sends their to webSocket.
+    * Blocks until conversion is completed.
     *
     * @param command request from user
     * @param user    user, who sent message
     * @return bot's response to user
     */
    public String processCommand(String command, User user) {
-      int userId = user.getUserId();
+      return processCommandAsync(command, user).getResponse().join();
+   }
+
+   /**
+    * Gets Users input and processes it, writes conversation to storage and sends their to webSocket.
+    * State of user is saved at once, but conversion of currencies doesn't block the caller's thread,
+    * so bot's response is completed, when the conversion is done. Service has no state of its own,
+    * state of user is replaced atomically by {@link UserStateStore}, so messages of different users may be processed by many threads.
+    * The store may hold a lock, while it replaces the state, so conversion or reading of history is started
+    * only after the state was replaced.
+    *
+    * @param command request from user
+    * @param user    user, who sent message
+    * @return new state of user's dialog and future bot's response to user
+    */
+   public Answer processCommandAsync(String command, User user) {
+      Reply[] reply = new Reply[1];
+
+      states.update(user.getUserId(), state -> {
+         reply[0] = process(state, command);
+         return reply[0].state;
+      });
 
-      checkState(userId);
+      String request = reply[0].request;
 
-      String message;
+      CompletableFuture<String> response = reply[0].action.get().thenApply(text -> {
+         writeDataToStorage(user, request, text);
+         return text;
+      });
+
+      return new Answer(reply[0].state, response);
+   }
+
+   /**
+    * Makes one step of dialog. The step depends only on the given state and input and has no side effects,
+    * conversion of currencies or reading of history is only described by the action of reply, so the step
+    * may be made under lock of the store and may be repeated.
+    *
+    * @param state   current state of user's dialog
+    * @param command request from user
+    * @return new state of dialog and action, which creates bot's response
+    */
+   private Reply process(State state, String command) {
+      String firstCurrency = state.getFirstCurrency();
+      String secondCurrency = state.getSecondCurrency();
+      ConvertStep convertStep = state.getConvertStep();
 
       if (command.equals(WRONG_CONTENT)) {
-         command = NOT_TEXT_CONTENT;
-         message = INCORRECT_CONTENT_MESSAGE;
-         convertStep = ZERO;
+         return new Reply(state.withConvertStep(ZERO), NOT_TEXT_CONTENT, INCORRECT_CONTENT_MESSAGE);
 
       } else if (isOneLineRequest(command)) {
-         message = convertByLine(command);
-         convertStep = ZERO;
+         return new Reply(state.withConvertStep(ZERO), command, () -> convertByLine(command));
 
       } else if (command.equals(START)) {
-         message = START_MESSAGE;
-         convertStep = ZERO;
+         return new Reply(state.withConvertStep(ZERO), command, START_MESSAGE);
 
       } else if (command.equals(STOP)) {
-         message = STOP_MESSAGE;
-         convertStep = ZERO;
+         return new Reply(state.withConvertStep(ZERO), command, STOP_MESSAGE);
+
+      } else if (isHistoryRequest(command)) {
+         return new Reply(state.withConvertStep(ZERO), command,
+                 () -> CompletableFuture.completedFuture(getHistory(command)));
 
       } else if (command.equals(CONVERT)) {
-         message = FIRST_CONVERT_MESSAGE;
-         convertStep = FIRST;
+         return new Reply(state.withConvertStep(FIRST), command, FIRST_CONVERT_MESSAGE);
 
       } else if (convertStep.equals(FIRST)) {
-         firstCurrency = BotValidator.toUpperCase(command);
+         String currency = BotValidator.toUpperCase(command);
 
-         if (isValidCurrency(firstCurrency)) {
-            message = SECOND_CONVERT_MESSAGE_1 + firstCurrency + SECOND_CONVERT_MESSAGE_2;
-            convertStep = SECOND;
-
-         } else {
-            message = SORRY_BUT + command + IS_NOT_A_VALID_CURRENCY + FIRST_CONVERT_MESSAGE;
+         if (isValidCurrency(currency)) {
+            return new Reply(new State(currency, secondCurrency, SECOND), command,
+                    SECOND_CONVERT_MESSAGE_1 + currency + SECOND_CONVERT_MESSAGE_2);
          }
 
-      } else if (convertStep.equals(SECOND)) {
-         secondCurrency = BotValidator.toUpperCase(command);
+         return new Reply(state, command, SORRY_BUT + command + IS_NOT_A_VALID_CURRENCY + FIRST_CONVERT_MESSAGE);
 
-         if (isValidCurrency(secondCurrency)) {
-            message = THIRD_CONVERT_MESSAGE + firstCurrency + " to " + secondCurrency;
-            convertStep = THIRD;
+      } else if (convertStep.equals(SECOND)) {
+         String currency = BotValidator.toUpperCase(command);
 
-         } else {
-            message = SORRY_BUT + command + IS_NOT_A_VALID_CURRENCY +
-                    SECOND_CONVERT_MESSAGE_1 + firstCurrency + SECOND_CONVERT_MESSAGE_2;
+         if (isValidCurrency(currency)) {
+            return new Reply(new State(firstCurrency, currency, THIRD), command,
+                    THIRD_CONVERT_MESSAGE + firstCurrency + " to " + currency);
          }
 
+         return new Reply(state, command, SORRY_BUT + command + IS_NOT_A_VALID_CURRENCY +
+                 SECOND_CONVERT_MESSAGE_1 + firstCurrency + SECOND_CONVERT_MESSAGE_2);
+
       } else if (convertStep.equals(THIRD)) {
 
          if (isValidAmount(command)) {
-            message = convertValue(command);
-            convertStep = ZERO;
-
-         } else {
-            message = SORRY_BUT + command + IS_NOT_A_VALID_NUMBER +
-                    THIRD_CONVERT_MESSAGE + firstCurrency + " to " + secondCurrency;
+            return new Reply(state.withConvertStep(ZERO), command,
+                    () -> convertValue(firstCurrency, secondCurrency, command));
          }
 
-      } else {
-         message = INCORRECT_REQUEST_MESSAGE;
-         convertStep = ZERO;
+         return new Reply(state, command, SORRY_BUT + command + IS_NOT_A_VALID_NUMBER +
+                 THIRD_CONVERT_MESSAGE + firstCurrency + " to " + secondCurrency);
       }
 
-      writeDataToStorage(user, command, message);
-      saveUserStates(user);
-      return message;
+      return new Reply(state.withConvertStep(ZERO), command, INCORRECT_REQUEST_MESSAGE);
    }
 
 
@@ -277,76 +354,59 @@ public class BotService {
    }
 
    /**
-    * Save user's state
-    *
-    * @param user user, which states has to be saved
-    */
-   private void saveUserStates(User user) {
-      int userId = user.getUserId();
-      State state = new State(firstCurrency, secondCurrency, convertStep);
-      states.put(userId, state);
-   }
-
-
-   /**
-    * Gets state of conversion for given user, namely the currency to convert to, the currency to convert from and
-    * step of conversion. If User already communicated with the bot, gets their state from {@link State#statesOfUsers},
-    * else sets state as initial. Defines firstCurrency, secondCurrency and convertStep depending on the gotten state.
-    *
-    * @param userId id of given user
-    */
-   private void checkState(int userId) {
-      if (states.containsKey(userId)) {
-
-         State state = states.get(userId);
-
-         firstCurrency = state.getFirstCurrency();
-         secondCurrency = state.getSecondCurrency();
-         convertStep = state.getConvertStep();
-
-      } else {
-
-         firstCurrency = "";
-         secondCurrency = "";
-         convertStep = ZERO;
-      }
-
-   }
-
-   /**
-    * Converts given currencies, if they were given by one line
+    * Converts given currencies, if they were given by one line. There may be
+    * several currencies to convert to, separated by comma (E. g. : 10 USD in EUR,UAH,GBP)
     *
     * @param line given line
-    * @return message to user with result of conversion from first currency to second currency
+    * @return future message to user with result of conversion from first currency to second currency
     */
-   private String convertByLine(String line) {
-      String[] request = line.split("\\s+");
-      String message = "";
-      firstCurrency = BotValidator.toUpperCase(request[1]);
+   private CompletableFuture<String> convertByLine(String line) {
+      String[] request = splitOneLineRequest(line);
+      String firstCurrency = BotValidator.toUpperCase(request[1]);
 
       String wrongValueMessage = "";
       if (isValidCurrency(firstCurrency)) {
-         secondCurrency = BotValidator.toUpperCase(request[3]);
+         String[] targets = request[3].split(TARGETS_SEPARATOR);
+         String secondCurrency = BotValidator.toUpperCase(targets[0]);
 
-         if (isValidCurrency(secondCurrency)) {
+         String wrongCurrency = getWrongCurrency(targets);
+
+         if (wrongCurrency == null) {
             String amount = request[0];
 
-            if (isValidAmount(amount)) {
-               message = convertValue(amount);
+            if (!isValidAmount(amount)) {
+               wrongValueMessage = amount + IS_NOT_A_VALID_NUMBER;
+
+            } else if (targets.length == 1) {
+               return convertValue(firstCurrency, secondCurrency, amount);
 
             } else {
-               wrongValueMessage = amount + IS_NOT_A_VALID_NUMBER;
+               return convertValueToMany(firstCurrency, amount, targets);
             }
          } else {
-            wrongValueMessage = secondCurrency + IS_NOT_A_VALID_CURRENCY;
+            wrongValueMessage = wrongCurrency + IS_NOT_A_VALID_CURRENCY;
          }
       } else {
          wrongValueMessage = firstCurrency + IS_NOT_A_VALID_CURRENCY;
       }
-      if (!wrongValueMessage.isEmpty()) {
-         message = String.format(ERROR_FORMAT, wrongValueMessage);
+      return CompletableFuture.completedFuture(String.format(ERROR_FORMAT, wrongValueMessage));
+   }
+
+   /**
+    * Finds the first currency, which is not valid
+    *
+    * @param currencies currencies given by user
+    * @return currency in upper case, which is not valid, or null, if all currencies are valid
+    */
+   private String getWrongCurrency(String[] currencies) {
+      for (String currency : currencies) {
+         String upperCase = BotValidator.toUpperCase(currency);
+
+         if (!isValidCurrency(upperCase)) {
+            return upperCase;
+         }
       }
-      return message;
+      return null;
    }
 
 
@@ -357,7 +417,7 @@ public class BotService {
     * @return true, if line contains 4 words and correct binding word between currencies
     */
    private boolean isOneLineRequest(String line) {
-      String[] request = line.split("\\s+");
+      String[] request = splitOneLineRequest(line);
 
       int length = request.length;
 
@@ -370,32 +430,175 @@ public class BotService {
    }
 
    /**
-    * Converts given currencies from first one to second.
+    * Splits one line request to words, currencies to convert to, which are separated by comma,
+    * are kept in one word
     *
-    * @param value amount of first currency
-    * @return message to user with result of conversion from first currency to second currency
+    * @param line user's input
+    * @return words of request
+    */
+   private String[] splitOneLineRequest(String line) {
+      return line.replaceAll("\\s*" + TARGETS_SEPARATOR + "\\s*", TARGETS_SEPARATOR).split("\\s+");
+   }
+
+   /**
+    * Checks, that user's input is /history command
+    *
+    * @param line user's input
+    * @return true, if the first word of line is /history
+    */
+   private boolean isHistoryRequest(String line) {
+      return line.trim().split("\\s+")[0].equalsIgnoreCase(HISTORY);
+   }
+
+   /**
+    * Creates message with history of rates for /history command (E. g. : /history USD EUR 30d). Periods up to
+    * {@link RateHistory#MAX_HOURS} hours are shown by hours, longer ones by days, for every hour or day
+    * the last rate is shown.
+    *
+    * @param line user's input
+    * @return message to user with rates of the pair during the period
+    */
+   private String getHistory(String line) {
+      String[] request = line.trim().split("\\s+");
+
+      if (request.length != 3 && request.length != 4) {
+         return HISTORY_USAGE_MESSAGE;
+      }
+
+      String from = BotValidator.toUpperCase(request[1]);
+      String to = BotValidator.toUpperCase(request[2]);
+
+      String wrongCurrency = getWrongCurrency(new String[]{from, to});
+      if (wrongCurrency != null) {
+         return String.format(ERROR_FORMAT, wrongCurrency + IS_NOT_A_VALID_CURRENCY);
+      }
+
+      long period = DEFAULT_HISTORY_PERIOD;
+      if (request.length == 4) {
+         try {
+            period = RateHistory.parsePeriod(request[3]);
+
+         } catch (ParseException e) {
+            return SORRY_BUT + request[3] + IS_NOT_A_VALID_PERIOD + HISTORY_USAGE_MESSAGE;
+         }
+      }
+
+      long barSize = RateHistory.getBarSize(period);
+      List<RateBar> bars = rateHistory.getLastBars(Currency.valueOf(from), Currency.valueOf(to), period, barSize);
+
+      if (bars.isEmpty()) {
+         return "❗Sorry, but there is no history of " + from + " → " + to + " yet." + CONVERT_MESSAGE;
+      }
+
+      SimpleDateFormat dateFormat = new SimpleDateFormat(barSize == RateHistory.DAY ? "dd.MM.yyyy" : "dd.MM.yyyy HH:00");
+      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+      StringBuilder message = new StringBuilder(CHART_SIGN).append(from).append(" → ").append(to).append(" (UTC):");
+
+      for (RateBar bar : bars) {
+         message.append("\n").append(dateFormat.format(new Date(bar.getTime()))).append(" ")
+                 .append(formatNumber(BigDecimal.valueOf(bar.getClose())));
+      }
+
+      return message.toString();
+   }
+
+   /**
+    * Converts given amount of first currency to several currencies without blocking the caller's thread.
+    *
+    * @param from    the currency to convert from
+    * @param value   amount of first currency
+    * @param targets currencies to convert to
+    * @return future message to user with result of conversion to every currency
     */
-   private String convertValue(String value) {
-      String message;
+   private CompletableFuture<String> convertValueToMany(String from, String value, String[] targets) {
+      Set<Currency> to = new LinkedHashSet<>();
+      BigDecimal number;
+
       try {
-         Currency usersCurrency = Currency.valueOf(firstCurrency);
-         Currency desiredCurrency = Currency.valueOf(secondCurrency);
-         BigDecimal number = parseNumber(value);
+         number = parseNumber(value);
 
-         BigDecimal convertedValue = converterService.convert(usersCurrency, desiredCurrency, number);
-         message = MONEY_SIGN + value + " " + firstCurrency + " is " + formatNumber(convertedValue) + " " + secondCurrency;
+      } catch (ParseException e) {
+         return CompletableFuture.completedFuture(SORRY_BUT + value + IS_NOT_A_VALID_NUMBER + CONVERT_MESSAGE);
+      }
+
+      for (String target : targets) {
+         to.add(Currency.valueOf(BotValidator.toUpperCase(target)));
+      }
+
+      return converterService.convertManyAsync(Currency.valueOf(from), to, number)
+              .handle((convertedValues, e) -> {
+                 if (e != null) {
+                    return getErrorMessage(e);
+                 }
+
+                 StringBuilder message = new StringBuilder();
+
+                 for (Currency currency : to) {
+                    if (message.length() > 0) {
+                       message.append("\n");
+                    }
+
+                    BigDecimal convertedValue = convertedValues.get(currency);
+
+                    if (convertedValue == null) {
+                       message.append("❗").append(currency).append(IS_NOT_CONVERTED);
+                    } else {
+                       message.append(MONEY_SIGN).append(value).append(" ").append(from).append(" is ")
+                               .append(formatNumber(convertedValue)).append(" ").append(currency);
+                    }
+                 }
+
+                 return message.toString();
+              });
+   }
 
-      } catch (CurrencyConverterException e) {
-         message = "❗Sorry. " + e.getMessage() + "\n" + CONVERT_MESSAGE;
+   /**
+    * Converts given currencies from first one to second without blocking the caller's thread.
+    *
+    * @param from  the currency to convert from
+    * @param to    the currency to convert to
+    * @param value amount of first currency
+    * @return future message to user with result of conversion from first currency to second currency
+    */
+   private CompletableFuture<String> convertValue(String from, String to, String value) {
+      BigDecimal number;
+
+      try {
+         number = parseNumber(value);
 
       } catch (ParseException e) {
-         message = SORRY_BUT + value + IS_NOT_A_VALID_NUMBER + CONVERT_MESSAGE;
+         return CompletableFuture.completedFuture(SORRY_BUT + value + IS_NOT_A_VALID_NUMBER + CONVERT_MESSAGE);
+      }
 
-      } catch (IOException e) {
+      return converterService.convertAsync(Currency.valueOf(from), Currency.valueOf(to), number)
+              .handle((convertedValue, e) -> e == null
+                      ? MONEY_SIGN + value + " " + from + " is " + formatNumber(convertedValue) + " " + to
+                      : getErrorMessage(e));
+   }
+
+   /**
+    * Creates message to user about failed conversion.
+    *
+    * @param e exception, which was thrown during conversion
+    * @return message to user
+    */
+   private String getErrorMessage(Throwable e) {
+      if (e instanceof CompletionException && e.getCause() != null) {
+         e = e.getCause();
+      }
+
+      if (e instanceof CurrencyConverterException) {
+         return "❗Sorry. " + e.getMessage() + "\n" + CONVERT_MESSAGE;
+      }
+
+      if (e instanceof IOException) {
          logger.error(e.getMessage() + " is not responding.");
-         message = "❗Sorry, but server is not responding. Please, try again later.";
+      } else {
+         logger.error("Conversion failed: " + e);
       }
-      return message;
+
+      return SERVER_IS_NOT_RESPONDING;
    }
 
 
@@ -434,4 +637,35 @@ public class BotService {
    private boolean isValidAmount(String amount) {
       return BotValidator.isValidNumber(amount);
    }
-}
\ No newline at end of file
+
+   /**
+    * Result of one step of dialog
+    */
+   private static final class Reply {
+
+      /**
+       * New state of user's dialog
+       */
+      private final State state;
+
+      /**
+       * Request, which is written to storage
+       */
+      private final String request;
+
+      /**
+       * Action, which starts creation of bot's response to user, it's called after the state was replaced
+       */
+      private final Supplier<CompletableFuture<String>> action;
+
+      private Reply(State state, String request, String message) {
+         this(state, request, () -> CompletableFuture.completedFuture(message));
+      }
+
+      private Reply(State state, String request, Supplier<CompletableFuture<String>> action) {
+         this.state = state;
+         this.request = request;
+         this.action = action;
+      }
+   }
+}
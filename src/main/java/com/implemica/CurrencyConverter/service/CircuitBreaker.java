@@ -0,0 +1,227 @@
+package com.implemica.CurrencyConverter.service;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker of one API.
+ *
+ * The breaker remembers results of the last {@link #windowSize} calls.
+ * When the rate of failures reaches {@link #failureRateThreshold}, the
+ * breaker opens and the API is skipped. After {@link #coolDown} one
+ * trial call is allowed (half-open state): if it succeeds the breaker
+ * closes, otherwise it opens again.
+ *
+ * @see CircuitBreakerRegistry
+ *
+ * @author Dmytro K.
+ */
+public class CircuitBreaker {
+
+   /**
+    * States of the breaker.
+    */
+   public enum Status {
+      CLOSED,
+      OPEN,
+      HALF_OPEN
+   }
+
+   /** Name of API. */
+   private final String name;
+
+   /** Rate of failures, when the breaker opens. */
+   private final double failureRateThreshold;
+
+   /** Count of last calls, which are used for calculating rate of failures. */
+   private final int windowSize;
+
+   /** Min count of calls, which is needed for opening the breaker. */
+   private final int minimumCalls;
+
+   /** Time in ms during which the breaker stays open. */
+   private final long coolDown;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Results of last calls, true if a call failed. */
+   private final boolean[] window;
+
+   /** Position in {@link #window} for the next result. */
+   private int position;
+
+   /** Count of results in {@link #window}. */
+   private int calls;
+
+   /** Count of failures in {@link #window}. */
+   private int failures;
+
+   /** Current state. */
+   private Status status = Status.CLOSED;
+
+   /** Time when the breaker was opened. */
+   private long openedAt;
+
+   /** Time when the trial call was allowed, 0 if there is no trial call. */
+   private long trialStartedAt;
+
+   /** Count of calls, which were skipped while the breaker was open. */
+   private long rejected;
+
+   /**
+    * Creates a closed breaker.
+    *
+    * @param name name of API
+    * @param failureRateThreshold rate of failures, when the breaker opens
+    * @param windowSize count of last calls, which are used for calculating rate of failures
+    * @param minimumCalls min count of calls, which is needed for opening the breaker
+    * @param coolDown time in ms during which the breaker stays open
+    * @param clock source of current time
+    */
+   public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                         long coolDown, Clock clock) {
+      this.name = name;
+      this.failureRateThreshold = failureRateThreshold;
+      this.windowSize = windowSize;
+      this.minimumCalls = minimumCalls;
+      this.coolDown = coolDown;
+      this.clock = clock;
+      this.window = new boolean[windowSize];
+   }
+
+   /**
+    * Defines if API can be called. Opened breaker becomes half-open
+    * after cool down and allows only one trial call.
+    *
+    * @return true if API can be called.
+    */
+   public synchronized boolean tryAcquire() {
+      long now = clock.millis();
+
+      switch (status) {
+         case CLOSED:
+            return true;
+
+         case OPEN:
+            if (now - openedAt < coolDown) {
+               rejected++;
+               return false;
+            }
+
+            status = Status.HALF_OPEN;
+            trialStartedAt = now;
+            return true;
+
+         default:
+            if (trialStartedAt != 0 && now - trialStartedAt < coolDown) {
+               rejected++;
+               return false;
+            }
+
+            trialStartedAt = now;
+            return true;
+      }
+   }
+
+   /**
+    * Saves successful call.
+    */
+   public synchronized void onSuccess() {
+      if (status == Status.HALF_OPEN) {
+         close();
+      } else {
+         record(false);
+      }
+   }
+
+   /**
+    * Saves failed call.
+    */
+   public synchronized void onFailure() {
+      if (status == Status.HALF_OPEN) {
+         open();
+      } else {
+         record(true);
+
+         if (calls >= minimumCalls && getFailureRate() >= failureRateThreshold) {
+            open();
+         }
+      }
+   }
+
+   /**
+    * Releases the permission for the call, which was cancelled and has no result.
+    */
+   public synchronized void release() {
+      if (status == Status.HALF_OPEN) {
+         trialStartedAt = 0;
+      }
+   }
+
+   /**
+    * @return current state.
+    */
+   public synchronized Status getStatus() {
+      return status;
+   }
+
+   /**
+    * @return name of API.
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * @return state of the breaker for monitoring.
+    */
+   public synchronized Map<String, Object> getMetrics() {
+      Map<String, Object> metrics = new LinkedHashMap<>();
+
+      metrics.put("name", name);
+      metrics.put("status", status);
+      metrics.put("calls", calls);
+      metrics.put("failureRate", getFailureRate());
+      metrics.put("rejected", rejected);
+      metrics.put("openedAt", openedAt);
+
+      return metrics;
+   }
+
+   private double getFailureRate() {
+      return calls == 0 ? 0 : (double) failures / calls;
+   }
+
+   private void record(boolean failed) {
+      if (calls == windowSize) {
+         if (window[position]) {
+            failures--;
+         }
+      } else {
+         calls++;
+      }
+
+      window[position] = failed;
+      if (failed) {
+         failures++;
+      }
+
+      position = (position + 1) % windowSize;
+   }
+
+   private void open() {
+      status = Status.OPEN;
+      openedAt = clock.millis();
+      trialStartedAt = 0;
+   }
+
+   private void close() {
+      status = Status.CLOSED;
+      trialStartedAt = 0;
+      position = 0;
+      calls = 0;
+      failures = 0;
+   }
+}
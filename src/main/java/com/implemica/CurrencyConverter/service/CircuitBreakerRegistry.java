@@ -0,0 +1,90 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.service.converters.ConverterAPI;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores a {@link CircuitBreaker} for each API.
+ *
+ * @see CircuitBreaker
+ *
+ * @author Dmytro K.
+ */
+public class CircuitBreakerRegistry {
+
+   /** Breakers by name of API. */
+   private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+   /** Rate of failures, when a breaker opens. */
+   private final double failureRateThreshold;
+
+   /** Count of last calls, which are used for calculating rate of failures. */
+   private final int windowSize;
+
+   /** Min count of calls, which is needed for opening a breaker. */
+   private final int minimumCalls;
+
+   /** Time in ms during which a breaker stays open. */
+   private final long coolDown;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /**
+    * Creates registry for breakers with the given settings.
+    *
+    * @param failureRateThreshold rate of failures, when a breaker opens
+    * @param windowSize count of last calls, which are used for calculating rate of failures
+    * @param minimumCalls min count of calls, which is needed for opening a breaker
+    * @param coolDown time in ms during which a breaker stays open
+    */
+   public CircuitBreakerRegistry(double failureRateThreshold, int windowSize, int minimumCalls, long coolDown) {
+      this(failureRateThreshold, windowSize, minimumCalls, coolDown, Clock.systemUTC());
+   }
+
+   /**
+    * Creates registry for breakers with the given settings and clock.
+    *
+    * @param failureRateThreshold rate of failures, when a breaker opens
+    * @param windowSize count of last calls, which are used for calculating rate of failures
+    * @param minimumCalls min count of calls, which is needed for opening a breaker
+    * @param coolDown time in ms during which a breaker stays open
+    * @param clock source of current time
+    */
+   CircuitBreakerRegistry(double failureRateThreshold, int windowSize, int minimumCalls, long coolDown, Clock clock) {
+      this.failureRateThreshold = failureRateThreshold;
+      this.windowSize = windowSize;
+      this.minimumCalls = minimumCalls;
+      this.coolDown = coolDown;
+      this.clock = clock;
+   }
+
+   /**
+    * Gets breaker of the given API, creates it if it doesn't exist.
+    *
+    * @param converter API
+    * @return breaker
+    */
+   public CircuitBreaker get(ConverterAPI converter) {
+      return breakers.computeIfAbsent(converter.getName(),
+              name -> new CircuitBreaker(name, failureRateThreshold, windowSize, minimumCalls, coolDown, clock));
+   }
+
+   /**
+    * @return states of all breakers for monitoring.
+    */
+   public List<Map<String, Object>> getMetrics() {
+      List<Map<String, Object>> metrics = new ArrayList<>();
+
+      for (CircuitBreaker breaker : breakers.values()) {
+         metrics.add(breaker.getMetrics());
+      }
+
+      return metrics;
+   }
+}
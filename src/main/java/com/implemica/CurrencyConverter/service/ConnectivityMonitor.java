@@ -0,0 +1,141 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The class keeps the state of internet connection.
+ *
+ * The state is checked in background by opening a TCP connection to
+ * the probe host. It is refreshed on a schedule and also every time
+ * when {@link #reportFailure()} is called, so reading of the state
+ * never blocks a conversion.
+ *
+ * @see ConverterService
+ *
+ * @author Dmytro K.
+ */
+public class ConnectivityMonitor {
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Host which is used for checking connection. */
+   private final String host;
+
+   /** Port of the host. */
+   private final int port;
+
+   /** Time for connection to the host in ms. */
+   private final int timeout;
+
+   /** Time between checks in ms. */
+   private final long interval;
+
+   /** Last known state of connection. */
+   private volatile boolean connected = true;
+
+   /** Defines that a check is already in progress. */
+   private final AtomicBoolean probing = new AtomicBoolean();
+
+   /** Executor for checks. */
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "connectivity-monitor");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates a new monitor.
+    *
+    * @param host host which is used for checking connection
+    * @param port port of the host
+    * @param timeout time for connection to the host in ms
+    * @param interval time between checks in ms
+    */
+   public ConnectivityMonitor(String host, int port, int timeout, long interval) {
+      this.host = host;
+      this.port = port;
+      this.timeout = timeout;
+      this.interval = interval;
+   }
+
+   /**
+    * Starts checking connection on schedule.
+    */
+   public void start() {
+      executor.scheduleWithFixedDelay(this::probe, 0, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops checking connection.
+    */
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * @return last known state of connection.
+    */
+   public boolean isConnected() {
+      return connected;
+   }
+
+   /**
+    * Function is called when APIs could not respond. It starts an
+    * extra check in background, if there is no check in progress.
+    */
+   public void reportFailure() {
+      if (!probing.get() && !executor.isShutdown()) {
+         executor.execute(this::probe);
+      }
+   }
+
+   /**
+    * Function checks connection to the host and saves the result.
+    *
+    * @return if the host is reachable or not.
+    */
+   boolean probe() {
+      if (!probing.compareAndSet(false, true)) {
+         return connected;
+      }
+
+      boolean result;
+
+      try {
+         result = isReachable();
+
+         if (result != connected) {
+            logger.info("Internet connection: " + (result ? "restored" : "lost"));
+         }
+         connected = result;
+      } finally {
+         probing.set(false);
+      }
+
+      return result;
+   }
+
+   /**
+    * Function opens a TCP connection to the host.
+    *
+    * @return if connection was opened or not.
+    */
+   private boolean isReachable() {
+      try (Socket socket = new Socket()) {
+         socket.connect(new InetSocketAddress(host, port), timeout);
+         return true;
+      } catch (IOException e) {
+         return false;
+      }
+   }
+}
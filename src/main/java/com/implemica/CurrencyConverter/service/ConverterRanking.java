@@ -0,0 +1,135 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.service.converters.ConverterAPI;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores {@link ConverterStatistics} for each API and orders APIs by
+ * their score, so the fastest healthy API is called first.
+ *
+ * Only APIs, which have the score, are reordered: they are sorted by
+ * the score among their own places in the configured order, and APIs
+ * without enough fresh calls keep their places. So an API, which was not
+ * called for a long time, returns to its configured place and is
+ * measured again. APIs with limit of requests are not ranked at all, see
+ * {@link ConverterService}, they are called only after all other ones.
+ *
+ * @see ConverterStatistics
+ *
+ * @author Dmytro K.
+ */
+public class ConverterRanking {
+
+   /** Statistics by name of API. */
+   private final Map<String, ConverterStatistics> statistics = new ConcurrentHashMap<>();
+
+   /** Defines if APIs are reordered, statistics are collected anyway. */
+   private final boolean enabled;
+
+   /** Count of last calls, which are remembered. */
+   private final int windowSize;
+
+   /** Min count of fresh calls, which is needed for ranking of API. */
+   private final int minimumCalls;
+
+   /** Time in ms, after which a call is not taken into account. */
+   private final long maxAge;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /**
+    * Creates ranking with the given settings.
+    *
+    * @param enabled defines if APIs are reordered
+    * @param windowSize count of last calls of API, which are remembered
+    * @param minimumCalls min count of fresh calls, which is needed for ranking of API
+    * @param maxAge time in ms, after which a call is not taken into account
+    */
+   public ConverterRanking(boolean enabled, int windowSize, int minimumCalls, long maxAge) {
+      this(enabled, windowSize, minimumCalls, maxAge, Clock.systemUTC());
+   }
+
+   /**
+    * Creates ranking with the given settings and clock.
+    *
+    * @param enabled defines if APIs are reordered
+    * @param windowSize count of last calls of API, which are remembered
+    * @param minimumCalls min count of fresh calls, which is needed for ranking of API
+    * @param maxAge time in ms, after which a call is not taken into account
+    * @param clock source of current time
+    */
+   ConverterRanking(boolean enabled, int windowSize, int minimumCalls, long maxAge, Clock clock) {
+      this.enabled = enabled;
+      this.windowSize = windowSize;
+      this.minimumCalls = minimumCalls;
+      this.maxAge = maxAge;
+      this.clock = clock;
+   }
+
+   /**
+    * Gets statistics of the given API, creates them if they don't exist.
+    *
+    * @param converter API
+    * @return statistics
+    */
+   public ConverterStatistics get(ConverterAPI converter) {
+      return statistics.computeIfAbsent(converter.getName(),
+              name -> new ConverterStatistics(name, windowSize, minimumCalls, maxAge, clock));
+   }
+
+   /**
+    * Orders APIs by their score.
+    *
+    * @param converters APIs in the configured order
+    * @return APIs in order of calling.
+    */
+   public List<ConverterAPI> rank(List<ConverterAPI> converters) {
+      if (!enabled) {
+         return converters;
+      }
+
+      List<ConverterAPI> ranked = new ArrayList<>(converters);
+      List<Integer> places = new ArrayList<>();
+      List<ConverterAPI> measured = new ArrayList<>();
+      Map<ConverterAPI, Double> scores = new HashMap<>();
+
+      for (int i = 0; i < converters.size(); i++) {
+         ConverterAPI converter = converters.get(i);
+         double score = get(converter).getScore();
+
+         if (!Double.isNaN(score)) {
+            places.add(i);
+            measured.add(converter);
+            scores.put(converter, score);
+         }
+      }
+
+      measured.sort((first, second) -> Double.compare(scores.get(first), scores.get(second)));
+
+      for (int i = 0; i < places.size(); i++) {
+         ranked.set(places.get(i), measured.get(i));
+      }
+
+      return ranked;
+   }
+
+   /**
+    * @return statistics of all APIs for monitoring.
+    */
+   public List<Map<String, Object>> getMetrics() {
+      List<Map<String, Object>> metrics = new ArrayList<>();
+
+      for (ConverterStatistics converterStatistics : statistics.values()) {
+         metrics.add(converterStatistics.getMetrics());
+      }
+
+      return metrics;
+   }
+}
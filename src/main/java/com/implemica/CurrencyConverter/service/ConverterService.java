@@ -2,21 +2,22 @@ package com.implemica.CurrencyConverter.service;
 
 import com.implemica.CurrencyConverter.model.Currency;
 import com.implemica.CurrencyConverter.service.converters.*;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
 import com.tunyk.currencyconverter.api.CurrencyConverterException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.ConnectException;
-import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class for conversion currency.
@@ -29,26 +30,111 @@ import java.util.List;
  *    5. currencylayer.com
  *
  *
+ * Rates which were received from APIs are stored in {@link RateCache},
+ * so the same pair is not requested again while its rate is valid.
+ *
+ * APIs without limit of requests are called in order of their observed
+ * latency and failures, see {@link ConverterRanking}, APIs with limit
+ * are called after them in the configured order.
+ *
  * @see UsersRequest
+ * @see RateCache
  * @see URL
  * @see JSONObject
  *
  * @author Dmytro K.
  * @version 10.01.2019 22:10
  */
-@Service
 public class ConverterService {
 
    /** Logger. */
    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
    /** The list stores links to functions which make conversion. */
-   private static List<ConverterAPI> converters = new ArrayList<>();
+   private final List<ConverterAPI> converters;
+
+   /** Cache of rates which were received from APIs. */
+   private final RateCache rateCache;
+
+   /** Keeps the state of internet connection. */
+   private final ConnectivityMonitor connectivityMonitor;
+
+   /** Calls converters until any of them returns a result. */
+   private final HedgedInvoker invoker;
+
+   /** Circuit breakers of converters. */
+   private final CircuitBreakerRegistry circuitBreakers;
+
+   /** Budgets of requests to converters, which have a limit. */
+   private final RequestBudgetRegistry requestBudgets;
+
+   /** Statistics and order of converters. */
+   private final ConverterRanking ranking;
+
+   /** Runs asynchronous conversions. */
+   private final AsyncExecutor asyncExecutor;
+
+   /** Pairs, whose stale rates are being fetched in background. */
+   private final Set<List<Currency>> revalidating = ConcurrentHashMap.newKeySet();
+
+   /** Fetches of rates in progress by pair, see {@link #fetchRate(Currency, Currency)}. */
+   private final SingleFlight<List<Currency>, BigDecimal> fetches = new SingleFlight<>();
 
    /* constants */
    /** Time for connection to server in ms. */
    private static final int TIMEOUT_FOR_CONNECTION = 3000;
 
+   /** Time of waiting for data from server in ms by default. */
+   private static final int DEFAULT_READ_TIMEOUT = 5000;
+
+   /** Max count of connections to APIs by default. */
+   private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+   /** Rate of failures, when a circuit breaker opens by default. */
+   private static final double DEFAULT_BREAKER_FAILURE_RATE = 0.5;
+
+   /** Count of last calls, which are used by a circuit breaker by default. */
+   private static final int DEFAULT_BREAKER_WINDOW = 10;
+
+   /** Min count of calls, which is needed for opening a circuit breaker by default. */
+   private static final int DEFAULT_BREAKER_MINIMUM_CALLS = 5;
+
+   /** Time in ms during which a circuit breaker stays open by default. */
+   private static final long DEFAULT_BREAKER_COOL_DOWN = 60 * 1000;
+
+   /** Count of last calls, which are used for ranking of a converter by default. */
+   private static final int DEFAULT_RANKING_WINDOW = 50;
+
+   /** Min count of fresh calls, which is needed for ranking of a converter by default. */
+   private static final int DEFAULT_RANKING_MINIMUM_CALLS = 5;
+
+   /** Time in ms after which a call is not used for ranking by default. */
+   private static final long DEFAULT_RANKING_MAX_AGE = 10 * 60 * 1000;
+
+   /** Time between checks of internet connection in ms by default. */
+   private static final long DEFAULT_CONNECTION_CHECK_INTERVAL = 30 * 1000;
+
+   /** Port which is used for checking internet connection. */
+   private static final int HTTP_PORT = 80;
+
+   /** Time in ms during which a rate is valid by default. */
+   private static final long DEFAULT_RATE_TIME_TO_LIVE = 60 * 60 * 1000;
+
+   /** Time in ms after which a stale rate can't be used by default. */
+   private static final long DEFAULT_RATE_MAX_STALENESS = 14 * 24 * 60 * 60 * 1000L;
+
+   /** Max count of pairs in the cache by default. */
+   private static final int DEFAULT_RATE_CACHE_SIZE = 10000;
+
+   /** Count of threads for asynchronous conversions by default. */
+   private static final int DEFAULT_ASYNC_THREADS = 8;
+
+   /** Max count of asynchronous conversions, which wait for a thread by default. */
+   private static final int DEFAULT_ASYNC_QUEUE_SIZE = 100;
+
+   /** Time in ms after which an asynchronous conversion is cancelled by default. */
+   private static final long DEFAULT_ASYNC_TIMEOUT = 10 * 1000;
+
    /** Official site Google comp. */
    private static final String URL_GOOGLE_COM = "www.google.com";
 
@@ -67,30 +153,122 @@ public class ConverterService {
    /** Message which was received from server. */
    private static final String API_MESSAGE_WITH_ONE_UNSUPPORTED_CURRENCY = "Currency not supported:";
 
-   /*
-    * Initialization scope for converters. Note! In this
-    * order will be convert currency.
+   /**
+    * Creates service with the default cache of rates, which checks
+    * internet connection by {@link #URL_GOOGLE_COM}.
+    */
+   public ConverterService() {
+      this(new RateCache(DEFAULT_RATE_TIME_TO_LIVE, DEFAULT_RATE_MAX_STALENESS, DEFAULT_RATE_CACHE_SIZE),
+              new ConnectivityMonitor(URL_GOOGLE_COM, HTTP_PORT, TIMEOUT_FOR_CONNECTION, DEFAULT_CONNECTION_CHECK_INTERVAL),
+              new HedgedInvoker(),
+              new CircuitBreakerRegistry(DEFAULT_BREAKER_FAILURE_RATE, DEFAULT_BREAKER_WINDOW,
+                      DEFAULT_BREAKER_MINIMUM_CALLS, DEFAULT_BREAKER_COOL_DOWN),
+              new RequestBudgetRegistry(null),
+              new ConverterRanking(true, DEFAULT_RANKING_WINDOW, DEFAULT_RANKING_MINIMUM_CALLS, DEFAULT_RANKING_MAX_AGE),
+              new AsyncExecutor(DEFAULT_ASYNC_THREADS, DEFAULT_ASYNC_QUEUE_SIZE, DEFAULT_ASYNC_TIMEOUT),
+              new JsonHttpClient(DEFAULT_MAX_CONNECTIONS, TIMEOUT_FOR_CONNECTION, DEFAULT_READ_TIMEOUT));
+
+      connectivityMonitor.start();
+   }
+
+   /**
+    * Creates service with the given cache of rates, monitor of internet
+    * connection, invoker, circuit breakers and budgets of converters,
+    * executor of asynchronous conversions and HTTP client of converters.
+    *
+    * @param rateCache cache of rates
+    * @param connectivityMonitor keeps the state of internet connection
+    * @param invoker calls converters until any of them returns a result
+    * @param circuitBreakers circuit breakers of converters
+    * @param requestBudgets budgets of requests to converters, which have a limit
+    * @param ranking statistics and order of converters
+    * @param asyncExecutor runs asynchronous conversions
+    * @param httpClient client, which is shared by converters with JSON API
+    */
+   public ConverterService(RateCache rateCache, ConnectivityMonitor connectivityMonitor, HedgedInvoker invoker,
+                           CircuitBreakerRegistry circuitBreakers, RequestBudgetRegistry requestBudgets,
+                           ConverterRanking ranking, AsyncExecutor asyncExecutor, JsonHttpClient httpClient) {
+      this(rateCache, connectivityMonitor, invoker, circuitBreakers, requestBudgets, ranking, asyncExecutor,
+              createConverters(rateCache, httpClient));
+   }
+
+   /**
+    * Creates service with the given converters.
+    *
+    * @param rateCache cache of rates
+    * @param connectivityMonitor keeps the state of internet connection
+    * @param invoker calls converters until any of them returns a result
+    * @param circuitBreakers circuit breakers of converters
+    * @param requestBudgets budgets of requests to converters, which have a limit
+    * @param ranking statistics and order of converters
+    * @param asyncExecutor runs asynchronous conversions
+    * @param converters converters in order of priority
+    */
+   ConverterService(RateCache rateCache, ConnectivityMonitor connectivityMonitor, HedgedInvoker invoker,
+                    CircuitBreakerRegistry circuitBreakers, RequestBudgetRegistry requestBudgets,
+                    ConverterRanking ranking, AsyncExecutor asyncExecutor, List<ConverterAPI> converters) {
+      this.rateCache = rateCache;
+      this.connectivityMonitor = connectivityMonitor;
+      this.invoker = invoker;
+      this.circuitBreakers = circuitBreakers;
+      this.requestBudgets = requestBudgets;
+      this.ranking = ranking;
+      this.asyncExecutor = asyncExecutor;
+      this.converters = converters;
+   }
+
+   /**
+    * Creates all converters of the service.
+    *
+    * @param rateCache cache of rates, which is filled by converters of tables of rates
+    * @param httpClient client, which is shared by converters with JSON API
+    * @return converters in order of priority.
     */
-   static {
-      converters.add(new FloatRatesCom());                  // unlimited
-      converters.add(new BankUaCom());                      // unlimited, converts through UAH
+   private static List<ConverterAPI> createConverters(RateCache rateCache, JsonHttpClient httpClient) {
+      List<ConverterAPI> converters = new ArrayList<>();
+
+      /*
+       * Initialization scope for converters. Note! In this
+       * order will be convert currency, but converters with
+       * limit are called only when all unlimited ones failed.
+       */
+      converters.add(new FloatRatesCom(rateCache, httpClient));     // unlimited, puts all rates of base currency to cache
+      converters.add(new BankUaCom());                              // unlimited, converts through UAH
+
+      converters.add(new FreeCurrencyConverterApiCom(httpClient));  // has a limit - 100  requests per hour
+      converters.add(new CurrencyLayerCom(httpClient));             // has a limit - 1000 requests per month
+
+      converters.add(new JavaMoney());                              // unlimited, slow until warmed up
 
-      converters.add(new FreeCurrencyConverterApiCom());    // has a limit - 100  requests per hour
-      converters.add(new CurrencyLayerCom());               // has a limit - 1000 requests per month
+      return converters;
+   }
 
-      converters.add(new JavaMoney());                      // unlimited, so slow
+   /**
+    * Function warms up converters, which are slow to start, in background.
+    * It's called once after creation of the service.
+    */
+   public void warmUp() {
+      for (ConverterAPI converter : converters) {
+         converter.warmUp();
+      }
    }
 
    /**
     * Function converts  currency from {@link UsersRequest#currencyFrom} to
     * {@link UsersRequest#currencyTo}.
     *
-    * Firstly function  checks  internet connection if this false then it
-    * throws  {@link UnknownHostException},  then  it  calls all the APIs
-    * that are presented in  the {@link #converters}, if any API was able
-    * to  convert the currency,  the function returns the result,  if all
-    * APIs  could  not  convert  the  currency,  the  function  throws an
-    * exception.
+    * Firstly function  looks for the rate in {@link #rateCache},  if the
+    * rate is there, the value is converted  without  any  request.  If
+    * the rate is stale, it's still used, and a new rate is fetched in
+    * background, see {@link #getCachedRate(Currency, Currency)}.  Then
+    * function checks  internet connection if this false then  it  throws
+    * {@link UnknownHostException},  then  it  calls all  the  APIs  that
+    * are presented in the  {@link #converters} via {@link #invoker}, if
+    * any API was able to convert the currency, the function puts the rate
+    * to the cache and returns the result, if all APIs could not convert
+    * the currency, the function throws an exception.  APIs with limit of
+    * requests are called last, one by one, and only while their budget
+    * in {@link #requestBudgets} is not spent.
     *
     * @param from currency to convert from
     * @param to currency for conversion to
@@ -109,46 +287,454 @@ public class ConverterService {
          return BigDecimal.ZERO;
       }
 
+      return value.multiply(getRate(from, to));
+   }
+
+   /**
+    * Function converts one amount of currency {@code from} to several
+    * currencies in one call. Rates are taken as in
+    * {@link #convert(Currency, Currency, BigDecimal)}, but the first
+    * fetched table of the base currency usually answers the other targets,
+    * so every base table is fetched once, and the rest of targets are
+    * converted from {@link #rateCache} by direct or cross rates.
+    *
+    * A target, which could not be converted, is absent in the result, so
+    * one unsupported currency doesn't fail the whole request.
+    *
+    * @param from currency to convert from
+    * @param to currencies for conversion to
+    * @param value value for conversion.
+    * @return converted values by currency in order of {@code to}.
+    * @throws CurrencyConverterException if no currency could be converted.
+    * @throws UnknownHostException if there is no internet connection.
+    */
+   public Map<Currency, BigDecimal> convertMany(Currency from, Set<Currency> to, BigDecimal value)
+           throws CurrencyConverterException, UnknownHostException {
+      Map<Currency, BigDecimal> result = new LinkedHashMap<>();
+      CurrencyConverterException lastException = null;
+
+      for (Currency target : to) {
+         try {
+            result.put(target, convert(from, target, value));
+         } catch (CurrencyConverterException e) {
+            lastException = e;
+         }
+      }
+
+      if (result.isEmpty() && lastException != null) {
+         throw lastException;
+      }
+
+      return result;
+   }
+
+   /**
+    * Function converts one amount of every currency of {@code from} to
+    * every currency of {@code to}, see {@link #convertMany(Currency, Set, BigDecimal)}.
+    * A row of currency, which could not be converted at all, is absent
+    * in the result.
+    *
+    * @param from currencies to convert from
+    * @param to currencies for conversion to
+    * @param value value for conversion.
+    * @return converted values by currency to convert from and by currency for conversion to.
+    * @throws UnknownHostException if there is no internet connection.
+    */
+   public Map<Currency, Map<Currency, BigDecimal>> convertMatrix(Set<Currency> from, Set<Currency> to, BigDecimal value)
+           throws UnknownHostException {
+      Map<Currency, Map<Currency, BigDecimal>> result = new LinkedHashMap<>();
+
+      for (Currency base : from) {
+         try {
+            result.put(base, convertMany(base, to, value));
+         } catch (CurrencyConverterException e) {
+            logger.error("Currency " + base + " was not converted: " + e.getMessage());
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Function converts currencies as {@link #convertMany(Currency, Set, BigDecimal)},
+    * but doesn't block the caller's thread. If all rates are in
+    * {@link #rateCache}, the future is completed at once, otherwise the
+    * conversion is made by {@link #asyncExecutor}.
+    *
+    * @param from currency to convert from
+    * @param to currencies for conversion to
+    * @param value value for conversion.
+    * @return future converted values by currency in order of {@code to}.
+    */
+   public CompletableFuture<Map<Currency, BigDecimal>> convertManyAsync(Currency from, Set<Currency> to, BigDecimal value) {
+      Map<Currency, BigDecimal> cached = new LinkedHashMap<>();
+
+      for (Currency target : to) {
+         BigDecimal one = from == target ? BigDecimal.ONE : getCachedRate(from, target);
+
+         if (one == null) {
+            return asyncExecutor.supply(() -> convertMany(from, to, value));
+         }
+         cached.put(target, isValueZero(value) ? BigDecimal.ZERO : value.multiply(one));
+      }
+
+      return CompletableFuture.completedFuture(cached);
+   }
+
+   /**
+    * Function fetches rates between all the given currencies and puts
+    * them to {@link #rateCache}. A pair is skipped, if its rate was
+    * already received during this refresh, for example, when a whole
+    * table of rates of the base currency was loaded.
+    *
+    * @param bases currencies, which rates have to be refreshed
+    */
+   public void refreshRates(Collection<Currency> bases) {
+      long started = System.currentTimeMillis();
+
+      for (Currency from : bases) {
+         for (Currency to : bases) {
+            if (from == to || rateCache.getFetchedAt(from, to) >= started) {
+               continue;
+            }
+
+            try {
+               rateCache.put(from, to, fetchRate(from, to));
+
+            } catch (UnknownHostException e) {
+               logger.error("Rates were not refreshed: " + e.getMessage());
+               return;
+
+            } catch (CurrencyConverterException e) {
+               logger.error("Rate " + from + " -> " + to + " was not refreshed: " + e.getMessage());
+            }
+         }
+      }
+   }
+
+   /**
+    * Function converts currency as {@link #convert(Currency, Currency, BigDecimal)},
+    * but doesn't block the caller's thread. The conversion is made by
+    * {@link #asyncExecutor} with its default timeout.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param value value for conversion.
+    * @return future converted value.
+    */
+   public CompletableFuture<BigDecimal> convertAsync(Currency from, Currency to, BigDecimal value) {
+      return convertAsync(from, to, value, -1);
+   }
+
+   /**
+    * Function converts currency as {@link #convert(Currency, Currency, BigDecimal)},
+    * but doesn't block the caller's thread. If the rate is in {@link #rateCache},
+    * the future is completed at once, otherwise the conversion is made by
+    * {@link #asyncExecutor}. If the conversion was not made in time, the
+    * future is completed by {@link java.util.concurrent.TimeoutException}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param value value for conversion.
+    * @param timeout time in ms for conversion, 0 - without timeout, negative - default timeout
+    * @return future converted value.
+    */
+   public CompletableFuture<BigDecimal> convertAsync(Currency from, Currency to, BigDecimal value, long timeout) {
+      if(from == to) {
+         return CompletableFuture.completedFuture(value);
+      }
+
+      if(isValueZero(value)) {
+         return CompletableFuture.completedFuture(BigDecimal.ZERO);
+      }
+
+      BigDecimal one = getCachedRate(from, to);
+
+      if(one != null) {
+         return CompletableFuture.completedFuture(value.multiply(one));
+      }
+
+      Callable<BigDecimal> task = () -> convert(from, to, value);
+
+      return timeout < 0 ? asyncExecutor.supply(task) : asyncExecutor.supply(task, timeout);
+   }
+
+   /**
+    * Function gets the cost of 1 unit of currency {@code from} in
+    * currency {@code to} from {@link #rateCache} or from the APIs, and
+    * puts the fetched rate to the cache.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    * @throws CurrencyConverterException if currency does not support.
+    * @throws UnknownHostException if there is no internet connection.
+    */
+   private BigDecimal getRate(Currency from, Currency to) throws CurrencyConverterException, UnknownHostException {
+      BigDecimal one = getCachedRate(from, to);
+
+      if(one == null) {
+         one = fetchRate(from, to);
+         rateCache.put(from, to, one);
+      }
+
+      return one;
+   }
+
+   /**
+    * Function gets the cost of 1 unit of currency {@code from} in
+    * currency {@code to} from {@link #rateCache}. If there is no fresh
+    * direct rate, the fresh cross rate through pivot currencies is used.
+    * If the rate is stale, it's returned, and a new rate is fetched in
+    * background, so user doesn't wait for APIs. If the new rate could
+    * not be fetched, the stale one is used until
+    * {@link RateCache#getMaxStaleness()}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit or null if there is no usable rate.
+    */
+   private BigDecimal getCachedRate(Currency from, Currency to) {
+      BigDecimal one = rateCache.get(from, to);
+
+      if(one == null) {
+         one = rateCache.getCross(from, to);
+      }
+
+      if(one == null) {
+         one = rateCache.getStale(from, to);
+
+         if(one != null) {
+            revalidate(from, to);
+         }
+      }
+
+      return one;
+   }
+
+   /**
+    * Function fetches the rate in background, if it's not being
+    * fetched already.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    */
+   private void revalidate(Currency from, Currency to) {
+      List<Currency> pair = Arrays.asList(from, to);
+
+      if(!revalidating.add(pair)) {
+         return;
+      }
+
+      asyncExecutor.supply(() -> {
+         BigDecimal one = fetchRate(from, to);
+         rateCache.put(from, to, one);
+         return one;
+
+      }).whenComplete((one, e) -> {
+         revalidating.remove(pair);
+
+         if(e != null) {
+            logger.error("Stale rate " + from + " -> " + to + " was not refreshed: " + e.getMessage());
+         }
+      });
+   }
+
+   /**
+    * Function gets the cost of 1 unit of currency {@code from} in
+    * currency {@code to} from the APIs. If the same pair is already being
+    * fetched by another thread, the function waits for its result instead
+    * of calling the APIs again, so a burst of misses on one pair makes
+    * only one call of {@link #converters}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    * @throws CurrencyConverterException if currency does not support.
+    * @throws UnknownHostException if there is no internet connection.
+    */
+   private BigDecimal fetchRate(Currency from, Currency to) throws CurrencyConverterException, UnknownHostException {
+      try {
+         return fetches.execute(Arrays.asList(from, to), () -> fetchRateFromApis(from, to));
+
+      } catch (CurrencyConverterException | UnknownHostException | RuntimeException e) {
+         throw e;
+
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CurrencyConverterException(MESSAGE_PROBLEM_WITH_SERVER);
+
+      } catch (Exception e) {
+         logger.error(MESSAGE_EXCEPTION_WAS_THROWN + e);
+         throw new CurrencyConverterException(MESSAGE_PROBLEM_WITH_SERVER);
+      }
+   }
+
+   /**
+    * Function calls the APIs for the cost of 1 unit of currency
+    * {@code from} in currency {@code to}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    * @throws CurrencyConverterException if currency does not support.
+    * @throws UnknownHostException if there is no internet connection.
+    */
+   private BigDecimal fetchRateFromApis(Currency from, Currency to) throws CurrencyConverterException, UnknownHostException {
       if(!isInternetConnectionExist()) {
          logger.error(MESSAGE_PROBLEM_WITH_INTERNET_CONNECTION);
          throw new UnknownHostException(MESSAGE_PROBLEM_WITH_INTERNET_CONNECTION);
       }
 
-      BigDecimal result = null;
+      BigDecimal result;
       ArrayList<Exception> exceptions = new ArrayList<>();
+      List<Callable<BigDecimal>> tasks = new ArrayList<>();
+      List<ConverterAPI> unlimited = new ArrayList<>();
+      List<ConverterAPI> limited = new ArrayList<>();
 
       for (ConverterAPI option : converters) {
+         if (option.getRequestLimit() != null) {
+            limited.add(option);
+         } else {
+            unlimited.add(option);
+         }
+      }
+
+      for (ConverterAPI option : ranking.rank(unlimited)) {
+         tasks.add(() -> callIfPermitted(option, from, to));
+      }
+
+      try {
+         result = invoker.invokeFirst(tasks, exceptions);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CurrencyConverterException(MESSAGE_PROBLEM_WITH_SERVER);
+      }
+
+      if(result == null) {
+         result = callLimitedConverters(limited, from, to, exceptions);
+      }
+
+      if(result == null) {
+         connectivityMonitor.reportFailure();
+      }
+
+      return analyzeResult(exceptions, result);
+   }
+
+   /**
+    * Function calls converters with limit of requests one by one, while
+    * their circuit breaker is closed and their budget is not spent.
+    *
+    * @param limited converters with limit of requests
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param exceptions list where exceptions of failed converters are added
+    * @return the cost of 1 unit or null if all converters failed.
+    */
+   private BigDecimal callLimitedConverters(List<ConverterAPI> limited, Currency from, Currency to,
+                                            List<Exception> exceptions) {
+      for (ConverterAPI option : limited) {
+         CircuitBreaker breaker = circuitBreakers.get(option);
+
+         if (!breaker.tryAcquire()) {
+            continue;
+         }
+
+         if (!requestBudgets.tryConsume(option)) {
+            breaker.release();
+            continue;
+         }
+
          try {
-            result = option.convert(from, to, value);
-            break;
+            return callConverter(option, breaker, from, to);
          } catch (Exception e) {
             exceptions.add(e);
          }
       }
 
-      return analyzeResult(exceptions, result);
+      return null;
    }
 
-   private boolean isValueZero(BigDecimal value) {
-      return value.compareTo(BigDecimal.ZERO) == 0;
+   /**
+    * Function calls the converter, if its circuit breaker allows the call.
+    * The permission is taken only when the task is started, so a hedged task,
+    * which was not started, because another API answered first, doesn't hold
+    * the trial call of a half-open breaker.
+    *
+    * @param converter API
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    * @throws Exception if the breaker is open or API could not convert currency.
+    */
+   private BigDecimal callIfPermitted(ConverterAPI converter, Currency from, Currency to) throws Exception {
+      CircuitBreaker breaker = circuitBreakers.get(converter);
+
+      if (!breaker.tryAcquire()) {
+         throw new IllegalStateException("Circuit breaker of " + breaker.getName() + " is open");
+      }
+
+      return callConverter(converter, breaker, from, to);
    }
 
    /**
-    * Function checks Internet connection.
+    * Function calls the converter and saves the result of the call to
+    * its circuit breaker and its statistics. Only {@link IOException} is
+    * treated as failure, other exceptions mean that API works, but can't
+    * convert currency. A call, which was cancelled, because another API
+    * answered first, is not saved neither to the breaker nor to statistics,
+    * because its time till cancelling is less than the real latency of API.
     *
-    * @return if site google.com is reachable or not.
+    * @param converter API
+    * @param breaker circuit breaker of API
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    * @throws Exception if API could not convert currency.
     */
-   private boolean isInternetConnectionExist() {
-      boolean result;
+   private BigDecimal callConverter(ConverterAPI converter, CircuitBreaker breaker, Currency from, Currency to) throws Exception {
+      ConverterStatistics statistics = ranking.get(converter);
+      long start = System.nanoTime();
 
       try {
-         InetAddress connection = InetAddress.getByName(URL_GOOGLE_COM);
-         result = connection.isReachable(TIMEOUT_FOR_CONNECTION);
-      } catch (IOException e) {
-         result = false;
+         BigDecimal result = converter.convert(from, to, BigDecimal.ONE);
+         breaker.onSuccess();
+         statistics.record(getMillisSince(start), false);
+         return result;
+
+      } catch (Exception e) {
+         if (Thread.currentThread().isInterrupted() || e instanceof InterruptedException) {
+            breaker.release();
+
+         } else if (e instanceof IOException) {
+            breaker.onFailure();
+            statistics.record(getMillisSince(start), true);
+
+         } else {
+            breaker.onSuccess();
+            statistics.record(getMillisSince(start), false);
+         }
+         throw e;
       }
+   }
 
-      return result;
+   private static long getMillisSince(long start) {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+   }
+
+   private boolean isValueZero(BigDecimal value) {
+      return value.compareTo(BigDecimal.ZERO) == 0;
+   }
+
+   /**
+    * Function checks Internet connection. The state is  kept by
+    * {@link #connectivityMonitor}, so the function doesn't block.
+    *
+    * @return if the probe host is reachable or not.
+    */
+   private boolean isInternetConnectionExist() {
+      return connectivityMonitor.isConnected();
    }
 
    /**
@@ -0,0 +1,179 @@
+package com.implemica.CurrencyConverter.service;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency and failures of the last calls of one API.
+ *
+ * The statistics remember the last {@link #windowSize} calls, calls
+ * older than {@link #maxAge} are not taken into account, so an API,
+ * which was not called for a long time, is measured again. The score of
+ * the API is the expected time of getting a rate: the percentile of
+ * latency divided by the rate of successful calls.
+ *
+ * @see ConverterRanking
+ *
+ * @author Dmytro K.
+ */
+public class ConverterStatistics {
+
+   /** Percentile of latency, which is used for the score. */
+   private static final double SCORE_PERCENTILE = 0.9;
+
+   /** Min rate of successful calls, which is used for the score of API, which always fails. */
+   private static final double MIN_SUCCESS_RATE = 0.01;
+
+   /** Name of API. */
+   private final String name;
+
+   /** Count of last calls, which are remembered. */
+   private final int windowSize;
+
+   /** Min count of fresh calls, which is needed for the score. */
+   private final int minimumCalls;
+
+   /** Time in ms, after which a call is not taken into account. */
+   private final long maxAge;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Latencies of last calls in ms. */
+   private final long[] latencies;
+
+   /** Times of last calls in ms. */
+   private final long[] times;
+
+   /** Results of last calls, true if a call failed. */
+   private final boolean[] failures;
+
+   /** Position in the window for the next call. */
+   private int position;
+
+   /** Count of calls in the window. */
+   private int calls;
+
+   /**
+    * Creates empty statistics.
+    *
+    * @param name name of API
+    * @param windowSize count of last calls, which are remembered
+    * @param minimumCalls min count of fresh calls, which is needed for the score
+    * @param maxAge time in ms, after which a call is not taken into account
+    * @param clock source of current time
+    */
+   public ConverterStatistics(String name, int windowSize, int minimumCalls, long maxAge, Clock clock) {
+      this.name = name;
+      this.windowSize = windowSize;
+      this.minimumCalls = minimumCalls;
+      this.maxAge = maxAge;
+      this.clock = clock;
+      this.latencies = new long[windowSize];
+      this.times = new long[windowSize];
+      this.failures = new boolean[windowSize];
+   }
+
+   /**
+    * Saves the call.
+    *
+    * @param latency time of the call in ms
+    * @param failed true, if API is unavailable
+    */
+   public synchronized void record(long latency, boolean failed) {
+      latencies[position] = latency;
+      times[position] = clock.millis();
+      failures[position] = failed;
+
+      position = (position + 1) % windowSize;
+      calls = Math.min(calls + 1, windowSize);
+   }
+
+   /**
+    * @return expected time of getting a rate in ms, NaN if there are
+    * less than {@link #minimumCalls} fresh calls.
+    */
+   public synchronized double getScore() {
+      long[] fresh = getFreshLatencies();
+
+      if (fresh.length < minimumCalls) {
+         return Double.NaN;
+      }
+
+      double successRate = 1 - (double) countFreshFailures() / fresh.length;
+      return getPercentile(fresh, SCORE_PERCENTILE) / Math.max(successRate, MIN_SUCCESS_RATE);
+   }
+
+   /**
+    * @return name of API.
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * @return latency and failures of fresh calls for monitoring.
+    */
+   public synchronized Map<String, Object> getMetrics() {
+      long[] fresh = getFreshLatencies();
+      Map<String, Object> metrics = new LinkedHashMap<>();
+
+      metrics.put("name", name);
+      metrics.put("calls", fresh.length);
+      metrics.put("failureRate", fresh.length == 0 ? 0 : (double) countFreshFailures() / fresh.length);
+      metrics.put("p50", getPercentile(fresh, 0.5));
+      metrics.put("p90", getPercentile(fresh, 0.9));
+      metrics.put("p99", getPercentile(fresh, 0.99));
+      metrics.put("score", getScore());
+
+      return metrics;
+   }
+
+   /**
+    * @return sorted latencies of calls, which are not older than {@link #maxAge}.
+    */
+   private long[] getFreshLatencies() {
+      long notBefore = clock.millis() - maxAge;
+      long[] fresh = new long[calls];
+      int count = 0;
+
+      for (int i = 0; i < calls; i++) {
+         if (times[i] >= notBefore) {
+            fresh[count++] = latencies[i];
+         }
+      }
+
+      fresh = Arrays.copyOf(fresh, count);
+      Arrays.sort(fresh);
+      return fresh;
+   }
+
+   private int countFreshFailures() {
+      long notBefore = clock.millis() - maxAge;
+      int count = 0;
+
+      for (int i = 0; i < calls; i++) {
+         if (failures[i] && times[i] >= notBefore) {
+            count++;
+         }
+      }
+
+      return count;
+   }
+
+   /**
+    * @param sorted sorted latencies
+    * @param percentile percentile from 0 to 1
+    * @return the latency, which is not less than the given part of latencies, 0 if there are no latencies.
+    */
+   private static long getPercentile(long[] sorted, double percentile) {
+      if (sorted.length == 0) {
+         return 0;
+      }
+
+      int index = (int) Math.ceil(percentile * sorted.length) - 1;
+      return sorted[Math.max(index, 0)];
+   }
+}
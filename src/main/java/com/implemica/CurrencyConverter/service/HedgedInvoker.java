@@ -0,0 +1,180 @@
+package com.implemica.CurrencyConverter.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class calls tasks one by one until any of them returns a result.
+ *
+ * In hedged mode the next task is started not only when the previous
+ * one failed, but also when the previous one has not answered within
+ * {@link #hedgeDelay}. The first result wins and all other tasks are
+ * cancelled, so waiting time is bounded by the delay instead of the sum
+ * of timeouts of all tasks. Without hedging the tasks are called one
+ * by one in the caller's thread.
+ *
+ * The queue of the executor is bounded. When it is full, the task is
+ * called in the caller's thread and no other tasks are started in
+ * parallel with it, so a stalled provider doesn't fill the memory with
+ * hedged calls.
+ *
+ * @see ConverterService
+ *
+ * @author Dmytro K.
+ */
+public class HedgedInvoker {
+
+   /** Executor for tasks in hedged mode. */
+   private final ExecutorService executor;
+
+   /** Time in ms after which the next task is started. */
+   private final long hedgeDelay;
+
+   /** Defines hedged mode. */
+   private final boolean hedged;
+
+   /**
+    * Creates invoker, which calls tasks one by one in the caller's thread.
+    */
+   public HedgedInvoker() {
+      this.executor = null;
+      this.hedgeDelay = 0;
+      this.hedged = false;
+   }
+
+   /**
+    * Creates invoker in hedged mode.
+    *
+    * @param threads max count of threads for tasks
+    * @param queueSize max count of tasks, which wait for a thread
+    * @param hedgeDelay time in ms after which the next task is started
+    */
+   public HedgedInvoker(int threads, int queueSize, long hedgeDelay) {
+      this.executor = createExecutor(threads, queueSize);
+      this.hedgeDelay = hedgeDelay;
+      this.hedged = true;
+   }
+
+   /**
+    * Calls the tasks in the given order and returns the first result.
+    *
+    * @param tasks tasks in order of priority
+    * @param exceptions list where exceptions of failed tasks are added
+    * @param <T> type of result
+    * @return the first result or null if all tasks failed.
+    * @throws InterruptedException if the caller's thread was interrupted.
+    */
+   public <T> T invokeFirst(List<Callable<T>> tasks, List<Exception> exceptions) throws InterruptedException {
+      return hedged ? invokeHedged(tasks, exceptions) : invokeSequentially(tasks, exceptions);
+   }
+
+   /**
+    * @return count of tasks, which wait for a thread.
+    */
+   int getQueueSize() {
+      return executor == null ? 0 : ((ThreadPoolExecutor) executor).getQueue().size();
+   }
+
+   /**
+    * Stops the executor.
+    */
+   public void shutdown() {
+      if (executor != null) {
+         executor.shutdownNow();
+      }
+   }
+
+   private <T> T invokeSequentially(List<Callable<T>> tasks, List<Exception> exceptions) {
+      for (Callable<T> task : tasks) {
+         try {
+            return task.call();
+         } catch (Exception e) {
+            exceptions.add(e);
+         }
+      }
+
+      return null;
+   }
+
+   private <T> T invokeHedged(List<Callable<T>> tasks, List<Exception> exceptions) throws InterruptedException {
+      CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+      List<Future<T>> futures = new ArrayList<>();
+      int next = 0;
+      int running = 0;
+      boolean saturated = false;
+
+      try {
+         while (next < tasks.size() || running > 0) {
+            if (running == 0) {
+               Callable<T> task = tasks.get(next++);
+
+               try {
+                  futures.add(completionService.submit(task));
+                  running++;
+
+               } catch (RejectedExecutionException e) {
+                  saturated = true;
+
+                  try {
+                     return task.call();
+                  } catch (Exception exception) {
+                     exceptions.add(exception);
+                  }
+                  continue;
+               }
+            }
+
+            Future<T> done = next < tasks.size() && !saturated
+                    ? completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS)
+                    : completionService.take();
+
+            if (done == null) {
+               try {
+                  futures.add(completionService.submit(tasks.get(next)));
+                  next++;
+                  running++;
+
+               } catch (RejectedExecutionException e) {
+                  saturated = true;
+               }
+               continue;
+            }
+
+            running--;
+
+            try {
+               return done.get();
+            } catch (ExecutionException e) {
+               exceptions.add(getException(e));
+            }
+         }
+      } finally {
+         for (Future<T> future : futures) {
+            future.cancel(true);
+         }
+      }
+
+      return null;
+   }
+
+   private Exception getException(ExecutionException e) {
+      Throwable cause = e.getCause();
+      return cause instanceof Exception ? (Exception) cause : e;
+   }
+
+   private static ExecutorService createExecutor(int threads, int queueSize) {
+      AtomicInteger counter = new AtomicInteger();
+
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(queueSize), runnable -> {
+         Thread thread = new Thread(runnable, "converter-" + counter.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+
+      return executor;
+   }
+}
@@ -0,0 +1,82 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.dao.RateSnapshotDao;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class saves rates of {@link RateCache} to a snapshot on a schedule
+ * and when the application stops, so after a restart the cache is filled
+ * from the snapshot, and the first conversions don't wait for APIs.
+ *
+ * @see RateSnapshotDao
+ *
+ * @author Dmytro K.
+ */
+public class RateCheckpointer {
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Cache of rates. */
+   private final RateCache rateCache;
+
+   /** Storage of snapshots. */
+   private final RateSnapshotDao snapshotDao;
+
+   /** Time between snapshots in ms. */
+   private final long interval;
+
+   /** Executor for snapshots. */
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "rate-checkpointer");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates a new checkpointer.
+    *
+    * @param rateCache cache of rates
+    * @param snapshotDao storage of snapshots
+    * @param interval time between snapshots in ms
+    */
+   public RateCheckpointer(RateCache rateCache, RateSnapshotDao snapshotDao, long interval) {
+      this.rateCache = rateCache;
+      this.snapshotDao = snapshotDao;
+      this.interval = interval;
+   }
+
+   /**
+    * Starts saving snapshots on schedule.
+    */
+   public void start() {
+      executor.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops the schedule and saves the last snapshot.
+    */
+   public void stop() {
+      executor.shutdownNow();
+      checkpoint();
+   }
+
+   /**
+    * Function saves the snapshot of the cache.
+    */
+   synchronized void checkpoint() {
+      try {
+         int count = snapshotDao.save(rateCache);
+         logger.info("Snapshot of " + count + " rates was saved");
+
+      } catch (RuntimeException e) {
+         logger.error("Snapshot of rates was not saved", e);
+      }
+   }
+}
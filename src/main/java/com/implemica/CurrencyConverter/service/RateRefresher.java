@@ -0,0 +1,101 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The class refreshes rates between popular currencies in background.
+ *
+ * Rates are refreshed on a schedule, which is shorter than time to live
+ * of rates, so rates of popular pairs are always in the cache, and user
+ * never waits for APIs. If a refresh fails, the previous rates are still
+ * served by {@link ConverterService} until they become too old.
+ *
+ * @see ConverterService#refreshRates(java.util.Collection)
+ *
+ * @author Dmytro K.
+ */
+public class RateRefresher {
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Service, which fetches rates. */
+   private final ConverterService converterService;
+
+   /** Popular currencies. */
+   private final List<Currency> bases;
+
+   /** Time between refreshes in ms. */
+   private final long interval;
+
+   /** Defines that a refresh is already in progress. */
+   private final AtomicBoolean refreshing = new AtomicBoolean();
+
+   /** Executor for refreshes. */
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "rate-refresher");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates a new refresher.
+    *
+    * @param converterService service, which fetches rates
+    * @param bases popular currencies
+    * @param interval time between refreshes in ms
+    */
+   public RateRefresher(ConverterService converterService, Currency[] bases, long interval) {
+      this.converterService = converterService;
+      this.bases = Collections.unmodifiableList(Arrays.asList(bases.clone()));
+      this.interval = interval;
+   }
+
+   /**
+    * Starts refreshing rates on schedule.
+    */
+   public void start() {
+      executor.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops refreshing rates.
+    */
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * @return popular currencies.
+    */
+   public List<Currency> getBases() {
+      return bases;
+   }
+
+   /**
+    * Function refreshes rates, if there is no refresh in progress.
+    */
+   void refresh() {
+      if (!refreshing.compareAndSet(false, true)) {
+         return;
+      }
+
+      try {
+         converterService.refreshRates(bases);
+      } catch (RuntimeException e) {
+         logger.error("Rates were not refreshed", e);
+      } finally {
+         refreshing.set(false);
+      }
+   }
+}
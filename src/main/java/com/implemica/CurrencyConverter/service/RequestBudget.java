@@ -0,0 +1,132 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.service.converters.RequestLimit;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Budget of requests to one API, which is based on a token bucket.
+ *
+ * The bucket holds up to {@link RequestLimit#getRequests()} tokens and
+ * is refilled continuously, so that the whole limit is restored during
+ * {@link RequestLimit#getPeriod()}. Every request takes one token.
+ *
+ * @see RequestBudgetRegistry
+ *
+ * @author Dmytro K.
+ */
+public class RequestBudget {
+
+   /** Name of API. */
+   private final String name;
+
+   /** Max count of tokens. */
+   private final double capacity;
+
+   /** Count of tokens, which are added per ms. */
+   private final double refillPerMillis;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Current count of tokens. */
+   private double tokens;
+
+   /** Time of the last refill. */
+   private long refilledAt;
+
+   /** Count of requests, which were rejected because of empty bucket. */
+   private long rejected;
+
+   /**
+    * Creates a full budget.
+    *
+    * @param name name of API
+    * @param limit limit of requests to API
+    * @param clock source of current time
+    */
+   public RequestBudget(String name, RequestLimit limit, Clock clock) {
+      this.name = name;
+      this.capacity = limit.getRequests();
+      this.refillPerMillis = capacity / limit.getPeriod();
+      this.clock = clock;
+      this.tokens = capacity;
+      this.refilledAt = clock.millis();
+   }
+
+   /**
+    * Takes one token, if the budget is not spent.
+    *
+    * @return true if API can be called.
+    */
+   public synchronized boolean tryConsume() {
+      refill();
+
+      if (tokens < 1) {
+         rejected++;
+         return false;
+      }
+
+      tokens--;
+      return true;
+   }
+
+   /**
+    * @return current count of tokens.
+    */
+   public synchronized double getTokens() {
+      refill();
+      return tokens;
+   }
+
+   /**
+    * @return time of the last refill.
+    */
+   public synchronized long getRefilledAt() {
+      return refilledAt;
+   }
+
+   /**
+    * Restores saved state of the budget.
+    *
+    * @param tokens saved count of tokens
+    * @param refilledAt saved time of the last refill
+    */
+   public synchronized void restore(double tokens, long refilledAt) {
+      this.tokens = Math.min(tokens, capacity);
+      this.refilledAt = Math.min(refilledAt, clock.millis());
+   }
+
+   /**
+    * @return name of API.
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * @return state of the budget for monitoring.
+    */
+   public synchronized Map<String, Object> getMetrics() {
+      refill();
+
+      Map<String, Object> metrics = new LinkedHashMap<>();
+      metrics.put("name", name);
+      metrics.put("capacity", (long) capacity);
+      metrics.put("tokens", (long) tokens);
+      metrics.put("rejected", rejected);
+
+      return metrics;
+   }
+
+   private void refill() {
+      long now = clock.millis();
+
+      if (now > refilledAt) {
+         tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerMillis);
+         refilledAt = now;
+      }
+   }
+}
@@ -0,0 +1,223 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.service.converters.ConverterAPI;
+import com.implemica.CurrencyConverter.service.converters.RequestLimit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores a {@link RequestBudget} for each API, which declares
+ * {@link ConverterAPI#getRequestLimit()}.
+ *
+ * State of budgets is saved to a file by a background thread once a
+ * second, if a request was spent, and on stop. It is loaded from the file
+ * on start, so restart of application doesn't refill budgets. The file
+ * is written to a temporary file, which replaces it at once, so a crash
+ * during saving never breaks it.
+ *
+ * @see RequestBudget
+ *
+ * @author Dmytro K.
+ */
+public class RequestBudgetRegistry {
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Time in ms between savings of changed budgets. */
+   private static final long SAVE_INTERVAL = 1000;
+
+   /** Suffix of property with count of tokens. */
+   private static final String TOKENS = ".tokens";
+
+   /** Suffix of property with time of the last refill. */
+   private static final String REFILLED_AT = ".refilledAt";
+
+   /** Budgets by name of API. */
+   private final Map<String, RequestBudget> budgets = new ConcurrentHashMap<>();
+
+   /** Saved state of budgets. */
+   private final Properties saved = new Properties();
+
+   /** File with state of budgets, null if state is not saved. */
+   private final File file;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Defines if a request was spent after the last saving. */
+   private final AtomicBoolean changed = new AtomicBoolean();
+
+   /** Executor for savings. */
+   private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "request-budget-saver");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates registry, which saves state of budgets to the given file.
+    *
+    * @param file file with state of budgets, null if state is not saved
+    */
+   public RequestBudgetRegistry(File file) {
+      this(file, Clock.systemUTC());
+   }
+
+   /**
+    * Creates registry with the given clock.
+    *
+    * @param file file with state of budgets, null if state is not saved
+    * @param clock source of current time
+    */
+   RequestBudgetRegistry(File file, Clock clock) {
+      this.file = file;
+      this.clock = clock;
+      load();
+   }
+
+   /**
+    * Starts saving of changed budgets.
+    */
+   public void start() {
+      if (file != null) {
+         saver.scheduleWithFixedDelay(this::saveChanged, SAVE_INTERVAL, SAVE_INTERVAL, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Stops saving and saves changed budgets.
+    */
+   public void stop() {
+      saver.shutdownNow();
+      saveChanged();
+   }
+
+   /**
+    * Gets budget of the given API, creates it if it doesn't exist.
+    *
+    * @param converter API
+    * @return budget or null if API has no limit.
+    */
+   public RequestBudget get(ConverterAPI converter) {
+      RequestLimit limit = converter.getRequestLimit();
+
+      if (limit == null) {
+         return null;
+      }
+
+      return budgets.computeIfAbsent(converter.getName(), name -> create(name, limit));
+   }
+
+   /**
+    * Takes one request from budget of the given API, its state is saved later.
+    *
+    * @param converter API
+    * @return true if API can be called.
+    */
+   public boolean tryConsume(ConverterAPI converter) {
+      RequestBudget budget = get(converter);
+
+      if (budget == null) {
+         return true;
+      }
+
+      boolean result = budget.tryConsume();
+
+      if (result) {
+         changed.set(true);
+      }
+
+      return result;
+   }
+
+   /**
+    * @return states of all budgets for monitoring.
+    */
+   public List<Map<String, Object>> getMetrics() {
+      List<Map<String, Object>> metrics = new ArrayList<>();
+
+      for (RequestBudget budget : budgets.values()) {
+         metrics.add(budget.getMetrics());
+      }
+
+      return metrics;
+   }
+
+   private RequestBudget create(String name, RequestLimit limit) {
+      RequestBudget budget = new RequestBudget(name, limit, clock);
+
+      String tokens = saved.getProperty(name + TOKENS);
+      String refilledAt = saved.getProperty(name + REFILLED_AT);
+
+      if (tokens != null && refilledAt != null) {
+         try {
+            budget.restore(Double.parseDouble(tokens), Long.parseLong(refilledAt));
+         } catch (NumberFormatException e) {
+            logger.error("Saved budget of " + name + " is incorrect: " + e.getMessage());
+         }
+      }
+
+      return budget;
+   }
+
+   /**
+    * Loads state of budgets from {@link #file}.
+    */
+   private void load() {
+      if (file == null || !file.exists()) {
+         return;
+      }
+
+      try (InputStream inputStream = new FileInputStream(file)) {
+         saved.load(inputStream);
+      } catch (IOException e) {
+         logger.error("Budgets were not loaded", e);
+      }
+   }
+
+   /**
+    * Saves state of all budgets to {@link #file}, if a request was spent after the last saving.
+    */
+   synchronized void saveChanged() {
+      if (file == null || !changed.getAndSet(false)) {
+         return;
+      }
+
+      for (RequestBudget budget : budgets.values()) {
+         saved.setProperty(budget.getName() + TOKENS, String.valueOf(budget.getTokens()));
+         saved.setProperty(budget.getName() + REFILLED_AT, String.valueOf(budget.getRefilledAt()));
+      }
+
+      Path target = file.toPath().toAbsolutePath();
+      Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+      try {
+         try (FileOutputStream outputStream = new FileOutputStream(temporary.toFile())) {
+            saved.store(outputStream, "Budgets of requests to APIs");
+            outputStream.getFD().sync();
+         }
+
+         Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      } catch (IOException e) {
+         changed.set(true);
+         logger.error("Budgets were not saved", e);
+      }
+   }
+}
@@ -0,0 +1,93 @@
+package com.implemica.CurrencyConverter.service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class coalesces concurrent calls with the same key.
+ *
+ * The first caller executes the task in its own thread, all callers
+ * with the same key, which come while the task is in progress, wait
+ * for its result or exception instead of executing the task again.
+ * When the task is completed, the next call with the key executes it
+ * again, so results are not cached.
+ *
+ * @param <K> type of key
+ * @param <V> type of result
+ *
+ * @see ConverterService
+ *
+ * @author Dmytro K.
+ */
+public class SingleFlight<K, V> {
+
+   /** Tasks in progress by key. */
+   private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+   /** Count of calls, which waited for a task of another caller. */
+   private final AtomicLong shared = new AtomicLong();
+
+   /**
+    * Executes the task, if there is no task in progress with the same
+    * key, otherwise waits for the task in progress.
+    *
+    * @param key key of the task
+    * @param task task
+    * @return result of the task.
+    * @throws Exception exception of the task, or {@link InterruptedException}
+    *               if the caller's thread was interrupted during waiting.
+    */
+   public V execute(K key, Callable<V> task) throws Exception {
+      CompletableFuture<V> flight = new CompletableFuture<>();
+      CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+
+      if (existing != null) {
+         shared.incrementAndGet();
+         return await(existing);
+      }
+
+      try {
+         V result = task.call();
+         flight.complete(result);
+         return result;
+
+      } catch (Throwable e) {
+         flight.completeExceptionally(e);
+         throw e;
+
+      } finally {
+         flights.remove(key, flight);
+      }
+   }
+
+   /**
+    * @return count of tasks in progress.
+    */
+   public int getInFlight() {
+      return flights.size();
+   }
+
+   /**
+    * @return count of calls, which waited for a task of another caller.
+    */
+   public long getShared() {
+      return shared.get();
+   }
+
+   private V await(CompletableFuture<V> flight) throws Exception {
+      try {
+         return flight.get();
+
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+
+         if (cause instanceof Exception) {
+            throw (Exception) cause;
+         }
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw e;
+      }
+   }
+}
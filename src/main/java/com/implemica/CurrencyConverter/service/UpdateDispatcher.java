@@ -0,0 +1,233 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class runs updates of chats on a fixed set of workers, so a slow
+ * update of one chat doesn't hold up other chats.
+ *
+ * Every worker has its own thread and bounded queue, and all updates of
+ * a chat are put to the same worker by hash of id of chat, so updates of
+ * one chat are processed one by one in order of receiving, and different
+ * chats are processed in parallel. When the queue of the worker is full,
+ * {@link Backpressure} defines, if the caller waits for a place in the
+ * queue or the update is dropped at once. Without workers updates are
+ * processed by the caller's thread.
+ *
+ * @author Dmytro K.
+ */
+public class UpdateDispatcher {
+
+   /** Time in ms, during which workers finish queued updates on stop. */
+   private static final long STOP_TIMEOUT = 5000;
+
+   /** Time in ms, during which an idle worker waits for an update, before it checks, if it is stopped. */
+   private static final long POLL_TIMEOUT = 100;
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Queues of workers. */
+   private final List<BlockingQueue<Runnable>> queues = new ArrayList<>();
+
+   /** Threads of workers. */
+   private final List<Thread> workers = new ArrayList<>();
+
+   /** Max count of updates in a queue. */
+   private final int queueSize;
+
+   /** Reaction to a full queue. */
+   private final Backpressure backpressure;
+
+   /** Time in ms, during which the caller waits for a place in a full queue. */
+   private final long blockTimeout;
+
+   /** Max count of updates, which were in a queue at once. */
+   private final AtomicInteger maxDepth = new AtomicInteger();
+
+   /** Count of dispatched updates. */
+   private final AtomicLong dispatched = new AtomicLong();
+
+   /** Count of updates, which were dropped, because a queue was full. */
+   private final AtomicLong dropped = new AtomicLong();
+
+   /** Count of updates, which threw exception. */
+   private final AtomicLong failed = new AtomicLong();
+
+   /** Defines if workers take new updates. */
+   private volatile boolean running = true;
+
+   /**
+    * Reaction to a full queue of worker.
+    */
+   public enum Backpressure {
+
+      /** The caller waits for a place in the queue during the timeout, then the update is dropped. */
+      BLOCK,
+
+      /** The update is dropped at once. */
+      DROP
+   }
+
+   /**
+    * Creates dispatcher.
+    *
+    * @param workers count of workers, 0 - updates are processed by the caller's thread
+    * @param queueSize max count of updates in the queue of a worker
+    * @param backpressure reaction to a full queue
+    * @param blockTimeout time in ms, during which the caller waits for a place in a full queue
+    */
+   public UpdateDispatcher(int workers, int queueSize, Backpressure backpressure, long blockTimeout) {
+      this.queueSize = queueSize;
+      this.backpressure = backpressure;
+      this.blockTimeout = blockTimeout;
+
+      for (int i = 0; i < workers; i++) {
+         BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueSize);
+         Thread thread = new Thread(() -> work(queue), "update-worker-" + (i + 1));
+         thread.setDaemon(true);
+
+         queues.add(queue);
+         this.workers.add(thread);
+      }
+   }
+
+   /**
+    * Starts workers.
+    */
+   public void start() {
+      for (Thread worker : workers) {
+         worker.start();
+      }
+   }
+
+   /**
+    * Stops taking of new updates, waits, while workers finish queued ones, and stops workers.
+    */
+   public void stop() {
+      running = false;
+      long deadline = System.currentTimeMillis() + STOP_TIMEOUT;
+
+      try {
+         for (Thread worker : workers) {
+            worker.join(Math.max(deadline - System.currentTimeMillis(), 1));
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Puts the update to the queue of the chat's worker.
+    *
+    * @param chatId id of chat
+    * @param update processing of the update
+    * @return false, if the update was dropped, because the queue was full.
+    */
+   public boolean dispatch(long chatId, Runnable update) {
+      dispatched.incrementAndGet();
+
+      if (queues.isEmpty()) {
+         run(update);
+         return true;
+      }
+
+      BlockingQueue<Runnable> queue = queues.get(getWorker(chatId));
+      boolean queued;
+
+      try {
+         queued = backpressure == Backpressure.BLOCK
+                 ? queue.offer(update, blockTimeout, TimeUnit.MILLISECONDS)
+                 : queue.offer(update);
+
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         queued = false;
+      }
+
+      if (!queued) {
+         dropped.incrementAndGet();
+         logger.warn("Update of chat " + chatId + " was dropped, queue of worker is full");
+         return false;
+      }
+
+      maxDepth.accumulateAndGet(queue.size(), Math::max);
+      return true;
+   }
+
+   /**
+    * @return depths of queues, counts of dispatched, dropped and failed updates for monitoring.
+    */
+   public Map<String, Object> getMetrics() {
+      List<Integer> depths = new ArrayList<>();
+
+      for (BlockingQueue<Runnable> queue : queues) {
+         depths.add(queue.size());
+      }
+
+      Map<String, Object> metrics = new LinkedHashMap<>();
+
+      metrics.put("workers", queues.size());
+      metrics.put("queueSize", queueSize);
+      metrics.put("backpressure", backpressure);
+      metrics.put("depths", depths);
+      metrics.put("maxDepth", maxDepth.get());
+      metrics.put("dispatched", dispatched.get());
+      metrics.put("dropped", dropped.get());
+      metrics.put("failed", failed.get());
+
+      return metrics;
+   }
+
+   /**
+    * @param chatId id of chat
+    * @return index of worker of the chat.
+    */
+   int getWorker(long chatId) {
+      int hash = Long.hashCode(chatId) * 0x9E3779B9;
+      return Math.floorMod(hash ^ hash >>> 16, queues.size());
+   }
+
+   /**
+    * Loop of worker, it processes updates, until the dispatcher is
+    * stopped and the queue is empty.
+    *
+    * @param queue queue of worker
+    */
+   private void work(BlockingQueue<Runnable> queue) {
+      while (running || !queue.isEmpty()) {
+         Runnable update;
+
+         try {
+            update = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+         } catch (InterruptedException e) {
+            return;
+         }
+
+         if (update != null) {
+            run(update);
+         }
+      }
+   }
+
+   private void run(Runnable update) {
+      try {
+         update.run();
+
+      } catch (RuntimeException e) {
+         failed.incrementAndGet();
+         logger.error("Update was not processed", e);
+      }
+   }
+}
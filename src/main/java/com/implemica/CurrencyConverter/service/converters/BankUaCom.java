@@ -6,10 +6,17 @@ import com.tunyk.currencyconverter.api.CurrencyConverterException;
 import com.tunyk.currencyconverter.api.CurrencyNotSupportedException;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 
 /**
  * Class for conversion currencies by bank-ua.com
  *
+ * The library downloads and parses the whole XML feed of the bank, when
+ * its converter is created, and the converter can convert any pair of the
+ * feed. So one converter is shared by all pairs and threads, and it's
+ * created again only after {@link #refreshInterval}. The converter of the
+ * library is not thread-safe, so it's used under the lock.
+ *
  * @author Dmytro K.
  */
 public class BankUaCom implements ConverterAPI {
@@ -17,17 +24,81 @@ public class BankUaCom implements ConverterAPI {
    /** Api name. */
    private static final String API_NAME_BANK_UA_COM = "bank-ua.com";
 
+   /** Time in ms, during which the downloaded feed is used. */
+   private static final long DEFAULT_REFRESH_INTERVAL = 60 * 60 * 1000;
+
+   /** Creates converters of the library. */
+   private final ConverterFactory factory;
+
+   /** Time in ms, during which the downloaded feed is used. */
+   private final long refreshInterval;
+
+   /** Clock, which is used for refreshing of the feed. */
+   private final Clock clock;
+
+   /** Converter of the library with the downloaded feed, null if the feed is not downloaded. */
+   private CurrencyConverter converter;
+
+   /** Time of creation of {@link #converter} in ms. */
+   private long createdAt;
+
+   /**
+    * Creates converter, which downloads the feed once an hour.
+    */
+   public BankUaCom() {
+      this(com.tunyk.currencyconverter.BankUaCom::new, DEFAULT_REFRESH_INTERVAL, Clock.systemUTC());
+   }
+
+   /**
+    * Creates converter with the given factory of converters of the library.
+    *
+    * @param factory creates converters of the library
+    * @param refreshInterval time in ms, during which the downloaded feed is used
+    * @param clock source of current time
+    */
+   BankUaCom(ConverterFactory factory, long refreshInterval, Clock clock) {
+      this.factory = factory;
+      this.refreshInterval = refreshInterval;
+      this.clock = clock;
+   }
+
    @Override
    public BigDecimal convert(Currency from, Currency to, BigDecimal value) throws CurrencyConverterException {
       com.tunyk.currencyconverter.api.Currency usersCurrency = getCurrencyByUtilCurrency(from);
       com.tunyk.currencyconverter.api.Currency desiredCurrency = getCurrencyByUtilCurrency(to);
 
-      CurrencyConverter currencyConverter = new com.tunyk.currencyconverter.BankUaCom(usersCurrency, desiredCurrency);
+      Float one;
 
-      Float one = currencyConverter.convertCurrency(1.0f);
+      synchronized (this) {
+         // the library gives rates as Float only, its shortest decimal is the rate of the bank
+         one = getConverter(usersCurrency, desiredCurrency).convertCurrency(1.0f, usersCurrency, desiredCurrency);
+      }
 
       writeToLog(API_NAME_BANK_UA_COM, from, to, value);
-      return convertByOne(value, one);
+      return convertByOne(value, new BigDecimal(one.toString()));
+   }
+
+   /**
+    * Function gets the converter with the downloaded feed, the feed is
+    * downloaded again, if it's older than {@link #refreshInterval}. If
+    * the download fails, the next call tries again.
+    *
+    * @param from currency to convert from, needed by the library for creation only
+    * @param to currency for conversion to, needed by the library for creation only
+    * @return converter of the library.
+    * @throws CurrencyConverterException if the feed could not be downloaded.
+    */
+   private CurrencyConverter getConverter(com.tunyk.currencyconverter.api.Currency from,
+                                          com.tunyk.currencyconverter.api.Currency to) throws CurrencyConverterException {
+      long now = clock.millis();
+
+      if (converter == null || now - createdAt >= refreshInterval) {
+         converter = null;
+         converter = factory.create(from, to);
+         createdAt = now;
+      }
+
+      return converter;
    }
 
    /**
@@ -40,4 +111,25 @@ public class BankUaCom implements ConverterAPI {
    private com.tunyk.currencyconverter.api.Currency getCurrencyByUtilCurrency(Currency currency) throws CurrencyNotSupportedException {
       return com.tunyk.currencyconverter.api.Currency.fromString(currency.name());
    }
+
+   @Override
+   public String getName() {
+      return API_NAME_BANK_UA_COM;
+   }
+
+   /**
+    * Creates converter of the library, which downloads the feed.
+    */
+   @FunctionalInterface
+   interface ConverterFactory {
+
+      /**
+       * @param from currency to convert from by default
+       * @param to currency for conversion to by default
+       * @return converter of the library.
+       * @throws CurrencyConverterException if the feed could not be downloaded.
+       */
+      CurrencyConverter create(com.tunyk.currencyconverter.api.Currency from,
+                               com.tunyk.currencyconverter.api.Currency to) throws CurrencyConverterException;
+   }
 }
@@ -2,13 +2,10 @@ package com.implemica.CurrencyConverter.service.converters;
 
 import com.implemica.CurrencyConverter.model.Currency;
 import com.tunyk.currencyconverter.api.CurrencyConverterException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -36,6 +33,29 @@ public interface ConverterAPI {
     */
    BigDecimal convert(Currency from, Currency to, BigDecimal value) throws Exception;
 
+   /**
+    * Function prepares API for the first conversion, if it's slow to start.
+    * It must not block, slow work is made in background.
+    */
+   default void warmUp() {
+   }
+
+   /**
+    * @return name of API.
+    */
+   default String getName() {
+      return getClass().getSimpleName();
+   }
+
+   /**
+    * Declares limit of requests to API.
+    *
+    * @return limit or null if API is unlimited.
+    */
+   default RequestLimit getRequestLimit() {
+      return null;
+   }
+
    /**
     * Function to white to log.
     */
@@ -51,27 +71,23 @@ public interface ConverterAPI {
     * @param one the cost for 1 unit of the desired currency
     * @return result
     */
-   default BigDecimal convertByOne(BigDecimal value, Float one) {
-      return value.multiply(new BigDecimal(one));
+   default BigDecimal convertByOne(BigDecimal value, BigDecimal one) {
+      return value.multiply(one);
    }
 
    /**
-    * Gets a json object by url.
+    * The function multiplies the cost for 1 unit of the desired currency,
+    * which was read as double, by the amount that the user wants to receive.
+    * The rate is taken as the shortest decimal, which is read as the same
+    * double, so a rate of API with up to 15 digits is kept as it was sent,
+    * and the product is computed on small unscaled values.
     *
-    * @param url address
-    * @return an instance of {@link JSONObject}
-    * @throws IOException if an I/O exception occurs.
+    * @param value user's value
+    * @param one the cost for 1 unit of the desired currency
+    * @return result
     */
-   default JSONObject getJsonObjectByURL(URL url) throws IOException {
-      JSONObject result;
-
-      try (InputStream inputStream = url.openStream()) {
-         JSONTokener tokener = new JSONTokener(inputStream);
-
-         result = new JSONObject(tokener);
-      }
-
-      return result;
+   default BigDecimal convertByOne(BigDecimal value, double one) {
+      return convertByOne(value, BigDecimal.valueOf(one));
    }
 
    /**
@@ -6,6 +6,8 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Class for conversion currencies by currencylayer.com
@@ -17,18 +19,84 @@ public class CurrencyLayerCom implements ConverterAPI {
    /** Api name. */
    private static final String API_NAME_CURRENCYLAYER_COM = "currencylayer.com";
 
+   /** Codes of errors, which mean that the currency is not supported. */
+   private static final List<Integer> UNSUPPORTED_CURRENCY_ERRORS = Arrays.asList(201, 202);
+
+   /** Limit of requests - 1000 requests per month. */
+   private static final RequestLimit REQUEST_LIMIT = new RequestLimit(1000, RequestLimit.MONTH);
+
    /** URL for connection to API. */
    private static final String URL_CURRENCY_LAYER_COM = "http://apilayer.net/api/live?access_key=f91895130d9f009b167cd5299cdd923c&source=%s&currencies=%s&format=1";
 
+   /** Client for requests to API. */
+   private final JsonHttpClient httpClient;
+
+   /** URL for connection to API. */
+   private final String urlFormat;
+
+   /**
+    * Creates converter, which sends requests by the given client.
+    *
+    * @param httpClient client for requests to API
+    */
+   public CurrencyLayerCom(JsonHttpClient httpClient) {
+      this(httpClient, URL_CURRENCY_LAYER_COM);
+   }
+
+   /**
+    * Creates converter, which gets rates by the given URL.
+    *
+    * @param httpClient client for requests to API
+    * @param urlFormat URL for connection to API, where currencies are replaced by %s
+    */
+   CurrencyLayerCom(JsonHttpClient httpClient, String urlFormat) {
+      this.httpClient = httpClient;
+      this.urlFormat = urlFormat;
+   }
+
    @Override
    public BigDecimal convert(Currency from, Currency to, BigDecimal value) throws IOException {
-      URL url = buildURL(URL_CURRENCY_LAYER_COM, from, to);
+      URL url = buildURL(urlFormat, from, to);
+
+      JSONObject object = httpClient.getJsonObject(url);
 
-      JSONObject object = getJsonObjectByURL(url);
+      checkError(object);
 
       double one = object.getJSONObject("quotes").getDouble(from + "" + to);
 
       writeToLog(API_NAME_CURRENCYLAYER_COM, from, to, value);
-      return convertByOne(value, (float) one);
+      return convertByOne(value, one);
+   }
+
+   /**
+    * The API returns an error instead of quotes, for example when the
+    * monthly limit of requests is reached. Such errors are thrown as
+    * {@link IOException}, so the API is treated as unavailable.
+    *
+    * @param object received data
+    * @throws IOException if the API returned an error.
+    */
+   private void checkError(JSONObject object) throws IOException {
+      if (object.optBoolean("success", true)) {
+         return;
+      }
+
+      JSONObject error = object.optJSONObject("error");
+      int code = error == null ? 0 : error.optInt("code");
+
+      if (!UNSUPPORTED_CURRENCY_ERRORS.contains(code)) {
+         throw new IOException(API_NAME_CURRENCYLAYER_COM + " returned error " + code + ": " +
+                 (error == null ? "" : error.optString("info")));
+      }
+   }
+
+   @Override
+   public RequestLimit getRequestLimit() {
+      return REQUEST_LIMIT;
+   }
+
+   @Override
+   public String getName() {
+      return API_NAME_CURRENCYLAYER_COM;
    }
 }
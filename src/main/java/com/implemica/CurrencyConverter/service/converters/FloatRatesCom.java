@@ -1,78 +1,175 @@
 package com.implemica.CurrencyConverter.service.converters;
 
 import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.SingleFlight;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
 import com.tunyk.currencyconverter.api.CurrencyConverterException;
-import org.apache.commons.lang3.time.DateUtils;
-import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.math.BigDecimal;
 import java.net.URL;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * Class for conversion currencies by floatrates.com
  *
+ * The API returns all rates of the base currency in one document, so
+ * every received rate (and its inverse rate) is put to {@link RateCache}.
+ * The next conversion from the same base currency doesn't need another
+ * download. The document is read by {@link FloatRatesDocument} as a
+ * stream, without building of {@link org.json.JSONObject}. Concurrent
+ * conversions from the same base currency share one download of the
+ * document, see {@link SingleFlight}.
+ *
  * @author Dmytro K.
  */
 public class FloatRatesCom implements ConverterAPI {
 
-   /** Date format needed for getting data from JSON object. */
-   private SimpleDateFormat sdf = new SimpleDateFormat(DATE_FORMAT_FOR_FLOAT_RATES_API, Locale.ENGLISH);
-
    /** API name. */
    private static final String API_NAME_FLOATRATES_COM = "floatrates.com";
 
    /** URL for connection to API. */
    private static final String URL_FLOAT_RATES_COM = "http://www.floatrates.com/daily/%s.json";
 
-   /** Date format in JSON object. */
-   private static final String DATE_FORMAT_FOR_FLOAT_RATES_API = "E, d MMM yyyy HH:mm:ss Z";
+   /** Cache where all received rates are put. */
+   private final RateCache rateCache;
+
+   /** Client for requests to API. */
+   private final JsonHttpClient httpClient;
+
+   /** URL for connection to API. */
+   private final String urlFormat;
+
+   /** Time in ms after which a rate is too old, see {@link RateCache#getMaxStaleness()}. */
+   private final long maxStaleness;
 
-   /** Two weeks in milliseconds. */
-   private static final long TWO_WEEKS = DateUtils.MILLIS_PER_DAY * 14;
+   /** Downloads of documents in progress by base currency. */
+   private final SingleFlight<Currency, FloatRatesDocument> downloads = new SingleFlight<>();
+
+   /**
+    * Creates converter, which puts received rates to the given cache.
+    *
+    * @param rateCache cache of rates
+    * @param httpClient client for requests to API
+    */
+   public FloatRatesCom(RateCache rateCache, JsonHttpClient httpClient) {
+      this(rateCache, httpClient, URL_FLOAT_RATES_COM);
+   }
+
+   /**
+    * Creates converter, which gets rates by the given URL.
+    *
+    * @param rateCache cache of rates
+    * @param httpClient client for requests to API
+    * @param urlFormat URL for connection to API, where base currency is replaced by %s
+    */
+   FloatRatesCom(RateCache rateCache, JsonHttpClient httpClient, String urlFormat) {
+      this.rateCache = rateCache;
+      this.httpClient = httpClient;
+      this.urlFormat = urlFormat;
+      this.maxStaleness = rateCache.getMaxStaleness();
+   }
 
    @Override
    public BigDecimal convert(Currency from, Currency to, BigDecimal value) throws CurrencyConverterException, IOException {
-      String url = String.format(URL_FLOAT_RATES_COM, from);
+      FloatRatesDocument document = loadDocument(from);
 
-      JSONObject object = getJsonObjectByURL(new URL(url));
+      if (!document.contains(to)) {
+         throw new CurrencyConverterException(API_NAME_FLOATRATES_COM + " has no rate of " + to);
+      }
 
-      String currencyTo = to.name();
+      checkLatestInfoForFloatRatesAPI(document.getDate(to));
 
-      JSONObject desiredCurrency = object.getJSONObject(currencyTo.toLowerCase());
+      double one = document.getRate(to);
 
+      writeToLog(API_NAME_FLOATRATES_COM, from, to, value);
+      return convertByOne(value, one);
+   }
+
+   /**
+    * Function downloads the document of the base currency and puts its
+    * rates to {@link #rateCache}. If the document of the base currency is
+    * already being downloaded by another thread, the function waits for
+    * that download instead of starting a new one.
+    *
+    * @param base base currency
+    * @return received document.
+    * @throws IOException if the document could not be received.
+    */
+   private FloatRatesDocument loadDocument(Currency base) throws IOException {
       try {
-         checkLatestInfoForFloatRatesAPI(desiredCurrency);
-      } catch (ParseException e) {
-         logger.error(e.getMessage());
-      }
+         return downloads.execute(base, () -> {
+            URL url = new URL(String.format(urlFormat, base));
+            FloatRatesDocument document = httpClient.get(url, FloatRatesDocument::parse);
 
-      double one = object.getJSONObject(currencyTo.toLowerCase())
-              .getDouble("rate");
+            putAllRates(base, document);
+            return document;
+         });
 
-      writeToLog(API_NAME_FLOATRATES_COM, from, to, value);
-      return convertByOne(value, (float) one);
+      } catch (IOException | RuntimeException e) {
+         throw e;
+
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Download of " + base + " rates was interrupted");
+
+      } catch (Exception e) {
+         throw new IOException(e);
+      }
+   }
+
+   /**
+    * Function puts all actual rates of the base currency and their
+    * inverse rates to {@link #rateCache}. Rates of currencies, which
+    * are not presented in {@link Currency}, are skipped by the parser.
+    *
+    * @param base base currency of the document
+    * @param document received document
+    */
+   private void putAllRates(Currency base, FloatRatesDocument document) {
+      for (Currency currency : Currency.values()) {
+         if (currency == base || !document.contains(currency) || !isActual(document.getDate(currency))) {
+            continue;
+         }
+
+         rateCache.put(base, currency, BigDecimal.valueOf(document.getRate(currency)));
+
+         double inverseRate = document.getInverseRate(currency);
+         if (!Double.isNaN(inverseRate)) {
+            rateCache.put(currency, base, BigDecimal.valueOf(inverseRate));
+         }
+      }
    }
 
+   /**
+    * Function defines if the date of the rate is not older than {@link #maxStaleness}.
+    *
+    * @param date date of the rate in ms
+    * @return true if the rate is actual.
+    */
+   private boolean isActual(long date) {
+      return date != FloatRatesDocument.UNKNOWN_DATE && System.currentTimeMillis() - date <= maxStaleness;
+   }
 
    /**
-    * The function checks the data received from the API, which contain
-    * the date when the currencies were updated. If the data is old or
-    * SimpleDateFormat is outdated, the function throws an exception.
+    * The function checks the date when the currencies were updated.
+    * If the data is old, the function throws an exception. If the date
+    * could not be parsed, the function only writes it to log.
     *
-    * @param object received data with date.
+    * @param date date of the rate in ms
     * @throws CurrencyConverterException if data is old.
     */
-   private void checkLatestInfoForFloatRatesAPI(JSONObject object) throws CurrencyConverterException, ParseException {
-      Date update = sdf.parse(object.getString("date"));
-      Date today = new Date();
+   private void checkLatestInfoForFloatRatesAPI(long date) throws CurrencyConverterException {
+      if (date == FloatRatesDocument.UNKNOWN_DATE) {
+         logger.error("Date of rate from " + API_NAME_FLOATRATES_COM + " could not be parsed.");
 
-      if (today.getTime() - update.getTime() > TWO_WEEKS) {
+      } else if (!isActual(date)) {
          throw new CurrencyConverterException("This info is old.");
       }
    }
+
+   @Override
+   public String getName() {
+      return API_NAME_FLOATRATES_COM;
+   }
 }
@@ -0,0 +1,181 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.implemica.CurrencyConverter.model.Currency;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rates of one base currency from the daily document of floatrates.com.
+ *
+ * The document is read token by token in one pass, without building a
+ * tree of objects: quotes of currencies, which are not presented in
+ * {@link Currency}, are skipped at once, and only {@code rate},
+ * {@code inverseRate} and {@code date} are read from the other ones.
+ * Rates are kept in primitive arrays indexed by {@link Currency#ordinal()}.
+ *
+ * @see FloatRatesCom
+ *
+ * @author Dmytro K.
+ */
+public class FloatRatesDocument {
+
+   /** Date of a rate, which could not be parsed. */
+   public static final long UNKNOWN_DATE = Long.MIN_VALUE;
+
+   /** Date format in the document. */
+   private static final String DATE_FORMAT = "E, d MMM yyyy HH:mm:ss Z";
+
+   /** Factory of parsers, it's thread-safe. */
+   private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+   /** Currencies by their keys in the document. */
+   private static final Map<String, Currency> CURRENCIES = new HashMap<>();
+
+   static {
+      for (Currency currency : Currency.values()) {
+         String name = currency.name();
+
+         if (name.equals(name.toUpperCase())) {
+            CURRENCIES.put(name.toLowerCase(), currency);
+         }
+      }
+   }
+
+   /** Rates by ordinal of currency, NaN if there is no rate. */
+   private final double[] rates = new double[Currency.values().length];
+
+   /** Inverse rates by ordinal of currency. */
+   private final double[] inverseRates = new double[rates.length];
+
+   /** Dates of rates in ms by ordinal of currency. */
+   private final long[] dates = new long[rates.length];
+
+   private FloatRatesDocument() {
+      Arrays.fill(rates, Double.NaN);
+      Arrays.fill(inverseRates, Double.NaN);
+      Arrays.fill(dates, UNKNOWN_DATE);
+   }
+
+   /**
+    * Reads the document from the stream.
+    *
+    * @param inputStream stream with the document
+    * @return rates of the document.
+    * @throws IOException if the document could not be read or it is incorrect.
+    */
+   public static FloatRatesDocument parse(InputStream inputStream) throws IOException {
+      FloatRatesDocument document = new FloatRatesDocument();
+      DateParser dateParser = new DateParser();
+
+      try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+         if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Document of floatrates.com is not an object");
+         }
+
+         while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Currency currency = CURRENCIES.get(parser.getCurrentName());
+
+            if (parser.nextToken() != JsonToken.START_OBJECT || currency == null) {
+               parser.skipChildren();
+               continue;
+            }
+
+            document.readQuote(parser, currency.ordinal(), dateParser);
+         }
+      }
+
+      return document;
+   }
+
+   /**
+    * @param currency currency
+    * @return true if the document has a rate of the currency.
+    */
+   public boolean contains(Currency currency) {
+      return !Double.isNaN(rates[currency.ordinal()]);
+   }
+
+   /**
+    * @param currency currency
+    * @return cost of 1 unit of the base currency in the currency, NaN if there is no rate.
+    */
+   public double getRate(Currency currency) {
+      return rates[currency.ordinal()];
+   }
+
+   /**
+    * @param currency currency
+    * @return cost of 1 unit of the currency in the base currency, NaN if there is no rate.
+    */
+   public double getInverseRate(Currency currency) {
+      return inverseRates[currency.ordinal()];
+   }
+
+   /**
+    * @param currency currency
+    * @return date of the rate in ms or {@link #UNKNOWN_DATE}.
+    */
+   public long getDate(Currency currency) {
+      return dates[currency.ordinal()];
+   }
+
+   private void readQuote(JsonParser parser, int index, DateParser dateParser) throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+         String field = parser.getCurrentName();
+         JsonToken value = parser.nextToken();
+
+         if (value.isNumeric() && "rate".equals(field)) {
+            rates[index] = parser.getDoubleValue();
+
+         } else if (value.isNumeric() && "inverseRate".equals(field)) {
+            inverseRates[index] = parser.getDoubleValue();
+
+         } else if (value == JsonToken.VALUE_STRING && "date".equals(field)) {
+            dates[index] = dateParser.parse(parser.getText());
+
+         } else {
+            parser.skipChildren();
+         }
+      }
+   }
+
+   /**
+    * Parser of dates, which remembers the last date, because all rates
+    * of a document usually have the same date.
+    */
+   private static class DateParser {
+
+      /** Date format in the document. */
+      private final SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.ENGLISH);
+
+      /** The last parsed text. */
+      private String lastText;
+
+      /** The last parsed date. */
+      private long lastDate;
+
+      long parse(String text) {
+         if (!text.equals(lastText)) {
+            try {
+               lastDate = format.parse(text).getTime();
+            } catch (ParseException e) {
+               lastDate = UNKNOWN_DATE;
+            }
+            lastText = text;
+         }
+
+         return lastDate;
+      }
+   }
+}
@@ -17,18 +17,57 @@ public class FreeCurrencyConverterApiCom implements ConverterAPI {
    /** API name. */
    private static final String API_NAME_FREE_CURRENCYAPI_COM = "free.currencyapi.com";
 
+   /** Limit of requests - 100 requests per hour. */
+   private static final RequestLimit REQUEST_LIMIT = new RequestLimit(100, RequestLimit.HOUR);
+
    /** URL for connection to API. */
    private static final String URL_FREE_CURRENCY_CONVERTER_API_COM = "http://free.currencyconverterapi.com/api/v5/convert?q=%s_%s&compact=y";
 
+   /** Client for requests to API. */
+   private final JsonHttpClient httpClient;
+
+   /** URL for connection to API. */
+   private final String urlFormat;
+
+   /**
+    * Creates converter, which sends requests by the given client.
+    *
+    * @param httpClient client for requests to API
+    */
+   public FreeCurrencyConverterApiCom(JsonHttpClient httpClient) {
+      this(httpClient, URL_FREE_CURRENCY_CONVERTER_API_COM);
+   }
+
+   /**
+    * Creates converter, which gets rates by the given URL.
+    *
+    * @param httpClient client for requests to API
+    * @param urlFormat URL for connection to API, where currencies are replaced by %s
+    */
+   FreeCurrencyConverterApiCom(JsonHttpClient httpClient, String urlFormat) {
+      this.httpClient = httpClient;
+      this.urlFormat = urlFormat;
+   }
+
    @Override
    public BigDecimal convert(Currency from, Currency to, BigDecimal value) throws IOException {
-      URL url = buildURL(URL_FREE_CURRENCY_CONVERTER_API_COM, from, to);
+      URL url = buildURL(urlFormat, from, to);
 
-      JSONObject object = getJsonObjectByURL(url);
+      JSONObject object = httpClient.getJsonObject(url);
 
       double one = object.getJSONObject(from + "_" + to).getDouble("val");
 
       writeToLog(API_NAME_FREE_CURRENCYAPI_COM, from, to, value);
-      return convertByOne(value, (float) one);
+      return convertByOne(value, one);
+   }
+
+   @Override
+   public RequestLimit getRequestLimit() {
+      return REQUEST_LIMIT;
+   }
+
+   @Override
+   public String getName() {
+      return API_NAME_FREE_CURRENCYAPI_COM;
    }
 }
@@ -2,15 +2,21 @@ package com.implemica.CurrencyConverter.service.converters;
 
 import com.implemica.CurrencyConverter.model.Currency;
 
-import javax.money.Monetary;
-import javax.money.MonetaryAmount;
-import javax.money.convert.CurrencyConversion;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ExchangeRateProvider;
 import javax.money.convert.MonetaryConversions;
 import java.math.BigDecimal;
 
 /**
  * Class for conversion currencies by Java money api.
  *
+ * The chain of providers (ECB, IMF) loads its rates, when it's created,
+ * and it's slow, so the chain is created once and may be created in
+ * background by {@link #warmUp()} before the first conversion. Rates are
+ * taken from the chain directly, without creation of amounts, and are
+ * cached by {@link com.implemica.CurrencyConverter.service.rates.RateCache}
+ * like rates of other APIs.
+ *
  * @author Dmytro K.
  */
 public class JavaMoney implements ConverterAPI {
@@ -18,18 +24,73 @@ public class JavaMoney implements ConverterAPI {
    /** API name. */
    private static final String API_NAME_JAVA_MONEY = "Java money api";
 
-   @Override
-   public BigDecimal convert(Currency from, Currency to, BigDecimal value) {
-      MonetaryAmount userMoney = Monetary.getDefaultAmountFactory()
-              .setCurrency(from.name())
-              .setNumber(1.0f).create();
+   /** Pair, which is converted by warm-up. */
+   private static final Currency[] WARM_UP_PAIR = {Currency.EUR, Currency.USD};
 
-      CurrencyConversion conversion = MonetaryConversions.getConversion(to.name());
-      MonetaryAmount converted = userMoney.with(conversion);
+   /** Default chain of providers, null if it's not created yet. */
+   private volatile ExchangeRateProvider provider;
 
-      Float one = converted.getNumber().floatValue();
+   @Override
+   public BigDecimal convert(Currency from, Currency to, BigDecimal value) {
+      BigDecimal one = getRate(from, to);
 
       writeToLog(API_NAME_JAVA_MONEY, from, to, value);
       return convertByOne(value, one);
    }
+
+   /**
+    * Function creates the chain of providers and receives a rate in a
+    * background thread, so the first conversion doesn't wait for loading
+    * of rates. Errors are only logged, the conversion will try again.
+    */
+   @Override
+   public void warmUp() {
+      Thread thread = new Thread(() -> {
+         try {
+            getRate(WARM_UP_PAIR[0], WARM_UP_PAIR[1]);
+            logger.info(API_NAME_JAVA_MONEY + " is ready");
+
+         } catch (RuntimeException e) {
+            logger.warn(API_NAME_JAVA_MONEY + " was not warmed up: " + e);
+         }
+      }, "java-money-warm-up");
+
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   @Override
+   public String getName() {
+      return API_NAME_JAVA_MONEY;
+   }
+
+   /**
+    * Function receives the rate of the pair from the chain of providers.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return the cost of 1 unit.
+    */
+   private BigDecimal getRate(Currency from, Currency to) {
+      ExchangeRate rate = getProvider().getExchangeRate(from.name(), to.name());
+      return rate.getFactor().numberValue(BigDecimal.class);
+   }
+
+   /**
+    * @return default chain of providers, it's created on the first call.
+    */
+   private ExchangeRateProvider getProvider() {
+      ExchangeRateProvider chain = provider;
+
+      if (chain == null) {
+         synchronized (this) {
+            if (provider == null) {
+               provider = MonetaryConversions.getExchangeRateProvider();
+            }
+            chain = provider;
+         }
+      }
+
+      return chain;
+   }
 }
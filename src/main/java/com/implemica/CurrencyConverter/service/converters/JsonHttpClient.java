@@ -0,0 +1,166 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client, which is shared by all converters, which receive JSON
+ * documents.
+ *
+ * Connections are kept alive and are reused from a pool, so a call to the
+ * same API doesn't need a new TCP handshake. Time of connection and time
+ * of reading are limited, so a call can't hang forever. Responses are
+ * requested in gzip and are decompressed by the client.
+ *
+ * @see ConverterAPI
+ *
+ * @author Dmytro K.
+ */
+public class JsonHttpClient implements Closeable {
+
+   /** HTTP status OK. */
+   private static final int STATUS_OK = 200;
+
+   /** Time in ms after which an idle connection is closed. */
+   private static final long IDLE_TIMEOUT = 30 * 1000;
+
+   /** Pool of connections. */
+   private final PoolingHttpClientConnectionManager connectionManager;
+
+   /** HTTP client. */
+   private final CloseableHttpClient client;
+
+   /**
+    * Creates client.
+    *
+    * @param maxConnections max count of connections in the pool
+    * @param connectTimeout time for connection to server in ms
+    * @param readTimeout time of waiting for data from server in ms
+    */
+   public JsonHttpClient(int maxConnections, int connectTimeout, int readTimeout) {
+      connectionManager = new PoolingHttpClientConnectionManager();
+      connectionManager.setMaxTotal(maxConnections);
+      connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+      RequestConfig config = RequestConfig.custom()
+              .setConnectTimeout(connectTimeout)
+              .setConnectionRequestTimeout(connectTimeout)
+              .setSocketTimeout(readTimeout)
+              .build();
+
+      client = HttpClients.custom()
+              .setConnectionManager(connectionManager)
+              .setDefaultRequestConfig(config)
+              .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+              .evictIdleConnections(IDLE_TIMEOUT, TimeUnit.MILLISECONDS)
+              .build();
+   }
+
+   /**
+    * Gets a json object by url. The connection is returned to the pool
+    * after the document is read.
+    *
+    * @param url address
+    * @return an instance of {@link JSONObject}
+    * @throws IOException if an I/O exception occurs, or server returned
+    *               an error or an incorrect document.
+    */
+   public JSONObject getJsonObject(URL url) throws IOException {
+      return get(url, inputStream -> {
+         try {
+            return new JSONObject(new JSONTokener(inputStream));
+         } catch (JSONException e) {
+            throw new IOException("Incorrect document from " + url.getHost(), e);
+         }
+      });
+   }
+
+   /**
+    * Gets a document by url and reads it by the given reader, so the
+    * document can be read as a stream without building of
+    * {@link JSONObject}. The connection is returned to the pool after
+    * the document is read.
+    *
+    * @param url address
+    * @param reader reader of the document
+    * @param <T> type of result
+    * @return result of the reader.
+    * @throws IOException if an I/O exception occurs, or server returned
+    *               an error or an incorrect document.
+    */
+   public <T> T get(URL url, ResponseReader<T> reader) throws IOException {
+      HttpGet request;
+
+      try {
+         request = new HttpGet(url.toURI());
+      } catch (URISyntaxException e) {
+         throw new IOException("Incorrect URL: " + url, e);
+      }
+
+      try (CloseableHttpResponse response = client.execute(request)) {
+         HttpEntity entity = response.getEntity();
+         int status = response.getStatusLine().getStatusCode();
+
+         if (status != STATUS_OK || entity == null) {
+            EntityUtils.consume(entity);
+            throw new IOException("Server returned HTTP " + status + " for " + url.getHost());
+         }
+
+         try (InputStream inputStream = entity.getContent()) {
+            T result = reader.read(inputStream);
+            EntityUtils.consume(entity);
+            return result;
+         }
+      }
+   }
+
+   /**
+    * @return count of open connections, which wait in the pool.
+    */
+   public int getIdleConnections() {
+      return connectionManager.getTotalStats().getAvailable();
+   }
+
+   /**
+    * Closes all connections.
+    */
+   @Override
+   public void close() throws IOException {
+      client.close();
+   }
+
+   /**
+    * Reader of a document from the stream.
+    *
+    * @param <T> type of result
+    */
+   @FunctionalInterface
+   public interface ResponseReader<T> {
+
+      /**
+       * Reads the document.
+       *
+       * @param inputStream stream with the document
+       * @return result.
+       * @throws IOException if the document could not be read or it is incorrect.
+       */
+      T read(InputStream inputStream) throws IOException;
+   }
+}
@@ -0,0 +1,37 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import lombok.Getter;
+
+/**
+ * Limit of requests to API, for example 100 requests per hour.
+ *
+ * @see ConverterAPI#getRequestLimit()
+ *
+ * @author Dmytro K.
+ */
+@Getter
+public class RequestLimit {
+
+   /** One hour in milliseconds. */
+   public static final long HOUR = 60 * 60 * 1000L;
+
+   /** One month (30 days) in milliseconds. */
+   public static final long MONTH = 30 * 24 * HOUR;
+
+   /** Count of requests, which are allowed during the period. */
+   private final long requests;
+
+   /** Period in ms. */
+   private final long period;
+
+   /**
+    * Creates a limit.
+    *
+    * @param requests count of requests, which are allowed during the period
+    * @param period period in ms
+    */
+   public RequestLimit(long requests, long period) {
+      this.requests = requests;
+      this.period = period;
+   }
+}
@@ -0,0 +1,423 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.model.Currency;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory cache of exchange rates.
+ *
+ * The cache stores the cost of 1 unit of one currency in another
+ * currency together with the time when the rate was fetched. A rate
+ * is fresh while it is younger than {@link #timeToLive}. After that it
+ * is stale, but it is kept and can be served by {@link #getStale}
+ * while a new rate is being fetched, up to {@link #maxStaleness}. The
+ * cache never keeps more than {@link #maxSize} pairs.
+ *
+ * Rates are kept in {@link RateMatrix} indexed by ordinals of currencies,
+ * so a lookup is a read of one cell without boxing of keys and without
+ * objects of entries. The exact {@link BigDecimal}, which was put, is kept
+ * in a side array by the same index and is returned by {@link #get} and
+ * {@link #getStale}, while it matches the rate of the cell, so a rate from
+ * the cache has the same digits as the rate, which was put. Rates of
+ * snapshots and cross rates have no exact value.
+ *
+ * Every put rate is also added to {@link RateGraph}, so a pair, which
+ * was never fetched, can be answered by {@link #getCross} from fresh
+ * rates through pivot currencies, and is passed to listeners, for
+ * example, to {@link RateHistory}.
+ *
+ * @see com.implemica.CurrencyConverter.service.ConverterService
+ *
+ * @author Dmytro K.
+ */
+public class RateCache {
+
+   /** All currencies by ordinal. */
+   private static final Currency[] CURRENCIES = Currency.values();
+
+   /** Count of currencies, needed for building indexes of pairs. */
+   private static final int CURRENCIES_COUNT = CURRENCIES.length;
+
+   /** Part of {@link #maxSize}, which is removed at once when the cache is full. */
+   private static final int EVICTION_DIVISOR = 10;
+
+   /** Stores rates by ordinals of currencies of pair. */
+   private final RateMatrix rates = new RateMatrix(CURRENCIES_COUNT, CURRENCIES_COUNT);
+
+   /** Exact rates by index of cell of {@link #rates}. */
+   private final AtomicReferenceArray<BigDecimal> exactRates = new AtomicReferenceArray<>(CURRENCIES_COUNT * CURRENCIES_COUNT);
+
+   /** Time in ms during which a rate is fresh. */
+   private final long timeToLive;
+
+   /** Time in ms after which a stale rate can't be used. */
+   private final long maxStaleness;
+
+   /** Max count of pairs in the cache. */
+   private final int maxSize;
+
+   /** Clock, which is used for getting the time of fetching. */
+   private final Clock clock;
+
+   /** Graph of rates through pivot currencies. */
+   private final RateGraph graph;
+
+   /** Consumers, which get every put rate. */
+   private final List<RateConsumer> listeners = new CopyOnWriteArrayList<>();
+
+   /**
+    * Creates a new cache, which doesn't serve stale rates.
+    *
+    * @param timeToLive time in ms during which a rate is valid
+    * @param maxSize max count of pairs in the cache
+    */
+   public RateCache(long timeToLive, int maxSize) {
+      this(timeToLive, timeToLive, maxSize);
+   }
+
+   /**
+    * Creates a new cache.
+    *
+    * @param timeToLive time in ms during which a rate is fresh
+    * @param maxStaleness time in ms after which a stale rate can't be used
+    * @param maxSize max count of pairs in the cache
+    */
+   public RateCache(long timeToLive, long maxStaleness, int maxSize) {
+      this(timeToLive, maxStaleness, maxSize, RateGraph.DEFAULT_PIVOTS);
+   }
+
+   /**
+    * Creates a new cache with the given pivot currencies of cross rates.
+    *
+    * @param timeToLive time in ms during which a rate is fresh
+    * @param maxStaleness time in ms after which a stale rate can't be used
+    * @param maxSize max count of pairs in the cache
+    * @param pivots pivot currencies of cross rates
+    */
+   public RateCache(long timeToLive, long maxStaleness, int maxSize, Currency[] pivots) {
+      this(timeToLive, maxStaleness, maxSize, pivots, Clock.systemUTC());
+   }
+
+   /**
+    * Creates a new cache with the given clock, which doesn't serve stale rates.
+    *
+    * @param timeToLive time in ms during which a rate is valid
+    * @param maxSize max count of pairs in the cache
+    * @param clock source of current time
+    */
+   RateCache(long timeToLive, int maxSize, Clock clock) {
+      this(timeToLive, timeToLive, maxSize, clock);
+   }
+
+   /**
+    * Creates a new cache with the given clock.
+    *
+    * @param timeToLive time in ms during which a rate is fresh
+    * @param maxStaleness time in ms after which a stale rate can't be used
+    * @param maxSize max count of pairs in the cache
+    * @param clock source of current time
+    */
+   RateCache(long timeToLive, long maxStaleness, int maxSize, Clock clock) {
+      this(timeToLive, maxStaleness, maxSize, RateGraph.DEFAULT_PIVOTS, clock);
+   }
+
+   /**
+    * Creates a new cache with the given pivot currencies and clock.
+    *
+    * @param timeToLive time in ms during which a rate is fresh
+    * @param maxStaleness time in ms after which a stale rate can't be used
+    * @param maxSize max count of pairs in the cache
+    * @param pivots pivot currencies of cross rates
+    * @param clock source of current time
+    */
+   RateCache(long timeToLive, long maxStaleness, int maxSize, Currency[] pivots, Clock clock) {
+      this.timeToLive = timeToLive;
+      this.maxStaleness = Math.max(timeToLive, maxStaleness);
+      this.maxSize = maxSize;
+      this.clock = clock;
+      this.graph = new RateGraph(pivots);
+   }
+
+   /**
+    * Gets the fresh cost of 1 unit of currency {@code from} in currency {@code to}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return rate or null if there is no fresh rate for the pair.
+    */
+   public BigDecimal get(Currency from, Currency to) {
+      return toExact(from, to, getRate(from, to, timeToLive));
+   }
+
+   /**
+    * Gets the fresh cross rate of currency {@code from} in currency {@code to}
+    * through pivot currencies, see {@link RateGraph}. Both rates of the
+    * path have to be fresh.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return rate or null if no pivot has fresh rates for the pair.
+    */
+   public BigDecimal getCross(Currency from, Currency to) {
+      return toBigDecimal(graph.getRate(from, to, clock.millis() - timeToLive + 1));
+   }
+
+   /**
+    * Gets the cost of 1 unit of currency {@code from} in currency {@code to},
+    * which may be stale, but is not older than {@link #maxStaleness}.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return rate or null if there is no usable rate for the pair.
+    */
+   public BigDecimal getStale(Currency from, Currency to) {
+      return toExact(from, to, getRate(from, to, maxStaleness));
+   }
+
+   /**
+    * Gets the cost of 1 unit of currency {@code from} in currency {@code to},
+    * which is younger than the given age, without creating of objects.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param maxAge max age of the rate in ms
+    * @return rate or NaN if there is no such rate for the pair.
+    */
+   public double getRate(Currency from, Currency to, long maxAge) {
+      int cell = cell(from, to);
+      long now = clock.millis();
+      double rate = rates.get(cell, now - maxAge + 1);
+
+      if (Double.isNaN(rate)) {
+         rates.remove(cell, now - maxStaleness + 1);
+      }
+
+      return rate;
+   }
+
+   /**
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @return time of fetching of the rate in ms or -1 if there is no usable rate for the pair.
+    */
+   public long getFetchedAt(Currency from, Currency to) {
+      int cell = cell(from, to);
+      long fetched = rates.getFetched(cell);
+
+      if (fetched == RateMatrix.EMPTY || isExpired(fetched, clock.millis())) {
+         rates.remove(cell, clock.millis() - maxStaleness + 1);
+         return -1;
+      }
+
+      return fetched;
+   }
+
+   /**
+    * @return time in ms after which a stale rate can't be used.
+    */
+   public long getMaxStaleness() {
+      return maxStaleness;
+   }
+
+   /**
+    * Puts the cost of 1 unit of currency {@code from} in currency {@code to}.
+    * If a newer rate of the pair was put by another thread, the rate is
+    * skipped and is not passed to listeners.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate cost of 1 unit
+    */
+   public void put(Currency from, Currency to, BigDecimal rate) {
+      long now = clock.millis();
+      double value = rate.doubleValue();
+      int cell = cell(from, to);
+
+      if (!rates.put(cell, value, now)) {
+         return;
+      }
+
+      exactRates.set(cell, rate);
+
+      graph.update(from, to, value, now);
+
+      for (RateConsumer listener : listeners) {
+         listener.accept(from, to, value, now);
+      }
+
+      if (rates.size() > maxSize) {
+         evict();
+      }
+   }
+
+   /**
+    * Adds the consumer, which gets every rate put by {@link #put}.
+    * The consumer is called in the thread, which puts the rate, so it
+    * has to return at once.
+    *
+    * @param listener consumer of rates
+    */
+   public void addListener(RateConsumer listener) {
+      listeners.add(listener);
+   }
+
+   /**
+    * Puts the rate, which was fetched at the given time, for example, a
+    * rate from a snapshot of the cache. A rate older than
+    * {@link #maxStaleness} is skipped.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate cost of 1 unit
+    * @param fetched time of fetching in ms
+    * @return true if the rate was put, false if it's expired or the pair has a newer rate.
+    */
+   public boolean restore(Currency from, Currency to, double rate, long fetched) {
+      long now = clock.millis();
+      long time = Math.min(fetched, now);
+
+      if (from == to || Double.isNaN(rate) || isExpired(time, now)) {
+         return false;
+      }
+
+      int cell = cell(from, to);
+
+      if (!rates.put(cell, rate, time)) {
+         return false;
+      }
+
+      exactRates.set(cell, null);
+
+      graph.update(from, to, rate, time);
+
+      if (rates.size() > maxSize) {
+         evict();
+      }
+      return true;
+   }
+
+   /**
+    * Passes every usable rate of the cache to the consumer.
+    *
+    * @param consumer consumer of rates
+    */
+   public void forEach(RateConsumer consumer) {
+      long now = clock.millis();
+
+      for (int cell = 0; cell < rates.capacity(); cell++) {
+         long fetched = rates.getFetched(cell);
+
+         if (fetched == RateMatrix.EMPTY || isExpired(fetched, now)) {
+            continue;
+         }
+
+         double rate = rates.get(cell, fetched);
+
+         if (!Double.isNaN(rate)) {
+            consumer.accept(CURRENCIES[cell / CURRENCIES_COUNT], CURRENCIES[cell % CURRENCIES_COUNT], rate, fetched);
+         }
+      }
+   }
+
+   /**
+    * @return count of pairs in the cache.
+    */
+   public int size() {
+      return rates.size();
+   }
+
+   /**
+    * Removes all rates, which are older than {@link #maxStaleness},
+    * and if the cache is still too big, removes the oldest ones, so
+    * that the next puts have free place without another eviction.
+    */
+   private synchronized void evict() {
+      long expiredBefore = clock.millis() - maxStaleness + 1;
+
+      for (int cell = 0; cell < rates.capacity(); cell++) {
+         rates.remove(cell, expiredBefore);
+      }
+
+      int excess = rates.size() - (maxSize - maxSize / EVICTION_DIVISOR);
+
+      if (rates.size() <= maxSize || excess <= 0) {
+         return;
+      }
+
+      long[] times = new long[rates.size()];
+      int count = 0;
+
+      for (int cell = 0; cell < rates.capacity() && count < times.length; cell++) {
+         long fetched = rates.getFetched(cell);
+
+         if (fetched != RateMatrix.EMPTY) {
+            times[count++] = fetched;
+         }
+      }
+
+      if (count == 0) {
+         return;
+      }
+
+      Arrays.sort(times, 0, count);
+      long removedBefore = times[Math.min(excess, count) - 1] + 1;
+
+      for (int cell = 0; cell < rates.capacity(); cell++) {
+         rates.remove(cell, removedBefore);
+      }
+   }
+
+   private boolean isExpired(long fetched, long now) {
+      return now - fetched >= maxStaleness;
+   }
+
+   /**
+    * Returns the exact rate of the pair, if it matches the rate of the
+    * cell. It doesn't match for a short time, when another thread puts a
+    * rate, then the rate of the cell is used.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate rate of the cell or NaN
+    * @return rate or null if the rate is NaN.
+    */
+   private BigDecimal toExact(Currency from, Currency to, double rate) {
+      if (Double.isNaN(rate)) {
+         return null;
+      }
+
+      BigDecimal exact = exactRates.get(cell(from, to));
+      return exact != null && exact.doubleValue() == rate ? exact : BigDecimal.valueOf(rate);
+   }
+
+   private static BigDecimal toBigDecimal(double rate) {
+      return Double.isNaN(rate) ? null : BigDecimal.valueOf(rate);
+   }
+
+   private static int cell(Currency from, Currency to) {
+      return from.ordinal() * CURRENCIES_COUNT + to.ordinal();
+   }
+
+   /**
+    * Consumer of rates.
+    */
+   @FunctionalInterface
+   public interface RateConsumer {
+
+      /**
+       * Gets a rate.
+       *
+       * @param from currency to convert from
+       * @param to currency for conversion to
+       * @param rate cost of 1 unit
+       * @param fetched time of fetching in ms
+       */
+      void accept(Currency from, Currency to, double rate, long fetched);
+   }
+}
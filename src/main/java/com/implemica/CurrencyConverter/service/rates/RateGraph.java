@@ -0,0 +1,136 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.model.Currency;
+
+import java.util.Arrays;
+
+/**
+ * Graph of direct rates, which answers any pair of currencies by cross
+ * rates through pivot currencies.
+ *
+ * The graph keeps only edges between pivots and the other currencies:
+ * for each pivot it has the cost of 1 unit of every currency in the
+ * pivot. An edge is updated, when a rate from or to the pivot arrives,
+ * so the cross rate of {@code from -> to} through a pivot is read from
+ * two cells: cost of {@code from} in the pivot divided by cost of
+ * {@code to} in the pivot. A lookup reads two cells per pivot and
+ * doesn't depend on count of known rates. If several pivots can answer
+ * the pair, the path with the freshest rates is used. Edges are kept in
+ * {@link RateMatrix}, where a row is a pivot.
+ *
+ * @see RateCache#getCross(Currency, Currency)
+ *
+ * @author Dmytro K.
+ */
+public class RateGraph {
+
+   /** Pivot currencies by default. */
+   public static final Currency[] DEFAULT_PIVOTS = {Currency.USD, Currency.EUR, Currency.UAH};
+
+   /** Count of currencies. */
+   private static final int CURRENCIES_COUNT = Currency.values().length;
+
+   /** Pivot currencies. */
+   private final Currency[] pivots;
+
+   /** Index of the pivot by ordinal of currency, -1 if currency is not a pivot. */
+   private final int[] pivotIndexes = new int[CURRENCIES_COUNT];
+
+   /** Costs of 1 unit of currency in the pivot, by index of the pivot and ordinal of currency. */
+   private final RateMatrix edges;
+
+   /**
+    * Creates an empty graph.
+    *
+    * @param pivots pivot currencies
+    */
+   public RateGraph(Currency... pivots) {
+      this.pivots = pivots.clone();
+      this.edges = new RateMatrix(pivots.length, CURRENCIES_COUNT);
+
+      Arrays.fill(pivotIndexes, -1);
+
+      for (int i = 0; i < pivots.length; i++) {
+         pivotIndexes[pivots[i].ordinal()] = i;
+      }
+   }
+
+   /**
+    * Adds the cost of 1 unit of currency {@code from} in currency {@code to}
+    * to the graph. Rates between two currencies, which are not pivots,
+    * are ignored. An older rate doesn't replace a newer one.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate cost of 1 unit
+    * @param fetched time of fetching in ms
+    */
+   public void update(Currency from, Currency to, double rate, long fetched) {
+      if (from == to || !(rate > 0) || Double.isInfinite(rate)) {
+         return;
+      }
+
+      int toPivot = pivotIndexes[to.ordinal()];
+      if (toPivot >= 0) {
+         edges.put(edges.cell(toPivot, from.ordinal()), rate, fetched);
+      }
+
+      int fromPivot = pivotIndexes[from.ordinal()];
+      if (fromPivot >= 0) {
+         edges.put(edges.cell(fromPivot, to.ordinal()), 1 / rate, fetched);
+      }
+   }
+
+   /**
+    * Gets the cross rate of the pair through the pivot with the freshest
+    * rates.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param notBefore min time of fetching of both rates of the path in ms
+    * @return cost of 1 unit of {@code from} in {@code to} or NaN if no pivot can answer the pair.
+    */
+   public double getRate(Currency from, Currency to, long notBefore) {
+      double best = Double.NaN;
+      long bestFetched = Long.MIN_VALUE;
+
+      for (int i = 0; i < pivots.length; i++) {
+         long fetched = Math.min(getFetched(i, from), getFetched(i, to));
+
+         if (fetched == RateMatrix.EMPTY || fetched < notBefore || fetched <= bestFetched) {
+            continue;
+         }
+
+         double rate = getEdge(i, from, fetched) / getEdge(i, to, fetched);
+
+         if (!Double.isNaN(rate)) {
+            best = rate;
+            bestFetched = fetched;
+         }
+      }
+
+      return best;
+   }
+
+   /**
+    * @return pivot currencies.
+    */
+   public Currency[] getPivots() {
+      return pivots.clone();
+   }
+
+   /**
+    * @return time of fetching of the edge from the currency to the pivot,
+    *         the edge of the pivot itself is never old.
+    */
+   private long getFetched(int pivot, Currency currency) {
+      return pivots[pivot] == currency ? Long.MAX_VALUE : edges.getFetched(edges.cell(pivot, currency.ordinal()));
+   }
+
+   /**
+    * @return cost of 1 unit of the currency in the pivot, 1 for the pivot itself.
+    */
+   private double getEdge(int pivot, Currency currency, long notBefore) {
+      return pivots[pivot] == currency ? 1 : edges.get(edges.cell(pivot, currency.ordinal()), notBefore);
+   }
+}
@@ -0,0 +1,289 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.dao.RateHistoryDao;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.RateBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * History of rates of all currency pairs.
+ *
+ * Every rate, which is put to {@link RateCache}, is appended to
+ * {@link RateSeries} of its pair, so range queries and bars of hours or
+ * days are answered from memory. Observations are written to
+ * {@link RateHistoryDao} by a background thread: the thread, which
+ * puts a rate, only adds the observation to a bounded queue, and if the
+ * queue is full, the observation is kept in memory only, so recording
+ * never blocks conversions. Observations older than {@link #retention}
+ * are dropped.
+ *
+ * @see RateCache#addListener(RateCache.RateConsumer)
+ *
+ * @author Dmytro K.
+ */
+public class RateHistory {
+
+   /** Hour in ms. */
+   public static final long HOUR = 60 * 60 * 1000L;
+
+   /** Day in ms. */
+   public static final long DAY = 24 * HOUR;
+
+   /** Max count of days in a requested period. */
+   public static final int MAX_DAYS = 90;
+
+   /** Max count of hours in a requested period. */
+   public static final int MAX_HOURS = 72;
+
+   /** Pattern of a period, count of days or hours (E. g. : 30d, 24h). */
+   private static final Pattern PERIOD = Pattern.compile("(\\d{1,3})([dDhH])");
+
+   /** Count of currencies, needed for building indexes of pairs. */
+   private static final int CURRENCIES_COUNT = Currency.values().length;
+
+   /** Max count of observations, which wait for writing. */
+   private static final int QUEUE_SIZE = 10000;
+
+   /** Time in ms between writings of observations. */
+   private static final long FLUSH_INTERVAL = 1000;
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Series by index of currency pair. */
+   private final AtomicReferenceArray<RateSeries> series = new AtomicReferenceArray<>(CURRENCIES_COUNT * CURRENCIES_COUNT);
+
+   /** Observations, which wait for writing. */
+   private final BlockingQueue<Observation> pending = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+   /** Count of observations, which were not written, because the queue was full. */
+   private final AtomicLong dropped = new AtomicLong();
+
+   /** Storage of observations. */
+   private final RateHistoryDao historyDao;
+
+   /** Time in ms during which observations are kept. */
+   private final long retention;
+
+   /** Clock, which is used for dropping old observations. */
+   private final Clock clock;
+
+   /** Day of the last removal of old observations from the storage. */
+   private long cleanedDay;
+
+   /** Executor for writings. */
+   private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "rate-history-writer");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates history.
+    *
+    * @param historyDao storage of observations
+    * @param retention time in ms during which observations are kept
+    */
+   public RateHistory(RateHistoryDao historyDao, long retention) {
+      this(historyDao, retention, Clock.systemUTC());
+   }
+
+   /**
+    * Creates history with the given clock.
+    *
+    * @param historyDao storage of observations
+    * @param retention time in ms during which observations are kept
+    * @param clock source of current time
+    */
+   RateHistory(RateHistoryDao historyDao, long retention, Clock clock) {
+      this.historyDao = historyDao;
+      this.retention = retention;
+      this.clock = clock;
+   }
+
+   /**
+    * Loads observations from the storage and starts writing of new ones.
+    */
+   public void start() {
+      long since = clock.millis() - retention;
+
+      historyDao.deleteBefore(since);
+      cleanedDay = Math.floorDiv(clock.millis(), DAY);
+
+      int count = historyDao.load(since, (from, to, rate, time) -> getSeries(from, to).append(time, rate, since));
+      logger.info("History of " + count + " rates was loaded");
+
+      writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops writing and writes all waiting observations.
+    */
+   public void stop() {
+      writer.shutdownNow();
+      flush();
+   }
+
+   /**
+    * Records the observation of the rate. The function doesn't block.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param rate cost of 1 unit
+    * @param time time of observation in ms
+    */
+   public void record(Currency from, Currency to, double rate, long time) {
+      if (from == to || !(rate > 0) || Double.isInfinite(rate)) {
+         return;
+      }
+
+      if (getSeries(from, to).append(time, rate, clock.millis() - retention)
+              && !pending.offer(new Observation(from, to, rate, time))) {
+         dropped.incrementAndGet();
+      }
+   }
+
+   /**
+    * Gets bars of the pair during the range.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param start start of the range in ms, inclusive
+    * @param end end of the range in ms, exclusive
+    * @param barSize size of a bar in ms, for example {@link #HOUR} or {@link #DAY}
+    * @return bars in time order, a bar is present only if the pair has observations during it.
+    */
+   public List<RateBar> getBars(Currency from, Currency to, long start, long end, long barSize) {
+      RateSeries pairSeries = series.get(index(from, to));
+      return pairSeries == null ? Collections.emptyList() : pairSeries.getBars(start, end, barSize);
+   }
+
+   /**
+    * Gets bars of the pair during the given time till now.
+    *
+    * @param from currency to convert from
+    * @param to currency for conversion to
+    * @param period time in ms before now
+    * @param barSize size of a bar in ms, for example {@link #HOUR} or {@link #DAY}
+    * @return bars in time order.
+    */
+   public List<RateBar> getLastBars(Currency from, Currency to, long period, long barSize) {
+      long now = clock.millis();
+      return getBars(from, to, Math.floorDiv(now - period, barSize) * barSize + barSize, now + 1, barSize);
+   }
+
+   /**
+    * @return count of observations, which were not written to the storage.
+    */
+   public long getDropped() {
+      return dropped.get();
+   }
+
+   /**
+    * Parses the period, which is given as count of days or hours (E. g. : 30d, 24h).
+    *
+    * @param period period given by user
+    * @return period in ms, it is a whole count of {@link #DAY} or {@link #HOUR}.
+    * @throws ParseException if the period is incorrect or longer than {@link #MAX_DAYS} or {@link #MAX_HOURS}
+    */
+   public static long parsePeriod(String period) throws ParseException {
+      Matcher matcher = PERIOD.matcher(period.trim());
+
+      if (matcher.matches()) {
+         int count = Integer.parseInt(matcher.group(1));
+         boolean days = Character.toLowerCase(matcher.group(2).charAt(0)) == 'd';
+
+         if (count > 0 && count <= (days ? MAX_DAYS : MAX_HOURS)) {
+            return count * (days ? DAY : HOUR);
+         }
+      }
+
+      throw new ParseException("Invalid period: " + period, 0);
+   }
+
+   /**
+    * @param period period in ms
+    * @return size of bars for the period: hours for periods up to {@link #MAX_HOURS}, days otherwise.
+    */
+   public static long getBarSize(long period) {
+      return period > MAX_HOURS * HOUR ? DAY : HOUR;
+   }
+
+   /**
+    * Function writes all waiting observations to the storage and removes
+    * old observations from the storage once a day.
+    */
+   synchronized void flush() {
+      try {
+         List<Observation> observations = new ArrayList<>();
+         pending.drainTo(observations);
+
+         for (Observation observation : observations) {
+            historyDao.append(observation.from, observation.to, observation.rate, observation.time);
+         }
+         historyDao.flush();
+
+         long today = Math.floorDiv(clock.millis(), DAY);
+         if (today != cleanedDay) {
+            historyDao.deleteBefore(clock.millis() - retention);
+            cleanedDay = today;
+         }
+
+      } catch (RuntimeException e) {
+         logger.error("History of rates was not saved", e);
+      }
+   }
+
+   private RateSeries getSeries(Currency from, Currency to) {
+      int index = index(from, to);
+      RateSeries pairSeries = series.get(index);
+
+      if (pairSeries == null) {
+         series.compareAndSet(index, null, new RateSeries());
+         pairSeries = series.get(index);
+      }
+
+      return pairSeries;
+   }
+
+   private static int index(Currency from, Currency to) {
+      return from.ordinal() * CURRENCIES_COUNT + to.ordinal();
+   }
+
+   /**
+    * Observation, which waits for writing.
+    */
+   private static final class Observation {
+
+      /** Currency to convert from. */
+      private final Currency from;
+
+      /** Currency for conversion to. */
+      private final Currency to;
+
+      /** Cost of 1 unit. */
+      private final double rate;
+
+      /** Time of observation in ms. */
+      private final long time;
+
+      private Observation(Currency from, Currency to, double rate, long time) {
+         this.from = from;
+         this.to = to;
+         this.rate = rate;
+         this.time = time;
+      }
+   }
+}
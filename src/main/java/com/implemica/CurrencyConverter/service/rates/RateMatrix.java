@@ -0,0 +1,185 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dense matrix of rates with the time of fetching in every cell.
+ *
+ * Rates and times are kept in primitive arrays, so the matrix doesn't
+ * create objects neither on reading nor on writing. A cell is read and
+ * written with its own version: a writer makes the version odd while it
+ * changes the cell, and a reader retries, if the version was odd or was
+ * changed during reading, so a reader never sees a rate with the time
+ * of another rate.
+ *
+ * @see RateCache
+ * @see RateGraph
+ *
+ * @author Dmytro K.
+ */
+public class RateMatrix {
+
+   /** Time of fetching of an empty cell. */
+   public static final long EMPTY = Long.MIN_VALUE;
+
+   /** Count of columns. */
+   private final int columns;
+
+   /** Versions of cells, odd while a cell is being written. */
+   private final AtomicLongArray versions;
+
+   /** Bits of rates by index of cell. */
+   private final AtomicLongArray values;
+
+   /** Times of fetching in ms by index of cell. */
+   private final AtomicLongArray fetched;
+
+   /** Count of filled cells. */
+   private final AtomicInteger size = new AtomicInteger();
+
+   /**
+    * Creates an empty matrix.
+    *
+    * @param rows count of rows
+    * @param columns count of columns
+    */
+   public RateMatrix(int rows, int columns) {
+      this.columns = columns;
+      this.versions = new AtomicLongArray(rows * columns);
+      this.values = new AtomicLongArray(rows * columns);
+      this.fetched = new AtomicLongArray(rows * columns);
+
+      for (int i = 0; i < fetched.length(); i++) {
+         fetched.set(i, EMPTY);
+      }
+   }
+
+   /**
+    * @param row index of row
+    * @param column index of column
+    * @return index of the cell.
+    */
+   public int cell(int row, int column) {
+      return row * columns + column;
+   }
+
+   /**
+    * @return count of cells.
+    */
+   public int capacity() {
+      return fetched.length();
+   }
+
+   /**
+    * Gets the rate of the cell, if it was fetched not before the given time.
+    *
+    * @param cell index of cell
+    * @param notBefore min time of fetching in ms
+    * @return rate or NaN if the cell is empty or the rate is older.
+    */
+   public double get(int cell, long notBefore) {
+      long version;
+      long time;
+      long value;
+
+      do {
+         version = versions.get(cell);
+         time = fetched.get(cell);
+         value = values.get(cell);
+      } while ((version & 1) != 0 || version != versions.get(cell));
+
+      return time != EMPTY && time >= notBefore ? Double.longBitsToDouble(value) : Double.NaN;
+   }
+
+   /**
+    * @param cell index of cell
+    * @return time of fetching of the rate in ms or {@link #EMPTY}.
+    */
+   public long getFetched(int cell) {
+      return fetched.get(cell);
+   }
+
+   /**
+    * Puts the rate to the cell. An older rate doesn't replace a newer one.
+    *
+    * @param cell index of cell
+    * @param rate rate
+    * @param time time of fetching in ms
+    * @return false if the cell has a newer rate, so the rate was not put.
+    */
+   public boolean put(int cell, double rate, long time) {
+      lock(cell);
+
+      try {
+         long current = fetched.get(cell);
+
+         if (current == EMPTY) {
+            size.incrementAndGet();
+         } else if (current > time) {
+            return false;
+         }
+
+         values.set(cell, Double.doubleToRawLongBits(rate));
+         fetched.set(cell, time);
+         return true;
+
+      } finally {
+         unlock(cell);
+      }
+   }
+
+   /**
+    * Clears the cell, if its rate was fetched before the given time.
+    *
+    * @param cell index of cell
+    * @param before time in ms, rates fetched before it are removed
+    * @return true if the cell was cleared.
+    */
+   public boolean remove(int cell, long before) {
+      long current = fetched.get(cell);
+
+      if (current == EMPTY || current >= before) {
+         return false;
+      }
+
+      lock(cell);
+
+      try {
+         current = fetched.get(cell);
+
+         if (current == EMPTY || current >= before) {
+            return false;
+         }
+
+         fetched.set(cell, EMPTY);
+         size.decrementAndGet();
+         return true;
+
+      } finally {
+         unlock(cell);
+      }
+   }
+
+   /**
+    * @return count of filled cells.
+    */
+   public int size() {
+      return size.get();
+   }
+
+   private void lock(int cell) {
+      while (true) {
+         long version = versions.get(cell);
+
+         if ((version & 1) == 0 && versions.compareAndSet(cell, version, version + 1)) {
+            return;
+         }
+         Thread.yield();
+      }
+   }
+
+   private void unlock(int cell) {
+      versions.incrementAndGet(cell);
+   }
+}
@@ -0,0 +1,151 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.model.RateBar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Observations of rates of one currency pair in time order.
+ *
+ * Times and rates are kept in two primitive columns, so a range is
+ * found by binary search over times and is read without objects. The
+ * same rate in the same hour is not appended again, and observations
+ * older than the retention are dropped from the beginning.
+ *
+ * @see RateHistory
+ *
+ * @author Dmytro K.
+ */
+class RateSeries {
+
+   /** Initial capacity of columns. */
+   private static final int INITIAL_CAPACITY = 16;
+
+   /** Time in ms during which the same rate is kept once. */
+   private static final long DEDUPLICATION_PERIOD = RateHistory.HOUR;
+
+   /** Times of observations in ms. */
+   private long[] times = new long[INITIAL_CAPACITY];
+
+   /** Rates of observations. */
+   private double[] rates = new double[INITIAL_CAPACITY];
+
+   /** Index of the first kept observation. */
+   private int start;
+
+   /** Index after the last observation. */
+   private int end;
+
+   /**
+    * Appends the observation, if it's newer than the last one and is not
+    * the same rate in the same hour.
+    *
+    * @param time time of observation in ms
+    * @param rate rate
+    * @param keepAfter time in ms, observations before it are dropped
+    * @return true if the observation was appended.
+    */
+   synchronized boolean append(long time, double rate, long keepAfter) {
+      if (end > start) {
+         long lastTime = times[end - 1];
+
+         if (time < lastTime || rates[end - 1] == rate
+                 && time / DEDUPLICATION_PERIOD == lastTime / DEDUPLICATION_PERIOD) {
+            return false;
+         }
+      }
+
+      while (start < end && times[start] < keepAfter) {
+         start++;
+      }
+
+      if (end == times.length) {
+         compact();
+      }
+
+      times[end] = time;
+      rates[end] = rate;
+      end++;
+      return true;
+   }
+
+   /**
+    * Groups observations of the range into bars of the given size.
+    *
+    * @param from start of the range in ms, inclusive
+    * @param to end of the range in ms, exclusive
+    * @param barSize size of a bar in ms
+    * @return bars in time order, a bar is present only if it has observations.
+    */
+   synchronized List<RateBar> getBars(long from, long to, long barSize) {
+      List<RateBar> bars = new ArrayList<>();
+      int index = lowerBound(from);
+
+      while (index < end && times[index] < to) {
+         long barTime = Math.floorDiv(times[index], barSize) * barSize;
+         double open = rates[index];
+         double high = open;
+         double low = open;
+         double close = open;
+
+         for (index++; index < end && times[index] < to && times[index] < barTime + barSize; index++) {
+            close = rates[index];
+            high = Math.max(high, close);
+            low = Math.min(low, close);
+         }
+
+         bars.add(new RateBar(barTime, open, high, low, close));
+      }
+
+      return bars;
+   }
+
+   /**
+    * @return count of kept observations.
+    */
+   synchronized int size() {
+      return end - start;
+   }
+
+   /**
+    * @return index of the first observation, which is not before the time.
+    */
+   private int lowerBound(long time) {
+      int low = start;
+      int high = end;
+
+      while (low < high) {
+         int middle = (low + high) >>> 1;
+
+         if (times[middle] < time) {
+            low = middle + 1;
+         } else {
+            high = middle;
+         }
+      }
+
+      return low;
+   }
+
+   /**
+    * Moves kept observations to the beginning of columns and grows columns,
+    * if they are more than half full.
+    */
+   private void compact() {
+      int size = end - start;
+      int capacity = size * 2 > times.length ? times.length * 2 : times.length;
+
+      long[] newTimes = capacity == times.length ? times : Arrays.copyOf(times, capacity);
+      double[] newRates = capacity == rates.length ? rates : Arrays.copyOf(rates, capacity);
+
+      System.arraycopy(times, start, newTimes, 0, size);
+      System.arraycopy(rates, start, newRates, 0, size);
+
+      times = newTimes;
+      rates = newRates;
+      start = 0;
+      end = size;
+   }
+}
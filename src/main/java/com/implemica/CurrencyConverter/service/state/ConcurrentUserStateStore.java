@@ -0,0 +1,259 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Default {@link UserStateStore}, states and chats are kept in
+ * {@link ConcurrentHashMap}s, so users are not blocked by each other.
+ *
+ * An entry, which was not used for {@link #timeToLive}, is expired: the
+ * user starts from {@link State#INITIAL}, and expired entries are removed
+ * on schedule. When there are more than {@link #maxUsers} entries, the
+ * least recently used ones are evicted, so a tenth part of the limit is
+ * free after every eviction, and the sort of entries is not repeated on
+ * every new user.
+ *
+ * @author Dmytro K.
+ */
+public class ConcurrentUserStateStore implements UserStateStore {
+
+   /** Part of the limit, which is kept free after eviction. */
+   private static final int FREE_PART = 10;
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** States of dialogs by id of user. */
+   private final Map<Integer, Entry<State>> states = new ConcurrentHashMap<>();
+
+   /** Users by id of chat. */
+   private final Map<Long, Entry<User>> chats = new ConcurrentHashMap<>();
+
+   /** Time in ms, after which an unused entry is expired. */
+   private final long timeToLive;
+
+   /** Max count of users and of chats. */
+   private final int maxUsers;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Count of entries, which were removed, because they were not used. */
+   private final AtomicLong expired = new AtomicLong();
+
+   /** Count of entries, which were removed, because there were too many entries. */
+   private final AtomicLong evicted = new AtomicLong();
+
+   /** Executor for removing of expired entries. */
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "user-state-eviction");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates empty store.
+    *
+    * @param timeToLive time in ms, after which an unused entry is expired
+    * @param maxUsers max count of users and of chats
+    */
+   public ConcurrentUserStateStore(long timeToLive, int maxUsers) {
+      this(timeToLive, maxUsers, Clock.systemUTC());
+   }
+
+   /**
+    * Creates empty store with the given clock.
+    *
+    * @param timeToLive time in ms, after which an unused entry is expired
+    * @param maxUsers max count of users and of chats
+    * @param clock source of current time
+    */
+   ConcurrentUserStateStore(long timeToLive, int maxUsers, Clock clock) {
+      this.timeToLive = timeToLive;
+      this.maxUsers = maxUsers;
+      this.clock = clock;
+   }
+
+   @Override
+   public void start() {
+      long interval = Math.max(timeToLive / FREE_PART, 1);
+      executor.scheduleWithFixedDelay(this::removeExpired, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   @Override
+   public State get(int userId) {
+      Entry<State> entry = states.get(userId);
+      return isAlive(entry, clock.millis()) ? entry.value : State.INITIAL;
+   }
+
+   @Override
+   public State update(int userId, UnaryOperator<State> transition) {
+      Entry<State> updated = states.compute(userId, (id, entry) -> {
+         long now = clock.millis();
+
+         if (entry != null && !isAlive(entry, now)) {
+            expired.incrementAndGet();
+            entry = null;
+         }
+
+         return new Entry<>(transition.apply(entry == null ? State.INITIAL : entry.value), now);
+      });
+
+      if (states.size() > maxUsers) {
+         evictOldest(states);
+      }
+      return updated.value;
+   }
+
+   @Override
+   public void restore(int userId, State state, long lastAccess) {
+      states.put(userId, new Entry<>(state, lastAccess));
+
+      if (states.size() > maxUsers) {
+         evictOldest(states);
+      }
+   }
+
+   @Override
+   public void putChat(long chatId, User user) {
+      chats.put(chatId, new Entry<>(user, clock.millis()));
+
+      if (chats.size() > maxUsers) {
+         evictOldest(chats);
+      }
+   }
+
+   @Override
+   public User getUser(long chatId) {
+      Entry<User> entry = chats.get(chatId);
+      return isAlive(entry, clock.millis()) ? entry.value : null;
+   }
+
+   @Override
+   public Map<String, Object> getMetrics() {
+      Map<String, Object> metrics = new LinkedHashMap<>();
+
+      metrics.put("users", states.size());
+      metrics.put("chats", chats.size());
+      metrics.put("maxUsers", maxUsers);
+      metrics.put("timeToLive", timeToLive);
+      metrics.put("expired", expired.get());
+      metrics.put("evicted", evicted.get());
+
+      return metrics;
+   }
+
+   /**
+    * Function removes entries, which were not used for {@link #timeToLive}.
+    */
+   void removeExpired() {
+      long now = clock.millis();
+      int count = removeExpired(states, now) + removeExpired(chats, now);
+
+      if (count > 0) {
+         logger.info(count + " expired states and chats of users were removed");
+      }
+   }
+
+   /**
+    * @param map states or chats
+    * @param now current time in ms
+    * @return count of removed entries.
+    */
+   private <K> int removeExpired(Map<K, ? extends Entry<?>> map, long now) {
+      int count = 0;
+
+      for (Map.Entry<K, ? extends Entry<?>> pair : map.entrySet()) {
+         if (!isAlive(pair.getValue(), now) && map.remove(pair.getKey(), pair.getValue())) {
+            count++;
+         }
+      }
+
+      expired.addAndGet(count);
+      return count;
+   }
+
+   /**
+    * Function removes the least recently used entries, if there are more
+    * than {@link #maxUsers} of them. Entries, which are used during the
+    * eviction, are kept.
+    *
+    * @param map states or chats
+    */
+   private synchronized <K> void evictOldest(Map<K, ? extends Entry<?>> map) {
+      if (map.size() <= maxUsers) {
+         return;
+      }
+
+      long[] times = new long[map.size()];
+      int size = 0;
+
+      for (Entry<?> entry : map.values()) {
+         if (size == times.length) {
+            break;
+         }
+         times[size++] = entry.lastAccess;
+      }
+
+      Arrays.sort(times, 0, size);
+      int excess = size - maxUsers + maxUsers / FREE_PART;
+      long oldest = times[Math.min(Math.max(excess, 1), size) - 1];
+      int count = 0;
+
+      for (Map.Entry<K, ? extends Entry<?>> pair : map.entrySet()) {
+         Entry<?> entry = pair.getValue();
+
+         if (entry.lastAccess <= oldest && map.remove(pair.getKey(), entry)) {
+            count++;
+         }
+      }
+
+      evicted.addAndGet(count);
+      logger.info(count + " least recently used states or chats of users were evicted");
+   }
+
+   /**
+    * @param entry entry or null
+    * @param now current time in ms
+    * @return true, if entry exists and is not expired.
+    */
+   private boolean isAlive(Entry<?> entry, long now) {
+      return entry != null && now - entry.lastAccess < timeToLive;
+   }
+
+   /**
+    * Value with time of the last use.
+    */
+   private static final class Entry<V> {
+
+      /** State or user. */
+      private final V value;
+
+      /** Time of the last use in ms. */
+      private final long lastAccess;
+
+      private Entry(V value, long lastAccess) {
+         this.value = value;
+         this.lastAccess = lastAccess;
+      }
+   }
+}
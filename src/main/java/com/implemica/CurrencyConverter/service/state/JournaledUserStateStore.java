@@ -0,0 +1,286 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.dao.StateJournalDao;
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link UserStateStore}, which keeps states in another store and saves
+ * their transitions to {@link StateJournalDao}, so users continue their
+ * dialogs after a restart.
+ *
+ * A transition is only put to a queue, while the state of user is
+ * replaced, so transitions of one user are queued in their order, and
+ * processing of messages doesn't wait for the storage. The queue is
+ * written by a background thread once a second, and the journal is
+ * compacted on schedule. A transition, which doesn't change the state, is
+ * saved only when a quarter of time to live passed since the state of the
+ * user was saved, so the journal knows the time of the last use of active
+ * users without growing on every message.
+ *
+ * @see StateJournalDao
+ *
+ * @author Dmytro K.
+ */
+public class JournaledUserStateStore implements UserStateStore {
+
+   /** Max count of transitions, which wait for writing. */
+   private static final int QUEUE_SIZE = 10000;
+
+   /** Time in ms between writings of transitions. */
+   private static final long FLUSH_INTERVAL = 1000;
+
+   /** Part of time to live, after which an unchanged state is saved again. */
+   private static final int TOUCH_PARTS = 4;
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Store of states. */
+   private final UserStateStore states;
+
+   /** Storage of transitions. */
+   private final StateJournalDao journalDao;
+
+   /** Time in ms, after which an unused state is expired. */
+   private final long timeToLive;
+
+   /** Time in ms between compactions of the journal. */
+   private final long compactInterval;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Transitions, which wait for writing. */
+   private final BlockingQueue<Transition> pending = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+   /** The last queued transition of user, only for not initial states. */
+   private final Map<Integer, Transition> saved = new ConcurrentHashMap<>();
+
+   /** Count of transitions, which were not written, because the queue was full. */
+   private final AtomicLong dropped = new AtomicLong();
+
+   /** Executor for writings and compactions. */
+   private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "user-state-journal");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates store, which saves transitions of states.
+    *
+    * @param states store of states
+    * @param journalDao storage of transitions
+    * @param timeToLive time in ms, after which an unused state is expired
+    * @param compactInterval time in ms between compactions of the journal
+    */
+   public JournaledUserStateStore(UserStateStore states, StateJournalDao journalDao, long timeToLive,
+                                  long compactInterval) {
+      this(states, journalDao, timeToLive, compactInterval, Clock.systemUTC());
+   }
+
+   /**
+    * Creates store, which saves transitions of states, with the given clock.
+    *
+    * @param states store of states
+    * @param journalDao storage of transitions
+    * @param timeToLive time in ms, after which an unused state is expired
+    * @param compactInterval time in ms between compactions of the journal
+    * @param clock source of current time, it has to be the clock of the store of states
+    */
+   JournaledUserStateStore(UserStateStore states, StateJournalDao journalDao, long timeToLive,
+                           long compactInterval, Clock clock) {
+      this.states = states;
+      this.journalDao = journalDao;
+      this.timeToLive = timeToLive;
+      this.compactInterval = compactInterval;
+      this.clock = clock;
+   }
+
+   /**
+    * Restores states from the journal, compacts it and starts writing of new transitions.
+    */
+   @Override
+   public void start() {
+      long started = System.nanoTime();
+      int count = journalDao.load(getMinAliveTime(), this::restore);
+
+      logger.info("States of " + count + " users were restored in "
+              + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+
+      compact();
+      states.start();
+
+      writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+      writer.scheduleWithFixedDelay(this::compact, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops writing and writes all waiting transitions.
+    */
+   @Override
+   public void stop() {
+      writer.shutdownNow();
+      flush();
+      states.stop();
+   }
+
+   @Override
+   public State get(int userId) {
+      return states.get(userId);
+   }
+
+   @Override
+   public State update(int userId, UnaryOperator<State> transition) {
+      return states.update(userId, current -> {
+         State next = transition.apply(current);
+         long now = clock.millis();
+
+         if (isToSave(userId, next, now)) {
+            Transition saving = new Transition(userId, next, now);
+
+            if (!pending.offer(saving)) {
+               dropped.incrementAndGet();
+
+            } else if (next.equals(State.INITIAL)) {
+               saved.remove(userId);
+
+            } else {
+               saved.put(userId, saving);
+            }
+         }
+
+         return next;
+      });
+   }
+
+   @Override
+   public void restore(int userId, State state, long lastAccess) {
+      states.restore(userId, state, lastAccess);
+
+      if (!state.equals(State.INITIAL)) {
+         saved.put(userId, new Transition(userId, state, lastAccess));
+      }
+   }
+
+   @Override
+   public void putChat(long chatId, User user) {
+      states.putChat(chatId, user);
+   }
+
+   @Override
+   public User getUser(long chatId) {
+      return states.getUser(chatId);
+   }
+
+   @Override
+   public Map<String, Object> getMetrics() {
+      Map<String, Object> metrics = states.getMetrics();
+
+      metrics.put("journalPending", pending.size());
+      metrics.put("journalDropped", dropped.get());
+
+      return metrics;
+   }
+
+   /**
+    * Function writes all waiting transitions to the journal.
+    */
+   synchronized void flush() {
+      try {
+         List<Transition> transitions = new ArrayList<>();
+         pending.drainTo(transitions);
+
+         for (Transition transition : transitions) {
+            journalDao.append(transition.userId, transition.state, transition.time);
+         }
+         journalDao.flush();
+
+      } catch (RuntimeException e) {
+         logger.error("States of users were not saved", e);
+      }
+   }
+
+   /**
+    * Function writes all waiting transitions and removes old transitions from the journal.
+    */
+   synchronized void compact() {
+      flush();
+
+      long minAliveTime = getMinAliveTime();
+      saved.values().removeIf(transition -> transition.time < minAliveTime);
+
+      try {
+         int count = journalDao.compact(minAliveTime);
+         logger.info("Journal of states was compacted to " + count + " users");
+
+      } catch (RuntimeException e) {
+         logger.error("Journal of states was not compacted", e);
+      }
+   }
+
+   /**
+    * Compares the state with the last queued one, so a transition, which was
+    * dropped, because the queue was full, is saved by the next update of user.
+    *
+    * @param userId id of user
+    * @param next state after transition
+    * @param now time of transition in ms
+    * @return true, if the state differs from the last queued one, or the same
+    * not initial state was queued a quarter of time to live ago.
+    */
+   private boolean isToSave(int userId, State next, long now) {
+      Transition last = saved.get(userId);
+
+      if (last == null) {
+         return !next.equals(State.INITIAL);
+      }
+
+      return !next.equals(last.state) || now - last.time >= timeToLive / TOUCH_PARTS;
+   }
+
+   /**
+    * @return min time of the last use in ms of state, which is not expired.
+    */
+   private long getMinAliveTime() {
+      long now = clock.millis();
+      return timeToLive >= now ? Long.MIN_VALUE : now - timeToLive + 1;
+   }
+
+   /**
+    * Transition of user's state, which waits for writing.
+    */
+   private static final class Transition {
+
+      /** Id of user. */
+      private final int userId;
+
+      /** New state of dialog. */
+      private final State state;
+
+      /** Time of transition in ms. */
+      private final long time;
+
+      private Transition(int userId, State state, long time) {
+         this.userId = userId;
+         this.state = state;
+         this.time = time;
+      }
+   }
+}
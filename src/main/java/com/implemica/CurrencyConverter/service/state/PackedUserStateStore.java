@@ -0,0 +1,521 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link UserStateStore}, which keeps a state of user in one {@code long}
+ * instead of {@link State} with two strings in a {@link java.util.HashMap}:
+ * ordinals of both currencies, the step of conversion and the time of the
+ * last use are packed together, and the longs are kept in open addressing
+ * tables by id of user, so there are no objects per user at all.
+ *
+ * Layout of the packed state, from the lowest bits: 40 bits of time in ms
+ * since creation of the store, 3 bits of step (ordinal + 1, so a used slot
+ * is never 0), 10 bits of the currency to convert to and 10 bits of the
+ * currency to convert from (ordinal + 1, 0 for an empty currency).
+ *
+ * Users are split between {@link #SEGMENTS} tables, each table is locked
+ * separately. Expiration and eviction work like in
+ * {@link ConcurrentUserStateStore}, a table is rebuilt without removed
+ * users. Chats are kept as objects, because {@link User} has names.
+ *
+ * @author Dmytro K.
+ */
+public class PackedUserStateStore implements UserStateStore {
+
+   /** Count of tables, it's a power of 2. */
+   private static final int SEGMENTS = 16;
+
+   /** Initial count of slots in a table, it's a power of 2. */
+   private static final int INITIAL_CAPACITY = 16;
+
+   /** Part of the limit, which is kept free after eviction. */
+   private static final int FREE_PART = 10;
+
+   /** Count of bits of time. */
+   private static final int TIME_BITS = 40;
+
+   /** Count of bits of step. */
+   private static final int STEP_BITS = 3;
+
+   /** Count of bits of currency. */
+   private static final int CURRENCY_BITS = 10;
+
+   /** Shift of the currency to convert to. */
+   private static final int SECOND_SHIFT = TIME_BITS + STEP_BITS;
+
+   /** Shift of the currency to convert from. */
+   private static final int FIRST_SHIFT = SECOND_SHIFT + CURRENCY_BITS;
+
+   /** Currencies by their ordinals. */
+   private static final Currency[] CURRENCIES = Currency.values();
+
+   /** Steps by their ordinals. */
+   private static final ConvertStep[] STEPS = ConvertStep.values();
+
+   static {
+      if (CURRENCIES.length >= 1 << CURRENCY_BITS) {
+         throw new IllegalStateException("Currencies don't fit into " + CURRENCY_BITS + " bits");
+      }
+   }
+
+   /** Logger. */
+   private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+   /** Tables of states. */
+   private final Segment[] segments = new Segment[SEGMENTS];
+
+   /** Users by id of chat in order of the last use. */
+   private final Map<Long, Chat> chats = new LinkedHashMap<>();
+
+   /** Time in ms, after which an unused state is expired. */
+   private final long timeToLive;
+
+   /** Max count of users and of chats. */
+   private final int maxUsers;
+
+   /** Max count of users in one table. */
+   private final int maxUsersInSegment;
+
+   /** Source of current time. */
+   private final Clock clock;
+
+   /** Time of creation in ms, times of use are counted from it. */
+   private final long createdAt;
+
+   /** Count of entries, which were removed, because they were not used. */
+   private final AtomicLong expired = new AtomicLong();
+
+   /** Count of entries, which were removed, because there were too many entries. */
+   private final AtomicLong evicted = new AtomicLong();
+
+   /** Executor for removing of expired entries. */
+   private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "user-state-eviction");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * Creates empty store.
+    *
+    * @param timeToLive time in ms, after which an unused entry is expired
+    * @param maxUsers max count of users and of chats
+    */
+   public PackedUserStateStore(long timeToLive, int maxUsers) {
+      this(timeToLive, maxUsers, Clock.systemUTC());
+   }
+
+   /**
+    * Creates empty store with the given clock.
+    *
+    * @param timeToLive time in ms, after which an unused entry is expired
+    * @param maxUsers max count of users and of chats
+    * @param clock source of current time
+    */
+   PackedUserStateStore(long timeToLive, int maxUsers, Clock clock) {
+      this.timeToLive = timeToLive;
+      this.maxUsers = maxUsers;
+      this.maxUsersInSegment = Math.max((maxUsers + SEGMENTS - 1) / SEGMENTS, 1);
+      this.clock = clock;
+      this.createdAt = clock.millis();
+
+      for (int i = 0; i < SEGMENTS; i++) {
+         segments[i] = new Segment();
+      }
+   }
+
+   @Override
+   public void start() {
+      long interval = Math.max(timeToLive / FREE_PART, 1);
+      executor.scheduleWithFixedDelay(this::removeExpired, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   @Override
+   public State get(int userId) {
+      Segment segment = getSegment(userId);
+      long packed;
+
+      synchronized (segment) {
+         packed = segment.get(userId);
+      }
+
+      return isAlive(packed, now()) ? unpack(packed) : State.INITIAL;
+   }
+
+   @Override
+   public State update(int userId, UnaryOperator<State> transition) {
+      Segment segment = getSegment(userId);
+      State state;
+
+      synchronized (segment) {
+         long now = now();
+         long packed = segment.get(userId);
+
+         if (packed != 0 && !isAlive(packed, now)) {
+            expired.incrementAndGet();
+            packed = 0;
+         }
+
+         state = transition.apply(packed == 0 ? State.INITIAL : unpack(packed));
+         segment.put(userId, pack(state, now));
+
+         if (segment.size > maxUsersInSegment) {
+            evictOldest(segment);
+         }
+      }
+
+      return state;
+   }
+
+   /**
+    * {@inheritDoc} Time of use before creation of the store is counted
+    * from creation, so such user is expired a bit later.
+    */
+   @Override
+   public void restore(int userId, State state, long lastAccess) {
+      Segment segment = getSegment(userId);
+
+      synchronized (segment) {
+         segment.put(userId, pack(state, Math.max(lastAccess - createdAt, 0)));
+
+         if (segment.size > maxUsersInSegment) {
+            evictOldest(segment);
+         }
+      }
+   }
+
+   @Override
+   public void putChat(long chatId, User user) {
+      synchronized (chats) {
+         chats.remove(chatId);
+         chats.put(chatId, new Chat(user, clock.millis()));
+
+         if (chats.size() > maxUsers) {
+            Iterator<Chat> iterator = chats.values().iterator();
+            iterator.next();
+            iterator.remove();
+            evicted.incrementAndGet();
+         }
+      }
+   }
+
+   @Override
+   public User getUser(long chatId) {
+      Chat chat;
+
+      synchronized (chats) {
+         chat = chats.get(chatId);
+      }
+
+      return chat != null && clock.millis() - chat.lastAccess < timeToLive ? chat.user : null;
+   }
+
+   @Override
+   public Map<String, Object> getMetrics() {
+      int users = 0;
+      int slots = 0;
+
+      for (Segment segment : segments) {
+         synchronized (segment) {
+            users += segment.size;
+            slots += segment.keys.length;
+         }
+      }
+
+      Map<String, Object> metrics = new LinkedHashMap<>();
+
+      metrics.put("users", users);
+      synchronized (chats) {
+         metrics.put("chats", chats.size());
+      }
+      metrics.put("maxUsers", maxUsers);
+      metrics.put("timeToLive", timeToLive);
+      metrics.put("expired", expired.get());
+      metrics.put("evicted", evicted.get());
+      metrics.put("slots", slots);
+
+      return metrics;
+   }
+
+   /**
+    * Function removes entries, which were not used for {@link #timeToLive}.
+    */
+   void removeExpired() {
+      long now = now();
+      int count = 0;
+
+      for (Segment segment : segments) {
+         synchronized (segment) {
+            int size = segment.size;
+            segment.retain(packed -> isAlive(packed, now));
+            count += size - segment.size;
+         }
+      }
+
+      long notBefore = clock.millis() - timeToLive;
+
+      synchronized (chats) {
+         Iterator<Chat> iterator = chats.values().iterator();
+
+         while (iterator.hasNext() && iterator.next().lastAccess <= notBefore) {
+            iterator.remove();
+            count++;
+         }
+      }
+
+      expired.addAndGet(count);
+
+      if (count > 0) {
+         logger.info(count + " expired states and chats of users were removed");
+      }
+   }
+
+   /**
+    * Function removes the least recently used users of the table, so a
+    * tenth part of the limit of the table is free.
+    *
+    * @param segment full table, it's locked by caller
+    */
+   private void evictOldest(Segment segment) {
+      long[] times = new long[segment.size];
+      int count = 0;
+
+      for (long packed : segment.values) {
+         if (packed != 0) {
+            times[count++] = getTime(packed);
+         }
+      }
+
+      Arrays.sort(times);
+      int excess = segment.size - maxUsersInSegment + maxUsersInSegment / FREE_PART;
+      long oldest = times[Math.min(Math.max(excess, 1), count) - 1];
+
+      int size = segment.size;
+      segment.retain(packed -> getTime(packed) > oldest);
+      evicted.addAndGet(size - segment.size);
+   }
+
+   /**
+    * @param userId id of user
+    * @return table of the user.
+    */
+   private Segment getSegment(int userId) {
+      return segments[mix(userId) >>> 28 & SEGMENTS - 1];
+   }
+
+   /**
+    * @return current time in ms since creation of the store.
+    */
+   private long now() {
+      return clock.millis() - createdAt;
+   }
+
+   /**
+    * @param packed packed state or 0
+    * @param now current time in ms since creation of the store
+    * @return true, if state exists and is not expired.
+    */
+   private boolean isAlive(long packed, long now) {
+      return packed != 0 && now - getTime(packed) < timeToLive;
+   }
+
+   /**
+    * Packs state and time of its use into one long.
+    *
+    * @param state state of dialog
+    * @param time time in ms since creation of the store
+    * @return packed state, it's never 0.
+    */
+   static long pack(State state, long time) {
+      return (long) packCurrency(state.getFirstCurrency()) << FIRST_SHIFT
+              | (long) packCurrency(state.getSecondCurrency()) << SECOND_SHIFT
+              | (long) (state.getConvertStep().ordinal() + 1) << TIME_BITS
+              | time & (1L << TIME_BITS) - 1;
+   }
+
+   /**
+    * @param packed packed state
+    * @return state of dialog.
+    */
+   static State unpack(long packed) {
+      int first = (int) (packed >>> FIRST_SHIFT) & (1 << CURRENCY_BITS) - 1;
+      int second = (int) (packed >>> SECOND_SHIFT) & (1 << CURRENCY_BITS) - 1;
+      int step = (int) (packed >>> TIME_BITS) & (1 << STEP_BITS) - 1;
+
+      return new State(unpackCurrency(first), unpackCurrency(second), STEPS[step - 1]);
+   }
+
+   /**
+    * @param packed packed state
+    * @return time of use in ms since creation of the store.
+    */
+   private static long getTime(long packed) {
+      return packed & (1L << TIME_BITS) - 1;
+   }
+
+   /**
+    * @param currency empty string or name of currency
+    * @return ordinal + 1, 0 for empty string.
+    */
+   private static int packCurrency(String currency) {
+      return currency.isEmpty() ? 0 : Currency.valueOf(currency).ordinal() + 1;
+   }
+
+   /**
+    * @param code ordinal + 1 or 0
+    * @return name of currency, empty string for 0.
+    */
+   private static String unpackCurrency(int code) {
+      return code == 0 ? "" : CURRENCIES[code - 1].name();
+   }
+
+   /**
+    * Spreads bits of id, so sequential ids don't make clusters in tables.
+    *
+    * @param key id of user
+    * @return hash of id.
+    */
+   private static int mix(int key) {
+      int hash = key * 0x9E3779B9;
+      return hash ^ hash >>> 16;
+   }
+
+   /**
+    * Open addressing table of packed states by id of user with linear
+    * probing. A slot is free, if its value is 0.
+    */
+   private static final class Segment {
+
+      /** Ids of users. */
+      private int[] keys = new int[INITIAL_CAPACITY];
+
+      /** Packed states. */
+      private long[] values = new long[INITIAL_CAPACITY];
+
+      /** Count of users. */
+      private int size;
+
+      /**
+       * @param key id of user
+       * @return packed state, 0 if it's absent.
+       */
+      private long get(int key) {
+         int mask = keys.length - 1;
+
+         for (int i = mix(key) & mask; values[i] != 0; i = i + 1 & mask) {
+            if (keys[i] == key) {
+               return values[i];
+            }
+         }
+
+         return 0;
+      }
+
+      /**
+       * @param key id of user
+       * @param value packed state, it's not 0
+       */
+      private void put(int key, long value) {
+         if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2, packed -> true);
+         }
+
+         if (insert(key, value)) {
+            size++;
+         }
+      }
+
+      /**
+       * Rebuilds the table only with states, which satisfy the condition.
+       *
+       * @param condition condition of packed state
+       */
+      private void retain(LongPredicate condition) {
+         rehash(keys.length, condition);
+      }
+
+      /**
+       * Moves states, which satisfy the condition, to new arrays.
+       *
+       * @param capacity count of slots, it's a power of 2
+       * @param condition condition of packed state
+       */
+      private void rehash(int capacity, LongPredicate condition) {
+         int[] oldKeys = keys;
+         long[] oldValues = values;
+
+         keys = new int[capacity];
+         values = new long[capacity];
+         size = 0;
+
+         for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0 && condition.test(oldValues[i])) {
+               insert(oldKeys[i], oldValues[i]);
+               size++;
+            }
+         }
+      }
+
+      /**
+       * @param key id of user
+       * @param value packed state, it's not 0
+       * @return true, if the key is new.
+       */
+      private boolean insert(int key, long value) {
+         int mask = keys.length - 1;
+         int i = mix(key) & mask;
+
+         while (values[i] != 0) {
+            if (keys[i] == key) {
+               values[i] = value;
+               return false;
+            }
+            i = i + 1 & mask;
+         }
+
+         keys[i] = key;
+         values[i] = value;
+         return true;
+      }
+   }
+
+   /**
+    * User of chat with time of the last use.
+    */
+   private static final class Chat {
+
+      /** User. */
+      private final User user;
+
+      /** Time of the last use in ms. */
+      private final long lastAccess;
+
+      private Chat(User user, long lastAccess) {
+         this.user = user;
+         this.lastAccess = lastAccess;
+      }
+   }
+}
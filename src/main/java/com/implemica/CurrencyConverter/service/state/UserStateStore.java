@@ -0,0 +1,78 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage of states of dialogs with bot and of chats, where users
+ * communicate with bot. Implementations have to be thread-safe, because
+ * messages of different users are processed by many threads, and have
+ * to be bounded, so users, who don't communicate with bot any more,
+ * don't take memory. A user, whose state was evicted, starts a new
+ * dialog from {@link State#INITIAL}.
+ *
+ * @author Dmytro K.
+ */
+public interface UserStateStore {
+
+   /**
+    * Starts removing of expired entries on schedule.
+    */
+   void start();
+
+   /**
+    * Stops the schedule.
+    */
+   void stop();
+
+   /**
+    * Gets state of dialog of the user.
+    *
+    * @param userId id of user
+    * @return state of dialog, {@link State#INITIAL} if user has no state.
+    */
+   State get(int userId);
+
+   /**
+    * Replaces state of dialog of the user atomically, updates of one
+    * user are applied one by one.
+    *
+    * @param userId id of user
+    * @param transition function, which creates new state from the current one
+    * @return new state of dialog.
+    */
+   State update(int userId, UnaryOperator<State> transition);
+
+   /**
+    * Puts state of dialog, which was saved before restart.
+    *
+    * @param userId id of user
+    * @param state state of dialog
+    * @param lastAccess time of the last use of state in ms
+    */
+   void restore(int userId, State state, long lastAccess);
+
+   /**
+    * Saves the user, who communicates with bot in the chat.
+    *
+    * @param chatId id of chat
+    * @param user user
+    */
+   void putChat(long chatId, User user);
+
+   /**
+    * Gets the user, who communicates with bot in the chat.
+    *
+    * @param chatId id of chat
+    * @return user, null if it's unknown.
+    */
+   User getUser(long chatId);
+
+   /**
+    * @return count of users and chats, limits and count of evictions for monitoring.
+    */
+   Map<String, Object> getMetrics();
+}
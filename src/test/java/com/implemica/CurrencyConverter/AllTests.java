@@ -1,18 +1,49 @@
 package com.implemica.CurrencyConverter;
 
 import com.implemica.CurrencyConverter.controller.BotControllerTest;
+import com.implemica.CurrencyConverter.controller.MetricsControllerTest;
 import com.implemica.CurrencyConverter.controller.WebControllerTest;
 import com.implemica.CurrencyConverter.controller.WebSocketTest;
 import com.implemica.CurrencyConverter.dao.impl.DialogDaoImplTest;
+import com.implemica.CurrencyConverter.dao.impl.RateHistoryDaoImplTest;
+import com.implemica.CurrencyConverter.dao.impl.RateSnapshotDaoImplTest;
+import com.implemica.CurrencyConverter.dao.impl.StateJournalDaoImplTest;
+import com.implemica.CurrencyConverter.service.AsyncExecutorTest;
 import com.implemica.CurrencyConverter.service.BotServiceTest;
+import com.implemica.CurrencyConverter.service.CircuitBreakerTest;
+import com.implemica.CurrencyConverter.service.ConnectivityMonitorTest;
+import com.implemica.CurrencyConverter.service.ConverterRankingTest;
 import com.implemica.CurrencyConverter.service.ConverterServiceTest;
+import com.implemica.CurrencyConverter.service.HedgedInvokerTest;
+import com.implemica.CurrencyConverter.service.RateRefresherTest;
+import com.implemica.CurrencyConverter.service.SingleFlightTest;
+import com.implemica.CurrencyConverter.service.RequestBudgetTest;
+import com.implemica.CurrencyConverter.service.UpdateDispatcherTest;
+import com.implemica.CurrencyConverter.service.converters.BankUaComTest;
+import com.implemica.CurrencyConverter.service.converters.FloatRatesComTest;
+import com.implemica.CurrencyConverter.service.converters.JsonHttpClientTest;
+import com.implemica.CurrencyConverter.service.rates.RateCacheTest;
+import com.implemica.CurrencyConverter.service.rates.RateGraphTest;
+import com.implemica.CurrencyConverter.service.rates.RateHistoryTest;
+import com.implemica.CurrencyConverter.service.rates.RateMatrixTest;
+import com.implemica.CurrencyConverter.service.state.ConcurrentUserStateStoreTest;
+import com.implemica.CurrencyConverter.service.state.JournaledUserStateStoreTest;
+import com.implemica.CurrencyConverter.service.state.PackedUserStateStoreTest;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.runner.RunWith;
 
 @RunWith(JUnitPlatform.class)
 @SelectClasses({BotServiceTest.class, DialogDaoImplTest.class, WebControllerTest.class,
-        ConverterServiceTest.class, WebSocketTest.class, BotControllerTest.class})
+        ConverterServiceTest.class, WebSocketTest.class, BotControllerTest.class,
+        RateCacheTest.class, ConnectivityMonitorTest.class, FloatRatesComTest.class,
+        HedgedInvokerTest.class, CircuitBreakerTest.class, MetricsControllerTest.class,
+        RequestBudgetTest.class, AsyncExecutorTest.class, JsonHttpClientTest.class,
+        RateRefresherTest.class, SingleFlightTest.class, RateGraphTest.class,
+        RateMatrixTest.class, RateSnapshotDaoImplTest.class, RateHistoryDaoImplTest.class,
+        RateHistoryTest.class, BankUaComTest.class, ConverterRankingTest.class,
+        ConcurrentUserStateStoreTest.class, PackedUserStateStoreTest.class, StateJournalDaoImplTest.class,
+        JournaledUserStateStoreTest.class, UpdateDispatcherTest.class})
 public class AllTests {
 }
 
@@ -0,0 +1,58 @@
+package com.implemica.CurrencyConverter;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Initializer of test contexts, which points files of the application to a
+ * new temporary directory, so tests neither read files of previous runs nor
+ * change files in the working directory. The directory is deleted, when the
+ * context is closed.
+ *
+ * @author Dmytro K.
+ */
+public class TemporaryFilesInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+   /** Names of files by properties, which define them. */
+   private static final Map<String, String> FILES = new LinkedHashMap<>();
+
+   static {
+      FILES.put("converter.budget.file", "budgets.properties");
+      FILES.put("converter.snapshot.file", "rates.snapshot");
+      FILES.put("converter.history.directory", "history");
+      FILES.put("bot.state.journal", "states.journal");
+   }
+
+   @Override
+   public void initialize(ConfigurableApplicationContext context) {
+      Path directory;
+
+      try {
+         directory = Files.createTempDirectory("currency-converter");
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+
+      Map<String, Object> properties = new LinkedHashMap<>();
+
+      for (Map.Entry<String, String> pair : FILES.entrySet()) {
+         properties.put(pair.getKey(), directory.resolve(pair.getValue()).toString());
+      }
+
+      context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("temporaryFiles", properties));
+
+      // registered before all beans, so it's destroyed after beans, which save their files on stop
+      ((DefaultListableBeanFactory) context.getBeanFactory())
+              .registerDisposableBean("temporaryFiles", () -> FileSystemUtils.deleteRecursively(directory));
+   }
+}
@@ -0,0 +1,46 @@
+package com.implemica.CurrencyConverter;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock, time of which is changed by tests only.
+ *
+ * @author Dmytro K.
+ */
+public class TestClock extends Clock {
+
+   /** Current time in ms. */
+   private long millis = 1_000_000;
+
+   /**
+    * Moves time forward.
+    *
+    * @param ms time in ms
+    */
+   public void move(long ms) {
+      millis += ms;
+   }
+
+   @Override
+   public long millis() {
+      return millis;
+   }
+
+   @Override
+   public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+   }
+
+   @Override
+   public ZoneId getZone() {
+      return ZoneOffset.UTC;
+   }
+
+   @Override
+   public Clock withZone(ZoneId zone) {
+      return this;
+   }
+}
@@ -1,9 +1,12 @@
 package com.implemica.CurrencyConverter.controller;
 
-import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.Answer;
 import com.implemica.CurrencyConverter.model.State;
 import com.implemica.CurrencyConverter.model.User;
 import com.implemica.CurrencyConverter.service.BotService;
+import com.implemica.CurrencyConverter.service.UpdateDispatcher;
+import com.implemica.CurrencyConverter.service.state.ConcurrentUserStateStore;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +18,10 @@ import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -113,14 +117,9 @@ public class BotControllerTest {
    private CallbackQuery callbackQuery;
 
    /**
-    * Stores users and id chats, where they communicate with bot
+    * Stores users states and id chats, where they communicate with bot
     */
-   private static Map<User, Long> listOfChats = State.listOfChats;
-
-   /**
-    * Stores all statesOfUsers, which use bot and their last command
-    */
-   private static Map<Integer, State> statesOfUsers = State.statesOfUsers;
+   private UserStateStore states = new ConcurrentUserStateStore(60000, 100);
 
    /**
     * A dummy implementation for Telegram User class
@@ -143,11 +142,12 @@ public class BotControllerTest {
 
 
    /**
-    * Creates new BotController, which depends on mocked botService
+    * Creates new BotController, which depends on mocked botService and empty storage of states,
+    * updates are processed by the calling thread
     */
    @BeforeEach
    void setUp() {
-      controller = new BotController(botService);
+      controller = new BotController(botService, states, new UpdateDispatcher(0, 1, UpdateDispatcher.Backpressure.DROP, 0));
    }
 
    /**
@@ -162,7 +162,7 @@ public class BotControllerTest {
    /**
     * Tests, that if user has all information about himself and his message contains specified text, and if method
     * {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()} and
-    * {@link BotService#processCommand(String, User)} is called with specified parameters
+    * {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest0() {
@@ -179,7 +179,7 @@ public class BotControllerTest {
    /**
     * Tests, that if user has all information about himself and his message contains specified text, and if method
     * {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()} and
-    * {@link BotService#processCommand(String, User)} is called with specified parameters
+    * {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest1() {
@@ -195,7 +195,7 @@ public class BotControllerTest {
    /**
     * Tests, that if information about user doesn't contain his last name and his message contains specified text,
     * and if method {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()}
-    * and {@link BotService#processCommand(String, User)} is called with specified parameters
+    * and {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest2() {
@@ -211,7 +211,7 @@ public class BotControllerTest {
    /**
     * Tests, that if information about user doesn't contain his username name and his message contains specified text,
     * and if method {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()}
-    * and {@link BotService#processCommand(String, User)} is called with specified parameters
+    * and {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest3() {
@@ -227,7 +227,7 @@ public class BotControllerTest {
    /**
     * Tests, that if information about user doesn't contain his last name and username, and his message contains specified text,
     * and if method {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()}
-    * and {@link BotService#processCommand(String, User)} is called with specified parameters
+    * and {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest4() {
@@ -243,7 +243,7 @@ public class BotControllerTest {
    /**
     * Tests, that if user has all information about himself and his message doesn't contains text, and if method
     * {@link BotController#onUpdateReceived(Update)} is called, then methods {@link Update#getMessage()} and
-    * {@link BotService#processCommand(String, User)} is called with specified parameters
+    * {@link BotService#processCommandAsync(String, User)} is called with specified parameters
     */
    @Test
    void onUpdateReceivedTest5() {
@@ -291,6 +291,32 @@ public class BotControllerTest {
       verifyControllerWithKeyboard("BTC", 89302, 588, "samanta", null, "sam");
    }
 
+   /**
+    * Tests, that the worker of chat waits for the response, which is completed by another thread,
+    * so the next update of the chat is processed only after the response was sent
+    */
+   @Test
+   void responseIsAwaited() {
+      setMessageBehavior(hello, true);
+      createUser(8291, "kate", null, null);
+
+      User user = controller.getInformationAboutUser(message);
+      CompletableFuture<String> response = new CompletableFuture<>();
+      doReturn(new Answer(State.INITIAL, response)).when(botService).processCommandAsync(hello, user);
+
+      new Thread(() -> {
+         try {
+            Thread.sleep(100);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         response.complete(wrongMessage);
+      }).start();
+
+      controller.onUpdateReceived(update);
+      assertTrue(response.isDone());
+   }
+
    /**
     * Defines the return value when update and message methods of the mocked objects are been called
     *
@@ -336,8 +362,6 @@ public class BotControllerTest {
       when(telegramUser.getFirstName()).thenReturn(name);
       when(telegramUser.getLastName()).thenReturn(lastName);
       when(telegramUser.getUserName()).thenReturn(userName);
-
-      statesOfUsers.put(id, new State("", "", ConvertStep.ZERO));
    }
 
    /**
@@ -355,27 +379,28 @@ public class BotControllerTest {
 
 
    /**
-    * Creates User. Defines the return value when processCommand method of the mocked object botService is been called.
+    * Creates User. Defines the return value when processCommandAsync method of the mocked object botService is been called.
     * Calls {@link BotController#onUpdateReceived(Update)} method and verifies, that methods {@link Update#getMessage()}
-    * and {@link BotService#processCommand(String, User)} were called with specified parameters.
+    * and {@link BotService#processCommandAsync(String, User)} were called with specified parameters.
     *
     * @param messageText  message from User
     * @param responseText response to User
     */
    private void verifyController(String messageText, String responseText) {
       User user = controller.getInformationAboutUser(message);
-      doReturn(responseText).when(botService).processCommand(messageText, user);
+      doReturn(new Answer(State.INITIAL, CompletableFuture.completedFuture(responseText))).when(botService)
+              .processCommandAsync(messageText, user);
 
       controller.onUpdateReceived(update);
 
       verify(update).getMessage();
-      verify(botService).processCommand(messageText, user);
+      verify(botService).processCommandAsync(messageText, user);
    }
 
    /**
-    * Creates User. Defines the return value when processCommand method of the mocked object botService is been called.
+    * Creates User. Defines the return value when processCommandAsync method of the mocked object botService is been called.
     * Calls {@link BotController#onUpdateReceived(Update)} method and verifies, that methods {@link Update#getMessage()}
-    * and {@link BotService#processCommand(String, User)} were called with specified parameters.
+    * and {@link BotService#processCommandAsync(String, User)} were called with specified parameters.
     *
     * @param messageText message from User
     * @param chatId      id of chat
@@ -388,14 +413,14 @@ public class BotControllerTest {
       createBot(chatId);
       User user = new User(userId, firstName, lastName, userName);
 
-      listOfChats.put(user, chatId);
-      statesOfUsers.put(userId, new State("", "", ConvertStep.ZERO));
+      states.putChat(chatId, user);
 
-      doReturn(BotControllerTest.wrongMessage).when(botService).processCommand(messageText, user);
+      doReturn(new Answer(State.INITIAL, CompletableFuture.completedFuture(BotControllerTest.wrongMessage)))
+              .when(botService).processCommandAsync(messageText, user);
 
       controller.onUpdateReceived(update);
 
       verify(update).getCallbackQuery();
-      verify(botService).processCommand(messageText, user);
+      verify(botService).processCommandAsync(messageText, user);
    }
 }
@@ -0,0 +1,165 @@
+package com.implemica.CurrencyConverter.controller;
+
+import com.implemica.CurrencyConverter.dao.impl.RateHistoryDaoImpl;
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.CircuitBreaker;
+import com.implemica.CurrencyConverter.service.CircuitBreakerRegistry;
+import com.implemica.CurrencyConverter.service.ConverterRanking;
+import com.implemica.CurrencyConverter.service.RequestBudgetRegistry;
+import com.implemica.CurrencyConverter.service.UpdateDispatcher;
+import com.implemica.CurrencyConverter.service.converters.FreeCurrencyConverterApiCom;
+import com.implemica.CurrencyConverter.service.converters.JsonHttpClient;
+import com.implemica.CurrencyConverter.service.rates.RateHistory;
+import com.implemica.CurrencyConverter.service.state.ConcurrentUserStateStore;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.core.StringContains.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests MetricsController.
+ *
+ * @author Dmytro K.
+ * @see MetricsController
+ */
+public class MetricsControllerTest {
+
+   /** Circuit breakers of converters. */
+   private final CircuitBreakerRegistry circuitBreakers = new CircuitBreakerRegistry(0.5, 2, 2, 60000);
+
+   /** Client for requests to APIs, it is not used by tests. */
+   private final JsonHttpClient httpClient = new JsonHttpClient(1, 1000, 1000);
+
+   /** Budgets of requests to converters. */
+   private final RequestBudgetRegistry requestBudgets = new RequestBudgetRegistry(null);
+
+   /** Statistics of converters. */
+   private final ConverterRanking ranking = new ConverterRanking(true, 10, 1, 60000);
+
+   /** History of rates, which is not saved. */
+   private final RateHistory rateHistory = new RateHistory(new RateHistoryDaoImpl(null), 90 * RateHistory.DAY);
+
+   /** States of users' dialogs. */
+   private final UserStateStore userStates = new ConcurrentUserStateStore(60000, 100);
+
+   /** Dispatcher of updates without workers. */
+   private final UpdateDispatcher dispatcher = new UpdateDispatcher(0, 10, UpdateDispatcher.Backpressure.DROP, 0);
+
+   /** Main entry point for server-side Spring MVC test support. */
+   private final MockMvc mockMvc = MockMvcBuilders
+           .standaloneSetup(new MetricsController(circuitBreakers, requestBudgets, ranking, rateHistory, userStates,
+                   dispatcher))
+           .build();
+
+   /**
+    * Tests, that state of opened breaker is shown.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void breakersTest() throws Exception {
+      CircuitBreaker breaker = circuitBreakers.get(new FreeCurrencyConverterApiCom(httpClient));
+      breaker.onFailure();
+      breaker.onFailure();
+
+      mockMvc.perform(get("/metrics/breakers"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"name\":\"free.currencyapi.com\"")))
+              .andExpect(content().string(containsString("\"status\":\"OPEN\"")))
+              .andExpect(content().string(containsString("\"failureRate\":1.0")));
+   }
+
+   /**
+    * Tests, that spent requests of API with limit are shown.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void budgetsTest() throws Exception {
+      requestBudgets.tryConsume(new FreeCurrencyConverterApiCom(httpClient));
+
+      mockMvc.perform(get("/metrics/budgets"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"name\":\"free.currencyapi.com\"")))
+              .andExpect(content().string(containsString("\"capacity\":100")))
+              .andExpect(content().string(containsString("\"tokens\":99")));
+   }
+
+   /**
+    * Tests, that latency and failures of converters are shown.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void convertersTest() throws Exception {
+      ranking.get(new FreeCurrencyConverterApiCom(httpClient)).record(120, false);
+      ranking.get(new FreeCurrencyConverterApiCom(httpClient)).record(300, true);
+
+      mockMvc.perform(get("/metrics/converters"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"name\":\"free.currencyapi.com\"")))
+              .andExpect(content().string(containsString("\"calls\":2")))
+              .andExpect(content().string(containsString("\"failureRate\":0.5")))
+              .andExpect(content().string(containsString("\"p50\":120")));
+   }
+
+   /**
+    * Tests, that count of stored users and limit are shown.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void statesTest() throws Exception {
+      userStates.update(1, state -> state.withConvertStep(ConvertStep.FIRST));
+
+      mockMvc.perform(get("/metrics/states"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"users\":1")))
+              .andExpect(content().string(containsString("\"maxUsers\":100")))
+              .andExpect(content().string(containsString("\"evicted\":0")));
+   }
+
+   /**
+    * Tests, that counts of dispatched updates and settings of dispatcher are shown.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void dispatcherTest() throws Exception {
+      dispatcher.dispatch(1, () -> {});
+
+      mockMvc.perform(get("/metrics/dispatcher"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"workers\":0")))
+              .andExpect(content().string(containsString("\"backpressure\":\"DROP\"")))
+              .andExpect(content().string(containsString("\"dispatched\":1")))
+              .andExpect(content().string(containsString("\"dropped\":0")));
+   }
+
+   /**
+    * Tests, that history of the pair is shown, and incorrect period is rejected.
+    *
+    * @throws Exception if an error occurs
+    */
+   @Test
+   void historyTest() throws Exception {
+      rateHistory.record(Currency.USD, Currency.EUR, 0.875, System.currentTimeMillis());
+
+      mockMvc.perform(get("/metrics/history").param("from", "USD").param("to", "EUR").param("period", "30d"))
+              .andExpect(status().isOk())
+              .andExpect(content().string(containsString("\"close\":0.875")));
+
+      mockMvc.perform(get("/metrics/history").param("from", "EUR").param("to", "USD"))
+              .andExpect(status().isOk())
+              .andExpect(content().string("[]"));
+
+      mockMvc.perform(get("/metrics/history").param("from", "USD").param("to", "EUR").param("period", "week"))
+              .andExpect(status().isBadRequest());
+   }
+}
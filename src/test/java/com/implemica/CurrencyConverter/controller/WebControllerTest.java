@@ -1,11 +1,10 @@
 package com.implemica.CurrencyConverter.controller;
 
-
+import com.implemica.CurrencyConverter.TemporaryFilesInitializer;
 import com.implemica.CurrencyConverter.configuration.SpringConfiguration;
 import com.implemica.CurrencyConverter.configuration.WebSecurityConfig;
 import com.implemica.CurrencyConverter.configuration.WebSocketConfiguration;
 import com.implemica.CurrencyConverter.service.BotService;
-import com.implemica.CurrencyConverter.service.ConverterService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -29,11 +28,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Daria S.
  * @see MockMvc
  */
-@SpringBootTest(classes = {WebController.class, BotService.class, ConverterService.class},
+@SpringBootTest(classes = {WebController.class, BotService.class},
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
 @EnableAutoConfiguration
-@ContextConfiguration(classes = {SpringConfiguration.class, WebSocketConfiguration.class, WebSecurityConfig.class})
+@ContextConfiguration(classes = {SpringConfiguration.class, WebSocketConfiguration.class, WebSecurityConfig.class},
+        initializers = TemporaryFilesInitializer.class)
 public class WebControllerTest {
 
    /** Main entry point for server-side Spring MVC test support. */
@@ -1,6 +1,6 @@
 package com.implemica.CurrencyConverter.controller;
 
-
+import com.implemica.CurrencyConverter.TemporaryFilesInitializer;
 import com.implemica.CurrencyConverter.configuration.SpringConfiguration;
 import com.implemica.CurrencyConverter.configuration.WebSecurityConfig;
 import com.implemica.CurrencyConverter.configuration.WebSocketConfiguration;
@@ -8,7 +8,6 @@ import com.implemica.CurrencyConverter.dao.DialogDao;
 import com.implemica.CurrencyConverter.model.Dialog;
 import com.implemica.CurrencyConverter.model.User;
 import com.implemica.CurrencyConverter.service.BotService;
-import com.implemica.CurrencyConverter.service.ConverterService;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,11 +38,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @see Dialog
  * @see BotService
  */
-@SpringBootTest(classes = {WebController.class, BotService.class, ConverterService.class},
+@SpringBootTest(classes = {WebController.class, BotService.class},
         webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 @AutoConfigureMockMvc
 @EnableAutoConfiguration
-@ContextConfiguration(classes = {SpringConfiguration.class, WebSocketConfiguration.class, WebSecurityConfig.class})
+@ContextConfiguration(classes = {SpringConfiguration.class, WebSocketConfiguration.class, WebSecurityConfig.class},
+        initializers = TemporaryFilesInitializer.class)
 public class WebSocketTest {
 
    /** Representational of row in HTML table. */
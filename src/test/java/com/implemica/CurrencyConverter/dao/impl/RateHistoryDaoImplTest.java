@@ -0,0 +1,223 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests RateHistoryDaoImpl class.
+ *
+ * @author Dmytro K.
+ * @see RateHistoryDaoImpl
+ */
+public class RateHistoryDaoImplTest {
+
+   /** Day in ms. */
+   private static final long DAY = 24 * 60 * 60 * 1000L;
+
+   /** Directory with segments. */
+   private File directory;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      directory = Files.createTempDirectory("history").toFile();
+   }
+
+   @AfterEach
+   void tearDown() {
+      File[] segments = directory.listFiles();
+
+      if (segments != null) {
+         for (File segment : segments) {
+            segment.delete();
+         }
+      }
+      directory.delete();
+   }
+
+   /**
+    * Tests, that flushed observations are loaded in time order, one segment is written per day,
+    * the buffer is written, when an observation of the next day is appended,
+    * and observations before the given time are skipped.
+    */
+   @Test
+   void appendAndLoad() {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.append(Currency.USD, Currency.UAH, 27.5, DAY + 2000);
+      assertEquals(0, new RateHistoryDaoImpl(directory).load(0, (from, to, rate, time) -> { }));
+
+      dao.append(Currency.USD, Currency.EUR, 0.88, 2 * DAY + 1000);
+      assertEquals(2, new RateHistoryDaoImpl(directory).load(0, (from, to, rate, time) -> { }));
+
+      dao.flush();
+      assertEquals(2, directory.listFiles().length);
+
+      List<String> observations = new ArrayList<>();
+      assertEquals(3, new RateHistoryDaoImpl(directory).load(0, (from, to, rate, time) ->
+              observations.add(from + " " + to + " " + rate + " " + time)));
+
+      assertEquals("USD EUR 0.87 " + (DAY + 1000), observations.get(0));
+      assertEquals("USD UAH 27.5 " + (DAY + 2000), observations.get(1));
+      assertEquals("USD EUR 0.88 " + (2 * DAY + 1000), observations.get(2));
+
+      assertEquals(2, new RateHistoryDaoImpl(directory).load(DAY + 2000, (from, to, rate, time) -> { }));
+   }
+
+   /**
+    * Tests, that observations are appended to the existing segment after a restart.
+    */
+   @Test
+   void appendAfterRestart() {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.flush();
+
+      RateHistoryDaoImpl restarted = new RateHistoryDaoImpl(directory);
+      restarted.append(Currency.USD, Currency.EUR, 0.88, DAY + 2000);
+      restarted.flush();
+
+      assertEquals(1, directory.listFiles().length);
+      assertEquals(2, restarted.load(0, (from, to, rate, time) -> { }));
+   }
+
+   /**
+    * Tests, that a record, which was written partly, is skipped.
+    *
+    * @throws IOException if the segment can't be changed
+    */
+   @Test
+   void partialRecordIsSkipped() throws IOException {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.append(Currency.USD, Currency.EUR, 0.88, DAY + 2000);
+      dao.flush();
+
+      File segment = directory.listFiles()[0];
+
+      try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+         file.setLength(file.length() - 5);
+      }
+
+      assertEquals(1, dao.load(0, (from, to, rate, time) -> assertEquals(0.87, rate)));
+   }
+
+   /**
+    * Tests, that stray bytes at the end of a segment are cut off before the next
+    * writing, so all whole records are read.
+    *
+    * @throws IOException if the segment can't be changed
+    */
+   @Test
+   void strayBytesAreCutOff() throws IOException {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.flush();
+
+      File segment = directory.listFiles()[0];
+      long written = segment.length();
+
+      try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+         file.seek(file.length());
+         file.write(new byte[]{1, 2, 3, 4, 5, 6, 7});
+      }
+
+      dao.append(Currency.USD, Currency.UAH, 27.5, DAY + 2000);
+      dao.append(Currency.EUR, Currency.UAH, 31.5, DAY + 3000);
+      dao.flush();
+      assertEquals(written + 40, segment.length());
+
+      List<String> observations = new ArrayList<>();
+      assertEquals(3, dao.load(0, (from, to, rate, time) -> observations.add(from + " " + to + " " + rate)));
+      assertEquals(Arrays.asList("USD EUR 0.87", "USD UAH 27.5", "EUR UAH 31.5"), observations);
+   }
+
+   /**
+    * Tests, that a header, which was written partly, is written again.
+    *
+    * @throws IOException if the segment can't be changed
+    */
+   @Test
+   void partialHeaderIsWrittenAgain() throws IOException {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.flush();
+
+      try (RandomAccessFile file = new RandomAccessFile(directory.listFiles()[0], "rw")) {
+         file.setLength(20);
+      }
+
+      dao.append(Currency.USD, Currency.UAH, 27.5, DAY + 2000);
+      dao.flush();
+
+      assertEquals(1, dao.load(0, (from, to, rate, time) -> assertEquals(27.5, rate)));
+   }
+
+   /**
+    * Tests, that a record with a currency out of the table is skipped, and next records are read.
+    *
+    * @throws IOException if the segment can't be changed
+    */
+   @Test
+   void recordWithUnknownCurrencyIsSkipped() throws IOException {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.flush();
+
+      try (RandomAccessFile file = new RandomAccessFile(directory.listFiles()[0], "rw")) {
+         file.seek(file.length());
+         file.writeShort(Short.MAX_VALUE);
+         file.writeShort(-2);
+         file.writeLong(DAY + 2000);
+         file.writeDouble(1.5);
+      }
+
+      dao.append(Currency.USD, Currency.UAH, 27.5, DAY + 3000);
+      dao.flush();
+
+      List<Double> rates = new ArrayList<>();
+      assertEquals(2, dao.load(0, (from, to, rate, time) -> rates.add(rate)));
+      assertEquals(Arrays.asList(0.87, 27.5), rates);
+   }
+
+   /**
+    * Tests, that segments of days before the given time are removed.
+    */
+   @Test
+   void deleteBefore() {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(directory);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.append(Currency.USD, Currency.EUR, 0.88, 3 * DAY + 1000);
+      dao.flush();
+
+      dao.deleteBefore(2 * DAY + 1000);
+
+      assertEquals(1, directory.listFiles().length);
+      assertEquals(1, dao.load(0, (from, to, rate, time) -> assertEquals(0.88, rate)));
+   }
+
+   /**
+    * Tests, that dao without directory doesn't save observations.
+    */
+   @Test
+   void withoutDirectory() {
+      RateHistoryDaoImpl dao = new RateHistoryDaoImpl(null);
+      dao.append(Currency.USD, Currency.EUR, 0.87, DAY + 1000);
+      dao.flush();
+      dao.deleteBefore(DAY);
+
+      assertEquals(0, dao.load(0, (from, to, rate, time) -> { }));
+   }
+}
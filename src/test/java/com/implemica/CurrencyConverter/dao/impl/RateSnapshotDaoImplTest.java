@@ -0,0 +1,91 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests RateSnapshotDaoImpl class.
+ *
+ * @author Dmytro K.
+ * @see RateSnapshotDaoImpl
+ */
+public class RateSnapshotDaoImplTest {
+
+   /** Time in ms during which a rate is fresh. */
+   private static final long TIME_TO_LIVE = 60 * 60 * 1000;
+
+   /** Time in ms after which a stale rate can't be used. */
+   private static final long MAX_STALENESS = 24 * 60 * 60 * 1000;
+
+   /** Snapshot file. */
+   private File file;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      file = File.createTempFile("rates", ".snapshot");
+      assertTrue(file.delete());
+   }
+
+   @AfterEach
+   void tearDown() {
+      file.delete();
+   }
+
+   /**
+    * Tests, that saved rates are loaded with their time of fetching, and too old rates are skipped.
+    */
+   @Test
+   void saveAndLoad() {
+      RateCache rateCache = new RateCache(TIME_TO_LIVE, MAX_STALENESS, 100);
+      long now = System.currentTimeMillis();
+
+      rateCache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      assertTrue(rateCache.restore(Currency.USD, Currency.EUR, 0.875, now - TIME_TO_LIVE * 2));
+
+      RateSnapshotDaoImpl dao = new RateSnapshotDaoImpl(file);
+      assertEquals(2, dao.save(rateCache));
+
+      RateCache loaded = new RateCache(TIME_TO_LIVE, MAX_STALENESS, 100);
+      assertEquals(2, dao.load(loaded));
+
+      assertEquals(new BigDecimal("27.5"), loaded.get(Currency.USD, Currency.UAH));
+      assertEquals(rateCache.getFetchedAt(Currency.USD, Currency.UAH), loaded.getFetchedAt(Currency.USD, Currency.UAH));
+      assertNull(loaded.get(Currency.USD, Currency.EUR));
+      assertEquals(new BigDecimal("0.875"), loaded.getStale(Currency.USD, Currency.EUR));
+
+      RateCache shortLived = new RateCache(TIME_TO_LIVE, TIME_TO_LIVE, 100);
+      assertEquals(1, dao.load(shortLived));
+      assertNull(shortLived.getStale(Currency.USD, Currency.EUR));
+   }
+
+   /**
+    * Tests, that an empty cache is saved, and a missing or broken file is not loaded.
+    */
+   @Test
+   void emptyMissingAndBrokenSnapshot() throws IOException {
+      RateSnapshotDaoImpl dao = new RateSnapshotDaoImpl(file);
+      RateCache rateCache = new RateCache(TIME_TO_LIVE, MAX_STALENESS, 100);
+
+      assertEquals(0, dao.load(rateCache));
+
+      assertEquals(0, dao.save(rateCache));
+      assertTrue(file.exists());
+      assertEquals(0, dao.load(rateCache));
+
+      Files.write(file.toPath(), new byte[]{1, 2, 3});
+      assertEquals(0, dao.load(rateCache));
+      assertEquals(0, rateCache.size());
+
+      assertEquals(0, new RateSnapshotDaoImpl(null).save(rateCache));
+   }
+}
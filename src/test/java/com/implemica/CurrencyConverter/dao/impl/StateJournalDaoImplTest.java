@@ -0,0 +1,169 @@
+package com.implemica.CurrencyConverter.dao.impl;
+
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests StateJournalDaoImpl class.
+ *
+ * @author Dmytro K.
+ * @see StateJournalDaoImpl
+ */
+public class StateJournalDaoImplTest {
+
+   /** Journal file. */
+   private File file;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      file = Files.createTempFile("states", ".journal").toFile();
+      file.delete();
+   }
+
+   @AfterEach
+   void tearDown() {
+      file.delete();
+   }
+
+   /**
+    * Tests, that the last state of every user is loaded after flush, and
+    * old and initial states are skipped.
+    */
+   @Test
+   void appendAndLoad() {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(file);
+
+      dao.append(1, new State("", "", ConvertStep.FIRST), 1000);
+      dao.append(2, new State("USD", "", ConvertStep.SECOND), 2000);
+      dao.append(1, new State("EUR", "", ConvertStep.SECOND), 3000);
+      dao.append(3, new State("UAH", "USD", ConvertStep.THIRD), 4000);
+      dao.append(3, State.INITIAL, 5000);
+      assertEquals(0, new StateJournalDaoImpl(file).load(0, (userId, state, time) -> { }));
+
+      dao.flush();
+      Map<Integer, String> states = load(new StateJournalDaoImpl(file), 0);
+
+      assertEquals(2, states.size());
+      assertEquals(new State("EUR", "", ConvertStep.SECOND) + " 3000", states.get(1));
+      assertEquals(new State("USD", "", ConvertStep.SECOND) + " 2000", states.get(2));
+
+      assertEquals(1, load(new StateJournalDaoImpl(file), 2500).size());
+   }
+
+   /**
+    * Tests, that compaction keeps only the last states, which are not old,
+    * and new transitions are appended after it.
+    */
+   @Test
+   void compact() {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(file);
+
+      for (int i = 0; i < 100; i++) {
+         dao.append(i % 10, new State("USD", "EUR", ConvertStep.values()[1 + i % 3]), i);
+      }
+
+      assertEquals(5, dao.compact(95));
+      long compacted = file.length();
+
+      dao.append(20, new State("USD", "", ConvertStep.SECOND), 200);
+      dao.flush();
+
+      assertEquals(compacted + 17, file.length());
+      assertEquals(6, load(new StateJournalDaoImpl(file), 0).size());
+   }
+
+   /**
+    * Tests, that a transition, which was written partly, is skipped.
+    */
+   @Test
+   void partlyWrittenTransition() throws IOException {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(file);
+      dao.append(1, new State("USD", "", ConvertStep.SECOND), 1000);
+      dao.append(2, new State("EUR", "", ConvertStep.SECOND), 2000);
+      dao.flush();
+
+      try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+         journal.setLength(journal.length() - 5);
+      }
+
+      Map<Integer, String> states = load(new StateJournalDaoImpl(file), 0);
+      assertEquals(1, states.size());
+      assertTrue(states.containsKey(1));
+   }
+
+   /**
+    * Tests, that a transition, which was written partly, is cut off, so next transitions are read.
+    */
+   @Test
+   void appendAfterPartlyWrittenTransition() throws IOException {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(file);
+      dao.append(1, new State("USD", "", ConvertStep.SECOND), 1000);
+      dao.append(2, new State("EUR", "", ConvertStep.SECOND), 2000);
+      dao.flush();
+      long written = file.length();
+
+      try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+         journal.setLength(written - 5);
+      }
+
+      dao.append(3, new State("UAH", "", ConvertStep.SECOND), 3000);
+      dao.flush();
+      assertEquals(written, file.length());
+
+      Map<Integer, String> states = load(new StateJournalDaoImpl(file), 0);
+      assertEquals(2, states.size());
+      assertEquals(new State("UAH", "", ConvertStep.SECOND) + " 3000", states.get(3));
+   }
+
+   /**
+    * Tests, that a header, which was written partly, is written again.
+    */
+   @Test
+   void appendAfterPartlyWrittenHeader() throws IOException {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(file);
+      dao.append(1, new State("USD", "", ConvertStep.SECOND), 1000);
+      dao.flush();
+
+      try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+         journal.setLength(20);
+      }
+
+      dao.append(2, new State("EUR", "", ConvertStep.SECOND), 2000);
+      dao.flush();
+
+      Map<Integer, String> states = load(new StateJournalDaoImpl(file), 0);
+      assertEquals(1, states.size());
+      assertEquals(new State("EUR", "", ConvertStep.SECOND) + " 2000", states.get(2));
+   }
+
+   /**
+    * Tests, that nothing is written, if file is not set.
+    */
+   @Test
+   void withoutFile() {
+      StateJournalDaoImpl dao = new StateJournalDaoImpl(null);
+      dao.append(1, new State("USD", "", ConvertStep.SECOND), 1000);
+      dao.flush();
+
+      assertEquals(0, dao.compact(0));
+      assertEquals(0, dao.load(0, (userId, state, time) -> { }));
+   }
+
+   private static Map<Integer, String> load(StateJournalDaoImpl dao, long since) {
+      Map<Integer, String> states = new LinkedHashMap<>();
+      dao.load(since, (userId, state, time) -> states.put(userId, state + " " + time));
+      return states;
+   }
+}
@@ -0,0 +1,85 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing AsyncExecutor.
+ *
+ * @author Dmytro K.
+ * @see AsyncExecutor
+ */
+public class AsyncExecutorTest {
+
+   /** Executor with one thread and one place in the queue. */
+   private final AsyncExecutor executor = new AsyncExecutor(1, 1, 0);
+
+   @AfterEach
+   void tearDown() {
+      executor.shutdown();
+   }
+
+   /**
+    * Tests, that result and exception of the task are passed to the future.
+    */
+   @Test
+   void resultAndException() throws Exception {
+      assertEquals("result", executor.supply(() -> "result").get(5, TimeUnit.SECONDS));
+
+      CompletableFuture<String> failed = executor.supply(() -> {
+         throw new IOException("failed");
+      });
+
+      ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof IOException);
+   }
+
+   /**
+    * Tests, that a slow task is interrupted after timeout.
+    */
+   @Test
+   void timeout() throws Exception {
+      CountDownLatch interrupted = new CountDownLatch(1);
+
+      CompletableFuture<String> future = executor.supply(() -> {
+         try {
+            Thread.sleep(60000);
+         } catch (InterruptedException e) {
+            interrupted.countDown();
+         }
+         return "late";
+      }, 100);
+
+      ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof TimeoutException);
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+   }
+
+   /**
+    * Tests, that tasks are rejected, when the queue is full.
+    */
+   @Test
+   void rejectWhenQueueIsFull() throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+      Callable<String> blocked = () -> {
+         release.await();
+         return "done";
+      };
+
+      CompletableFuture<String> running = executor.supply(blocked);
+      CompletableFuture<String> waiting = executor.supply(blocked);
+      CompletableFuture<String> rejected = executor.supply(blocked);
+
+      assertTrue(rejected.isCompletedExceptionally());
+      assertEquals(1, executor.getQueueSize());
+
+      release.countDown();
+      assertEquals("done", running.get(5, TimeUnit.SECONDS));
+      assertEquals("done", waiting.get(5, TimeUnit.SECONDS));
+   }
+}
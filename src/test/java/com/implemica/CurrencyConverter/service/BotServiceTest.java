@@ -1,24 +1,41 @@
 package com.implemica.CurrencyConverter.service;
 
+import com.implemica.CurrencyConverter.TemporaryFilesInitializer;
 import com.implemica.CurrencyConverter.configuration.SpringConfiguration;
 import com.implemica.CurrencyConverter.configuration.WebSocketConfiguration;
+import com.implemica.CurrencyConverter.dao.DialogDao;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.State;
 import com.implemica.CurrencyConverter.model.User;
+import com.implemica.CurrencyConverter.service.rates.RateHistory;
+import com.implemica.CurrencyConverter.service.state.ConcurrentUserStateStore;
+import com.implemica.CurrencyConverter.service.state.UserStateStore;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.ContextConfiguration;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
 
 /**
  * This class tests BotService class
@@ -26,8 +43,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * @author Daria S.
  * @version 31.01.2019 17:12
  */
-@SpringBootTest(classes = {BotService.class, ConverterService.class})
+@SpringBootTest(classes = BotService.class)
 @Import({SpringConfiguration.class, WebSocketConfiguration.class})
+@ContextConfiguration(initializers = TemporaryFilesInitializer.class)
 public class BotServiceTest {
 
    /**
@@ -36,6 +54,12 @@ public class BotServiceTest {
    @Autowired
    private BotService testBotService;
 
+   /**
+    * History of rates, which is used by bot
+    */
+   @Autowired
+   private RateHistory rateHistory;
+
    /**
     * Money sign for result message
     */
@@ -187,6 +211,68 @@ public class BotServiceTest {
       assertEquals(FIRST_CONVERT_MESSAGE, testBotService.processCommand("/convert", user2));
    }
 
+   /**
+    * Tests, that dialogs of users, whose messages are processed by many threads at the same time, don't mix
+    */
+   @Test
+   void parallelUsersTest() throws Exception {
+      String[] currencies = {"USD", "EUR", "UAH", "GBP", "PLN", "JPY", "CAD", "CHF"};
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      List<Future<?>> dialogs = new ArrayList<>();
+
+      for (int i = 0; i < 200; i++) {
+         User user = new User(100000 + i, "user" + i);
+         String from = currencies[i % currencies.length];
+         String to = currencies[(i + 1) % currencies.length];
+
+         dialogs.add(executor.submit(() -> {
+            assertEquals(FIRST_CONVERT_MESSAGE, testBotService.processCommand(CONVERT, user));
+            assertEquals(SECOND_CONVERT_MESSAGE_1 + from + SECOND_CONVERT_MESSAGE_2,
+                    testBotService.processCommand(from, user));
+            assertEquals(THIRD_CONVERT_MESSAGE + from + " to " + to, testBotService.processCommand(to, user));
+         }));
+      }
+
+      try {
+         for (Future<?> dialog : dialogs) {
+            dialog.get();
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+
+   /**
+    * Tests, that conversion is started once and only after the state of user was replaced,
+    * even if the store calls the transition more than once
+    */
+   @Test
+   void conversionAfterStateUpdateTest() {
+      ConverterService converterService = mock(ConverterService.class);
+      when(converterService.convertAsync(Currency.USD, Currency.UAH, BigDecimal.TEN))
+              .thenReturn(CompletableFuture.completedFuture(new BigDecimal("275")));
+
+      UserStateStore states = new ConcurrentUserStateStore(60000, 100) {
+         @Override
+         public State update(int userId, UnaryOperator<State> transition) {
+            State state = super.update(userId, current -> {
+               transition.apply(current);
+               return transition.apply(current);
+            });
+
+            verifyZeroInteractions(converterService);
+            return state;
+         }
+      };
+
+      BotService botService = new BotService(converterService, mock(DialogDao.class), mock(SimpMessagingTemplate.class),
+              rateHistory, states);
+
+      assertEquals(MONEY_SIGN + "10 USD is 275 UAH", botService.processCommand("10 USD to UAH", testUser));
+      verify(converterService, times(1)).convertAsync(Currency.USD, Currency.UAH, BigDecimal.TEN);
+   }
+
 
    /**
     * Tests, that bot's response to text, which is not command is correct
@@ -447,6 +533,40 @@ public class BotServiceTest {
    }
 
 
+   /**
+    * Tests one line request with several currencies to convert to
+    */
+   @Test
+   void oneLineManyCurrenciesTest() {
+      assertCommand("0 USD in EUR,uah, GBP", MONEY_SIGN + "0 USD is 0 EUR\n" +
+              MONEY_SIGN + "0 USD is 0 UAH\n" + MONEY_SIGN + "0 USD is 0 GBP");
+      assertCommand("12.5 uah to UAH , uah", MONEY_SIGN + "12.5 UAH is 12.5 UAH");
+
+      assertCommand("10 USD in EUR,dollars,UAH", SORRY_BUT + "DOLLARS" + IS_NOT_A_VALID_CURRENCY + CONVERT_MESSAGE);
+      assertCommand("10 USD in EUR,,UAH", SORRY_BUT + IS_NOT_A_VALID_CURRENCY + CONVERT_MESSAGE);
+   }
+
+   /**
+    * Tests /history command
+    */
+   @Test
+   void historyTest() {
+      rateHistory.record(Currency.XTS, Currency.XXX, 1.25, System.currentTimeMillis());
+
+      String response = testBotService.processCommand("/history xts XXX 24h", testUser);
+      assertTrue(response.startsWith("\uD83D\uDCC8XTS → XXX (UTC):\n"), response);
+      assertTrue(response.endsWith(" 1.25"), response);
+
+      response = testBotService.processCommand("/history XTS XXX", testUser);
+      assertTrue(response.endsWith(" 1.25"), response);
+
+      assertCommand("/history XBA XBB 30d", "❗Sorry, but there is no history of XBA → XBB yet." + CONVERT_MESSAGE);
+      assertCommand("/history USD dollars", SORRY_BUT + "DOLLARS" + IS_NOT_A_VALID_CURRENCY + CONVERT_MESSAGE);
+      assertTrue(testBotService.processCommand("/history USD EUR week", testUser)
+              .startsWith(SORRY_BUT + "week\" is not a valid period."));
+      assertTrue(testBotService.processCommand("/history", testUser).startsWith("Please, type in /history command"));
+   }
+
    /**
     * Tests, that bot reaction for command after all steps of conversion is correct
     */
@@ -0,0 +1,123 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.TestClock;
+import org.junit.jupiter.api.Test;
+
+import static com.implemica.CurrencyConverter.service.CircuitBreaker.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing CircuitBreaker.
+ *
+ * @author Dmytro K.
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerTest {
+
+   /** Time in ms during which the breaker stays open. */
+   private static final long COOL_DOWN = 1000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /** Breaker, which opens when half of last 4 calls failed. */
+   private final CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 4, 4, COOL_DOWN, clock);
+
+   /**
+    * Tests, that the breaker doesn't open before min count of calls.
+    */
+   @Test
+   void staysClosedBeforeMinimumCalls() {
+      breaker.onFailure();
+      breaker.onFailure();
+      breaker.onFailure();
+
+      assertEquals(CLOSED, breaker.getStatus());
+      assertTrue(breaker.tryAcquire());
+   }
+
+   /**
+    * Tests, that the breaker opens, when rate of failures is reached, and skips calls during cool down.
+    */
+   @Test
+   void opensOnFailureRate() {
+      breaker.onSuccess();
+      breaker.onSuccess();
+      breaker.onFailure();
+      assertEquals(CLOSED, breaker.getStatus());
+
+      breaker.onFailure();
+      assertEquals(OPEN, breaker.getStatus());
+      assertFalse(breaker.tryAcquire());
+
+      clock.move(COOL_DOWN - 1);
+      assertFalse(breaker.tryAcquire());
+   }
+
+   /**
+    * Tests, that only old results are removed from the window.
+    */
+   @Test
+   void slidingWindow() {
+      breaker.onFailure();
+      for (int i = 0; i < 4; i++) {
+         breaker.onSuccess();
+      }
+      breaker.onFailure();
+
+      assertEquals(CLOSED, breaker.getStatus());
+   }
+
+   /**
+    * Tests, that after cool down only one trial call is allowed and its success closes the breaker.
+    */
+   @Test
+   void halfOpenSuccess() {
+      open();
+      clock.move(COOL_DOWN);
+
+      assertTrue(breaker.tryAcquire());
+      assertEquals(HALF_OPEN, breaker.getStatus());
+      assertFalse(breaker.tryAcquire());
+
+      breaker.onSuccess();
+      assertEquals(CLOSED, breaker.getStatus());
+      assertTrue(breaker.tryAcquire());
+   }
+
+   /**
+    * Tests, that failed trial call opens the breaker again.
+    */
+   @Test
+   void halfOpenFailure() {
+      open();
+      clock.move(COOL_DOWN);
+
+      assertTrue(breaker.tryAcquire());
+      breaker.onFailure();
+
+      assertEquals(OPEN, breaker.getStatus());
+      assertFalse(breaker.tryAcquire());
+   }
+
+   /**
+    * Tests, that cancelled trial call allows the next one.
+    */
+   @Test
+   void halfOpenRelease() {
+      open();
+      clock.move(COOL_DOWN);
+
+      assertTrue(breaker.tryAcquire());
+      breaker.release();
+
+      assertTrue(breaker.tryAcquire());
+   }
+
+   private void open() {
+      for (int i = 0; i < 4; i++) {
+         breaker.onFailure();
+      }
+      assertEquals(OPEN, breaker.getStatus());
+   }
+}
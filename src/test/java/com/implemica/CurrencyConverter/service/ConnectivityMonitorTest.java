@@ -0,0 +1,65 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing ConnectivityMonitor with a local host instead of google.com.
+ *
+ * @author Dmytro K.
+ * @see ConnectivityMonitor
+ */
+public class ConnectivityMonitorTest {
+
+   /** Local host, which is used instead of google.com. */
+   private static final String LOCAL_HOST = "127.0.0.1";
+
+   /** Time for connection to the host in ms. */
+   private static final int TIMEOUT = 1000;
+
+   /**
+    * Tests, that the state follows availability of the host.
+    */
+   @Test
+   void probeLocalHost() throws IOException {
+      ConnectivityMonitor monitor;
+
+      try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+         monitor = new ConnectivityMonitor(LOCAL_HOST, server.getLocalPort(), TIMEOUT, 60000);
+
+         assertTrue(monitor.probe());
+         assertTrue(monitor.isConnected());
+      }
+
+      assertFalse(monitor.probe());
+      assertFalse(monitor.isConnected());
+   }
+
+   /**
+    * Tests, that reported failure refreshes the state in background.
+    */
+   @Test
+   void reportFailure() throws IOException, InterruptedException {
+      int port;
+      try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+         port = server.getLocalPort();
+      }
+
+      ConnectivityMonitor monitor = new ConnectivityMonitor(LOCAL_HOST, port, TIMEOUT, 60000);
+      assertTrue(monitor.isConnected());
+
+      monitor.reportFailure();
+
+      for (int i = 0; i < 50 && monitor.isConnected(); i++) {
+         Thread.sleep(100);
+      }
+      assertFalse(monitor.isConnected());
+
+      monitor.stop();
+   }
+}
@@ -0,0 +1,131 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.converters.ConverterAPI;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing ConverterRanking and ConverterStatistics.
+ *
+ * @author Dmytro K.
+ * @see ConverterRanking
+ * @see ConverterStatistics
+ */
+public class ConverterRankingTest {
+
+   /** Time in ms, after which a call is not used for ranking. */
+   private static final long MAX_AGE = 60000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /** Ranking, which needs 2 fresh calls of API. */
+   private final ConverterRanking ranking = new ConverterRanking(true, 10, 2, MAX_AGE, clock);
+
+   /** APIs in the configured order. */
+   private final List<ConverterAPI> converters = Arrays.asList(new TestConverter("first"),
+           new TestConverter("second"), new TestConverter("third"));
+
+   /**
+    * Tests, that APIs without enough calls keep the configured order.
+    */
+   @Test
+   void configuredOrderWithoutStatistics() {
+      record(converters.get(2), 10, false);
+
+      assertEquals(converters, ranking.rank(converters));
+   }
+
+   /**
+    * Tests, that measured APIs are sorted by latency among their places, and other APIs keep their places.
+    */
+   @Test
+   void fastestFirst() {
+      record(converters.get(0), 500, false);
+      record(converters.get(0), 700, false);
+      record(converters.get(2), 100, false);
+      record(converters.get(2), 120, false);
+
+      assertEquals(Arrays.asList(converters.get(2), converters.get(1), converters.get(0)), ranking.rank(converters));
+   }
+
+   /**
+    * Tests, that failures make the score of API worse.
+    */
+   @Test
+   void failuresAreTakenIntoAccount() {
+      record(converters.get(0), 100, false);
+      record(converters.get(0), 100, true);
+      record(converters.get(1), 150, false);
+      record(converters.get(1), 150, false);
+
+      assertEquals(200, ranking.get(converters.get(0)).getScore());
+      assertEquals(150, ranking.get(converters.get(1)).getScore());
+      assertEquals(converters.get(1), ranking.rank(converters).get(0));
+   }
+
+   /**
+    * Tests, that old calls are not used, so API returns to its configured place.
+    */
+   @Test
+   void oldCallsAreForgotten() {
+      record(converters.get(0), 900, false);
+      record(converters.get(0), 900, false);
+      record(converters.get(1), 100, false);
+      record(converters.get(1), 100, false);
+      assertEquals(converters.get(1), ranking.rank(converters).get(0));
+
+      clock.move(MAX_AGE + 1);
+      record(converters.get(1), 100, false);
+      record(converters.get(1), 100, false);
+
+      assertTrue(Double.isNaN(ranking.get(converters.get(0)).getScore()));
+      assertEquals(converters, ranking.rank(converters));
+   }
+
+   /**
+    * Tests, that disabled ranking keeps the configured order.
+    */
+   @Test
+   void disabled() {
+      ConverterRanking disabled = new ConverterRanking(false, 10, 1, MAX_AGE, clock);
+      disabled.get(converters.get(0)).record(900, true);
+      disabled.get(converters.get(1)).record(100, false);
+
+      assertEquals(converters, disabled.rank(converters));
+   }
+
+   private void record(ConverterAPI converter, long latency, boolean failed) {
+      ranking.get(converter).record(latency, failed);
+   }
+
+   /**
+    * Converter, which is not called by tests.
+    */
+   private static class TestConverter implements ConverterAPI {
+
+      /** Name of API. */
+      private final String name;
+
+      private TestConverter(String name) {
+         this.name = name;
+      }
+
+      @Override
+      public BigDecimal convert(Currency from, Currency to, BigDecimal value) {
+         return value;
+      }
+
+      @Override
+      public String getName() {
+         return name;
+      }
+   }
+}
@@ -1,17 +1,21 @@
 package com.implemica.CurrencyConverter.service;
 
+import com.implemica.CurrencyConverter.TestClock;
 import com.implemica.CurrencyConverter.model.Currency;
 import com.implemica.CurrencyConverter.service.converters.*;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
 import com.tunyk.currencyconverter.api.CurrencyConverterException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
 import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +32,15 @@ public class ConverterServiceTest {
    /* constants */
    private final String USD = "USD";
 
+   /** Client for requests to APIs. */
+   private static final JsonHttpClient HTTP_CLIENT = new JsonHttpClient(10, 3000, 5000);
+
+   /** Time in ms after which a rate from APIs is too old. */
+   private static final long MAX_STALENESS = 14 * 24 * 60 * 60 * 1000L;
+
+   /** Local host, which is used instead of google.com. */
+   private static final String LOCAL_HOST = "127.0.0.1";
+
    /** Service, which uses for conversion. */
    private static ConverterService converterService = new ConverterService();
 
@@ -38,11 +51,21 @@ public class ConverterServiceTest {
    private static final String API_MESSAGE_WITH_ONE_UNSUPPORTED_CURRENCY = "Currency not supported:";
 
    private static final BankUaCom convertByBankUaCom = new BankUaCom();
-   private static final CurrencyLayerCom convertByCurrencyLayerCom = new CurrencyLayerCom();
-   private static final FloatRatesCom convertByFloatRatesCom = new FloatRatesCom();
-   private static final FreeCurrencyConverterApiCom convertByFreeCurrencyConverterApiCom = new FreeCurrencyConverterApiCom();
+   private static final CurrencyLayerCom convertByCurrencyLayerCom = new CurrencyLayerCom(HTTP_CLIENT);
+   private static final FloatRatesCom convertByFloatRatesCom = new FloatRatesCom(new RateCache(60000, MAX_STALENESS, 1000),
+           HTTP_CLIENT);
+   private static final FreeCurrencyConverterApiCom convertByFreeCurrencyConverterApiCom = new FreeCurrencyConverterApiCom(HTTP_CLIENT);
    private static final JavaMoney convertByJavaMoney = new JavaMoney();
 
+   /** Monitor of connection to a closed local port, so it shows, that there is no internet connection. */
+   private ConnectivityMonitor monitor;
+
+   /** Invoker of converters for services, which are created by tests. */
+   private HedgedInvoker invoker;
+
+   /** Executor of asynchronous conversions for services, which are created by tests. */
+   private AsyncExecutor asyncExecutor;
+
 
    /** Array of available currencies that can be converted between themselves by {@link ConverterService}. */
    private static String[] existingCurrency = new String[] { "UAH", "AWG", "GEL", "ALL", "ZAR", "BND", "JMD", "BRL",
@@ -69,6 +92,33 @@ public class ConverterServiceTest {
    private ThreadPoolExecutor executor = new ThreadPoolExecutor(145, 21025, 2000, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(145));
 
 
+   /**
+    * Creates components of service without internet connection.
+    */
+   @BeforeEach
+   void setUp() throws IOException {
+      int port;
+      try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+         port = server.getLocalPort();
+      }
+
+      monitor = new ConnectivityMonitor(LOCAL_HOST, port, 1000, 60000);
+      assertFalse(monitor.probe());
+
+      invoker = new HedgedInvoker();
+      asyncExecutor = new AsyncExecutor(2, 10, 10000);
+   }
+
+   /**
+    * Stops threads of components of service.
+    */
+   @AfterEach
+   void tearDown() {
+      monitor.stop();
+      invoker.shutdown();
+      asyncExecutor.shutdown();
+   }
+
    /**
     * Function test popular currencies in Ukraine.
     */
@@ -219,6 +269,196 @@ public class ConverterServiceTest {
       }
    }
 
+   /**
+    * Tests, that rate from the cache is used without requests to APIs.
+    */
+   @Test
+   void convertByCachedRate() throws CurrencyConverterException, UnknownHostException {
+      RateCache rateCache = new RateCache(60000, 10);
+      rateCache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+
+      ConverterService service = createService(rateCache);
+
+      assertEquals(new BigDecimal("275.0"), service.convert(Currency.USD, Currency.UAH, BigDecimal.TEN));
+   }
+
+   /**
+    * Tests, that the same amount is converted to the same value, when the
+    * rate is fetched from API and when it's taken from the cache, so the
+    * exact rate of API is not rounded to double by the cache.
+    */
+   @Test
+   void convertByExactRate() throws CurrencyConverterException, UnknownHostException {
+      BigDecimal rate = new BigDecimal("0.123456789012345678901");
+      RateCache rateCache = new RateCache(60000, 10);
+      ConverterAPI api = (from, to, value) -> value.multiply(rate);
+
+      ConverterService service = new ConverterService(rateCache, new ConnectivityMonitor(LOCAL_HOST, 0, 1000, 60000),
+              invoker, new CircuitBreakerRegistry(0.5, 10, 5, 60000), new RequestBudgetRegistry(null),
+              new ConverterRanking(true, 10, 2, 60000), asyncExecutor, Collections.singletonList(api));
+
+      BigDecimal fetched = service.convert(Currency.USD, Currency.UAH, new BigDecimal("1000"));
+      BigDecimal cached = service.convert(Currency.USD, Currency.UAH, new BigDecimal("1000"));
+
+      assertEquals(new BigDecimal("123.456789012345678901000"), fetched);
+      assertEquals(fetched, cached);
+   }
+
+   /**
+    * Tests, that a slow converter, which was cancelled, because the hedged
+    * one answered first, is not saved to statistics with its time till cancelling.
+    */
+   @Test
+   void cancelledCallIsNotRanked() throws Exception {
+      CountDownLatch cancelled = new CountDownLatch(1);
+      ConverterAPI slow = (from, to, value) -> {
+         try {
+            Thread.sleep(10000);
+         } catch (InterruptedException e) {
+            cancelled.countDown();
+            throw e;
+         }
+         return value;
+      };
+      ConverterAPI fast = (from, to, value) -> value.multiply(new BigDecimal("27.5"));
+
+      HedgedInvoker hedgedInvoker = new HedgedInvoker(2, 10, 50);
+      ConverterRanking ranking = new ConverterRanking(true, 10, 1, 60000);
+
+      try {
+         ConverterService service = new ConverterService(new RateCache(60000, 10),
+                 new ConnectivityMonitor(LOCAL_HOST, 0, 1000, 60000), hedgedInvoker,
+                 new CircuitBreakerRegistry(0.5, 10, 5, 60000), new RequestBudgetRegistry(null), ranking,
+                 asyncExecutor, Arrays.asList(slow, fast));
+
+         assertEquals(new BigDecimal("275.0"), service.convert(Currency.USD, Currency.UAH, BigDecimal.TEN));
+         assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+         Thread.sleep(50);
+
+         assertEquals(0, ranking.get(slow).getMetrics().get("calls"));
+         assertEquals(1, ranking.get(fast).getMetrics().get("calls"));
+
+      } finally {
+         hedgedInvoker.shutdown();
+      }
+   }
+
+   /**
+    * Tests, that the trial call of a half-open breaker is not taken by a hedged
+    * converter, which was not started, because the primary one answered first.
+    */
+   @Test
+   void notStartedCallKeepsTrialCall() throws Exception {
+      ConverterAPI primary = (from, to, value) -> value.multiply(new BigDecimal("27.5"));
+      ConverterAPI backup = (from, to, value) -> value.multiply(new BigDecimal("27.6"));
+
+      TestClock clock = new TestClock();
+      CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(0.5, 10, 5, 60000, clock);
+      HedgedInvoker hedgedInvoker = new HedgedInvoker(2, 10, 1000);
+
+      for (int i = 0; i < 5; i++) {
+         breakers.get(backup).onFailure();
+      }
+      clock.move(60000);
+
+      try {
+         ConverterService service = new ConverterService(new RateCache(60000, 10),
+                 new ConnectivityMonitor(LOCAL_HOST, 0, 1000, 60000), hedgedInvoker, breakers,
+                 new RequestBudgetRegistry(null), new ConverterRanking(false, 10, 1, 60000), asyncExecutor,
+                 Arrays.asList(primary, backup));
+
+         assertEquals(new BigDecimal("275.0"), service.convert(Currency.USD, Currency.UAH, BigDecimal.TEN));
+         assertEquals(CircuitBreaker.Status.OPEN, breakers.get(backup).getStatus());
+         assertTrue(breakers.get(backup).tryAcquire());
+
+      } finally {
+         hedgedInvoker.shutdown();
+      }
+   }
+
+   /**
+    * Tests, that without internet connection an exception is thrown and APIs are not called.
+    */
+   @Test
+   void convertWithoutConnection() throws IOException {
+      ConverterService service = createService(new RateCache(60000, 10));
+
+      assertThrows(UnknownHostException.class, () -> service.convert(Currency.USD, Currency.UAH, BigDecimal.TEN));
+   }
+
+   /**
+    * Tests, that stale rate is used, when a new rate could not be fetched.
+    */
+   @Test
+   void convertByStaleRate() throws Exception {
+      RateCache rateCache = new RateCache(1, 60000, 10);
+      rateCache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      Thread.sleep(5);
+
+      ConverterService service = createService(rateCache);
+
+      assertNull(rateCache.get(Currency.USD, Currency.UAH));
+      assertEquals(new BigDecimal("275.0"), service.convert(Currency.USD, Currency.UAH, BigDecimal.TEN));
+      assertEquals(new BigDecimal("275.0"), service.convertAsync(Currency.USD, Currency.UAH, BigDecimal.TEN).get());
+
+      service.refreshRates(Arrays.asList(Currency.USD, Currency.UAH));
+      assertEquals(new BigDecimal("27.5"), rateCache.getStale(Currency.USD, Currency.UAH));
+   }
+
+   /**
+    * Tests, that one amount is converted to several currencies by direct
+    * and cross rates from the cache without requests to APIs.
+    */
+   @Test
+   void convertManyTest() throws Exception {
+      RateCache rateCache = new RateCache(60000, 10);
+      rateCache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      rateCache.put(Currency.USD, Currency.EUR, new BigDecimal("0.875"));
+
+      ConverterService service = createService(rateCache);
+
+      Set<Currency> to = new LinkedHashSet<>(Arrays.asList(Currency.UAH, Currency.USD, Currency.EUR));
+      Map<Currency, BigDecimal> result = service.convertMany(Currency.USD, to, BigDecimal.TEN);
+
+      assertEquals(new ArrayList<>(to), new ArrayList<>(result.keySet()));
+      assertEquals(new BigDecimal("275.0"), result.get(Currency.UAH));
+      assertEquals(BigDecimal.TEN, result.get(Currency.USD));
+      assertEquals(new BigDecimal("8.750"), result.get(Currency.EUR));
+      assertEquals(result, service.convertManyAsync(Currency.USD, to, BigDecimal.TEN).get());
+
+      Map<Currency, BigDecimal> cross = service.convertMany(Currency.EUR,
+              Collections.singleton(Currency.UAH), BigDecimal.ONE);
+      assertEquals(0, new BigDecimal("31.4285714285714").compareTo(cross.get(Currency.UAH).setScale(13, BigDecimal.ROUND_HALF_UP)));
+
+      assertThrows(UnknownHostException.class, () -> service.convertMany(Currency.GBP,
+              Collections.singleton(Currency.PLN), BigDecimal.ONE));
+
+      Map<Currency, Map<Currency, BigDecimal>> matrix = service.convertMatrix(
+              new LinkedHashSet<>(Arrays.asList(Currency.USD, Currency.EUR)), Collections.singleton(Currency.UAH), BigDecimal.ONE);
+      assertEquals(new BigDecimal("27.5"), matrix.get(Currency.USD).get(Currency.UAH));
+      assertEquals(cross.get(Currency.UAH), matrix.get(Currency.EUR).get(Currency.UAH));
+   }
+
+   /**
+    * Tests, that asynchronous conversion uses the cache at once and
+    * completes the future by exception, when there is no internet connection.
+    */
+   @Test
+   void convertAsyncTest() throws IOException, InterruptedException {
+      RateCache rateCache = new RateCache(60000, 10);
+      rateCache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+
+      ConverterService service = createService(rateCache);
+
+      CompletableFuture<BigDecimal> cached = service.convertAsync(Currency.USD, Currency.UAH, BigDecimal.TEN);
+      assertTrue(cached.isDone());
+      assertEquals(new BigDecimal("275.0"), cached.join());
+
+      CompletableFuture<BigDecimal> failed = service.convertAsync(Currency.USD, Currency.EUR, BigDecimal.TEN, 5000);
+      ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+      assertTrue(e.getCause() instanceof UnknownHostException);
+   }
+
    /**
     * Tests conversion all currencies from {@link #existingCurrency} between themselves
     */
@@ -293,6 +533,17 @@ public class ConverterServiceTest {
       return result;
    }
 
+   /**
+    * Creates service without internet connection, which shares components, stopped after the test.
+    *
+    * @param rateCache cache of rates of the service
+    * @return new service.
+    */
+   private ConverterService createService(RateCache rateCache) {
+      return new ConverterService(rateCache, monitor, invoker, new CircuitBreakerRegistry(0.5, 10, 5, 60000),
+              new RequestBudgetRegistry(null), new ConverterRanking(true, 10, 2, 60000), asyncExecutor, HTTP_CLIENT);
+   }
+
    private void checkRange(BigDecimal result, BigDecimal from, BigDecimal to) {
       assertTrue(result.compareTo(from) >= 0);
       assertTrue(result.compareTo(to) <= 0);
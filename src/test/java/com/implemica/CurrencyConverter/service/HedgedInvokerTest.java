@@ -0,0 +1,171 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing HedgedInvoker.
+ *
+ * @author Dmytro K.
+ * @see HedgedInvoker
+ */
+public class HedgedInvokerTest {
+
+   /** Time in ms after which the next task is started. */
+   private static final long HEDGE_DELAY = 100;
+
+   /** Invoker in hedged mode. */
+   private static final HedgedInvoker hedgedInvoker = new HedgedInvoker(4, 10, HEDGE_DELAY);
+
+   /**
+    * Tests, that slow task doesn't stall the result of the next one and is cancelled.
+    */
+   @Test
+   void slowTaskIsHedged() throws InterruptedException {
+      CountDownLatch cancelled = new CountDownLatch(1);
+
+      Callable<String> slow = () -> {
+         try {
+            Thread.sleep(10000);
+         } catch (InterruptedException e) {
+            cancelled.countDown();
+         }
+         return "slow";
+      };
+      Callable<String> fast = () -> "fast";
+
+      long start = System.currentTimeMillis();
+      String result = hedgedInvoker.invokeFirst(Arrays.asList(slow, fast), new ArrayList<>());
+
+      assertEquals("fast", result);
+      assertTrue(System.currentTimeMillis() - start < 5000);
+      assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+   }
+
+   /**
+    * Tests, that the next task is started without delay, if the previous one failed.
+    */
+   @Test
+   void failedTaskIsSkipped() throws InterruptedException {
+      List<Exception> exceptions = new ArrayList<>();
+
+      Callable<String> failed = () -> {
+         throw new IOException("failed");
+      };
+
+      String result = hedgedInvoker.invokeFirst(Arrays.asList(failed, () -> "second"), exceptions);
+
+      assertEquals("second", result);
+      assertEquals(1, exceptions.size());
+      assertTrue(exceptions.get(0) instanceof IOException);
+   }
+
+   /**
+    * Tests, that null is returned and all exceptions are collected, if all tasks failed.
+    */
+   @Test
+   void allTasksFailed() throws InterruptedException {
+      checkAllTasksFailed(hedgedInvoker);
+      checkAllTasksFailed(new HedgedInvoker());
+   }
+
+   /**
+    * Tests, that without hedging tasks are called one by one.
+    */
+   @Test
+   void sequentialMode() throws InterruptedException {
+      List<String> called = new ArrayList<>();
+
+      Callable<String> first = () -> {
+         called.add("first");
+         return "first";
+      };
+      Callable<String> second = () -> {
+         called.add("second");
+         return "second";
+      };
+
+      assertEquals("first", new HedgedInvoker().invokeFirst(Arrays.asList(first, second), new ArrayList<>()));
+      assertEquals(Arrays.asList("first"), called);
+   }
+
+   /**
+    * Tests, that the task is called in the caller's thread without hedging, when the queue of executor is full.
+    */
+   @Test
+   void fullQueue() throws InterruptedException {
+      HedgedInvoker invoker = new HedgedInvoker(1, 1, HEDGE_DELAY);
+      CountDownLatch release = new CountDownLatch(1);
+      Callable<String> stalled = () -> {
+         release.await(10, TimeUnit.SECONDS);
+         return "stalled";
+      };
+
+      try {
+         Thread caller = Thread.currentThread();
+         new Thread(() -> invoke(invoker, stalled)).start();
+         new Thread(() -> invoke(invoker, stalled)).start();
+
+         long deadline = System.currentTimeMillis() + 5000;
+         while (invoker.getQueueSize() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+         }
+
+         List<Thread> threads = new ArrayList<>();
+         Callable<String> primary = () -> {
+            threads.add(Thread.currentThread());
+            return "primary";
+         };
+         Callable<String> hedge = () -> {
+            threads.add(Thread.currentThread());
+            return "hedge";
+         };
+
+         assertEquals("primary", invoker.invokeFirst(Arrays.asList(primary, hedge), new ArrayList<>()));
+         assertEquals(Arrays.asList(caller), threads);
+
+      } finally {
+         release.countDown();
+         invoker.shutdown();
+      }
+   }
+
+   @AfterAll
+   static void shutdown() {
+      hedgedInvoker.shutdown();
+   }
+
+   private static void invoke(HedgedInvoker invoker, Callable<String> task) {
+      try {
+         invoker.invokeFirst(Collections.singletonList(task), new ArrayList<>());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void checkAllTasksFailed(HedgedInvoker invoker) throws InterruptedException {
+      List<Exception> exceptions = new ArrayList<>();
+      List<Callable<String>> tasks = new ArrayList<>();
+
+      for (int i = 0; i < 3; i++) {
+         String message = "failed " + i;
+         tasks.add(() -> {
+            throw new IOException(message);
+         });
+      }
+
+      assertNull(invoker.invokeFirst(tasks, exceptions));
+      assertEquals(3, exceptions.size());
+   }
+}
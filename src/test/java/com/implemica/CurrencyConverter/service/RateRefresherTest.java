@@ -0,0 +1,40 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Class for testing RateRefresher.
+ *
+ * @author Dmytro K.
+ * @see RateRefresher
+ */
+public class RateRefresherTest {
+
+   /** Popular currencies. */
+   private static final Currency[] BASES = {Currency.USD, Currency.EUR, Currency.UAH, Currency.BTC};
+
+   /**
+    * Tests, that rates of popular currencies are refreshed on schedule and failed refresh doesn't stop it.
+    */
+   @Test
+   void refreshOnSchedule() {
+      ConverterService converterService = mock(ConverterService.class);
+      doThrow(new IllegalStateException("failed")).doNothing().when(converterService).refreshRates(any());
+
+      RateRefresher refresher = new RateRefresher(converterService, BASES, 10);
+      assertEquals(Arrays.asList(BASES), refresher.getBases());
+
+      refresher.start();
+      try {
+         verify(converterService, timeout(5000).atLeast(3)).refreshRates(Arrays.asList(BASES));
+      } finally {
+         refresher.stop();
+      }
+   }
+}
@@ -0,0 +1,87 @@
+package com.implemica.CurrencyConverter.service;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.service.converters.CurrencyLayerCom;
+import com.implemica.CurrencyConverter.service.converters.JavaMoney;
+import com.implemica.CurrencyConverter.service.converters.JsonHttpClient;
+import com.implemica.CurrencyConverter.service.converters.RequestLimit;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing RequestBudget and RequestBudgetRegistry.
+ *
+ * @author Dmytro K.
+ * @see RequestBudget
+ * @see RequestBudgetRegistry
+ */
+public class RequestBudgetTest {
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /**
+    * Tests, that requests are rejected when the budget is spent and allowed again after refill.
+    */
+   @Test
+   void spendAndRefill() {
+      RequestBudget budget = new RequestBudget("test", new RequestLimit(2, 1000), clock);
+
+      assertTrue(budget.tryConsume());
+      assertTrue(budget.tryConsume());
+      assertFalse(budget.tryConsume());
+
+      clock.move(499);
+      assertFalse(budget.tryConsume());
+
+      clock.move(1);
+      assertTrue(budget.tryConsume());
+      assertFalse(budget.tryConsume());
+
+      clock.move(10000);
+      assertEquals(2, budget.getTokens(), 0.001);
+      assertEquals(3L, budget.getMetrics().get("rejected"));
+   }
+
+   /**
+    * Tests, that APIs without limit are always allowed.
+    */
+   @Test
+   void unlimitedApi() {
+      RequestBudgetRegistry registry = new RequestBudgetRegistry(null, clock);
+
+      assertNull(registry.get(new JavaMoney()));
+      assertTrue(registry.tryConsume(new JavaMoney()));
+      assertTrue(registry.getMetrics().isEmpty());
+   }
+
+   /**
+    * Tests, that spent requests are saved on stop and are not restored after restart.
+    *
+    * @throws IOException if the temp file was not created
+    */
+   @Test
+   void stateIsSavedBetweenRestarts() throws IOException {
+      File file = Files.createTempFile("budgets", ".properties").toFile();
+      file.deleteOnExit();
+
+      CurrencyLayerCom api = new CurrencyLayerCom(new JsonHttpClient(1, 1000, 1000));
+      RequestBudgetRegistry registry = new RequestBudgetRegistry(file, clock);
+      for (int i = 0; i < 10; i++) {
+         assertTrue(registry.tryConsume(api));
+      }
+
+      assertEquals(1000, new RequestBudgetRegistry(file, clock).get(api).getTokens(), 0.001);
+
+      registry.stop();
+      RequestBudgetRegistry restarted = new RequestBudgetRegistry(file, clock);
+
+      assertEquals(990, restarted.get(api).getTokens(), 0.001);
+      assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+   }
+}
@@ -0,0 +1,130 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing SingleFlight.
+ *
+ * @author Dmytro K.
+ * @see SingleFlight
+ */
+public class SingleFlightTest {
+
+   /** Count of concurrent callers. */
+   private static final int CALLERS = 8;
+
+   private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+   private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+   @AfterEach
+   void tearDown() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * Tests, that concurrent callers with the same key share one execution
+    * of the task, and the next call executes the task again.
+    */
+   @Test
+   void concurrentCallsShareOneExecution() throws Exception {
+      AtomicInteger executions = new AtomicInteger();
+      CountDownLatch release = new CountDownLatch(1);
+
+      List<Future<String>> results = callConcurrently("USD", () -> {
+         executions.incrementAndGet();
+         release.await();
+         return "rate";
+      });
+
+      release.countDown();
+
+      for (Future<String> result : results) {
+         assertEquals("rate", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, executions.get());
+      assertEquals(CALLERS - 1, flight.getShared());
+      assertEquals(0, flight.getInFlight());
+
+      flight.execute("USD", () -> "rate " + executions.incrementAndGet());
+      assertEquals(2, executions.get());
+   }
+
+   /**
+    * Tests, that the exception of the task is thrown to all waiting callers.
+    */
+   @Test
+   void exceptionIsShared() throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+
+      List<Future<String>> results = callConcurrently("EUR", () -> {
+         release.await();
+         throw new IOException("failed");
+      });
+
+      release.countDown();
+
+      for (Future<String> result : results) {
+         ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+         assertTrue(e.getCause() instanceof IOException);
+      }
+      assertEquals(0, flight.getInFlight());
+   }
+
+   /**
+    * Tests, that tasks with different keys are executed independently.
+    */
+   @Test
+   void differentKeys() throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+
+      Future<String> usd = executor.submit(() -> flight.execute("USD", () -> {
+         release.await();
+         return "usd";
+      }));
+
+      waitForFlights(1);
+      assertEquals("uah", flight.execute("UAH", () -> "uah"));
+
+      release.countDown();
+      assertEquals("usd", usd.get(5, TimeUnit.SECONDS));
+      assertEquals(0, flight.getShared());
+   }
+
+   /**
+    * Function starts the first caller, waits until its task is in progress
+    * and then starts the other callers.
+    */
+   private List<Future<String>> callConcurrently(String key, Callable<String> task) throws InterruptedException {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(executor.submit(() -> flight.execute(key, task)));
+      waitForFlights(1);
+
+      for (int i = 1; i < CALLERS; i++) {
+         results.add(executor.submit(() -> flight.execute(key, task)));
+      }
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (flight.getShared() < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+
+      return results;
+   }
+
+   private void waitForFlights(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (flight.getInFlight() < count && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+   }
+}
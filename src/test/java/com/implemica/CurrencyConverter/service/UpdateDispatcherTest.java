@@ -0,0 +1,209 @@
+package com.implemica.CurrencyConverter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing UpdateDispatcher.
+ *
+ * @author Dmytro K.
+ * @see UpdateDispatcher
+ */
+public class UpdateDispatcherTest {
+
+   /** Tested dispatcher, it is stopped after every test. */
+   private UpdateDispatcher dispatcher;
+
+   @AfterEach
+   void tearDown() {
+      dispatcher.stop();
+   }
+
+   /**
+    * Tests, that updates of every chat are processed in order of dispatching.
+    */
+   @Test
+   void orderOfChat() throws Exception {
+      dispatcher = start(4, 10, UpdateDispatcher.Backpressure.BLOCK, 5000);
+      Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+      CountDownLatch done = new CountDownLatch(20 * 100);
+
+      for (int update = 0; update < 100; update++) {
+         for (long chat = 0; chat < 20; chat++) {
+            int number = update;
+            long chatId = chat;
+
+            assertTrue(dispatcher.dispatch(chatId, () -> {
+               processed.computeIfAbsent(chatId, id -> Collections.synchronizedList(new ArrayList<>())).add(number);
+               done.countDown();
+            }));
+         }
+      }
+
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      for (List<Integer> updates : processed.values()) {
+         for (int i = 0; i < updates.size(); i++) {
+            assertEquals(i, (int) updates.get(i));
+         }
+      }
+      assertEquals(20, processed.size());
+   }
+
+   /**
+    * Tests, that a slow update of one chat doesn't hold up a chat of another worker.
+    */
+   @Test
+   void chatsInParallel() throws Exception {
+      dispatcher = start(2, 10, UpdateDispatcher.Backpressure.BLOCK, 5000);
+      long slowChat = 1;
+      long fastChat = 2;
+
+      while (dispatcher.getWorker(fastChat) == dispatcher.getWorker(slowChat)) {
+         fastChat++;
+      }
+
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch fast = new CountDownLatch(1);
+
+      dispatcher.dispatch(slowChat, () -> await(release));
+      dispatcher.dispatch(fastChat, fast::countDown);
+
+      assertTrue(fast.await(5, TimeUnit.SECONDS));
+      release.countDown();
+   }
+
+   /**
+    * Tests, that an update is dropped at once, when the queue of the worker is full.
+    */
+   @Test
+   void dropWhenQueueIsFull() throws Exception {
+      dispatcher = start(1, 1, UpdateDispatcher.Backpressure.DROP, 0);
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+
+      assertTrue(dispatcher.dispatch(1, () -> {
+         started.countDown();
+         await(release);
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      assertTrue(dispatcher.dispatch(1, () -> {}));
+      assertFalse(dispatcher.dispatch(2, () -> {}));
+
+      Map<String, Object> metrics = dispatcher.getMetrics();
+      assertEquals(Collections.singletonList(1), metrics.get("depths"));
+      assertEquals(1, metrics.get("maxDepth"));
+      assertEquals(3L, metrics.get("dispatched"));
+      assertEquals(1L, metrics.get("dropped"));
+
+      release.countDown();
+   }
+
+   /**
+    * Tests, that the caller waits for a place in the full queue, and the
+    * update is dropped only after the timeout.
+    */
+   @Test
+   void blockWhenQueueIsFull() throws Exception {
+      dispatcher = start(1, 1, UpdateDispatcher.Backpressure.BLOCK, 200);
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+
+      dispatcher.dispatch(1, () -> {
+         started.countDown();
+         await(release);
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      dispatcher.dispatch(1, () -> {});
+
+      long before = System.nanoTime();
+      assertFalse(dispatcher.dispatch(1, () -> {}));
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - before) >= 150);
+
+      new Thread(() -> {
+         sleep(100);
+         release.countDown();
+      }).start();
+
+      CountDownLatch last = new CountDownLatch(1);
+      assertTrue(dispatcher.dispatch(1, last::countDown));
+      assertTrue(last.await(5, TimeUnit.SECONDS));
+      assertEquals(1L, dispatcher.getMetrics().get("dropped"));
+   }
+
+   /**
+    * Tests, that an update with exception doesn't stop the worker.
+    */
+   @Test
+   void failedUpdate() throws Exception {
+      dispatcher = start(1, 10, UpdateDispatcher.Backpressure.BLOCK, 5000);
+      CountDownLatch next = new CountDownLatch(1);
+
+      dispatcher.dispatch(1, () -> {
+         throw new IllegalStateException("failed");
+      });
+      dispatcher.dispatch(1, next::countDown);
+
+      assertTrue(next.await(5, TimeUnit.SECONDS));
+      assertEquals(1L, dispatcher.getMetrics().get("failed"));
+   }
+
+   /**
+    * Tests, that queued updates are processed on stop, and without workers
+    * updates are processed by the caller.
+    */
+   @Test
+   void stopAndCallerThread() {
+      dispatcher = start(1, 10, UpdateDispatcher.Backpressure.BLOCK, 5000);
+      List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+      dispatcher.dispatch(1, () -> sleep(100));
+      for (int i = 0; i < 5; i++) {
+         int number = i;
+         dispatcher.dispatch(1, () -> processed.add(number));
+      }
+      dispatcher.stop();
+
+      assertEquals(5, processed.size());
+
+      dispatcher = new UpdateDispatcher(0, 1, UpdateDispatcher.Backpressure.DROP, 0);
+      Thread[] thread = new Thread[1];
+
+      assertTrue(dispatcher.dispatch(1, () -> thread[0] = Thread.currentThread()));
+      assertSame(Thread.currentThread(), thread[0]);
+   }
+
+   private static UpdateDispatcher start(int workers, int queueSize, UpdateDispatcher.Backpressure backpressure,
+                                         long blockTimeout) {
+      UpdateDispatcher dispatcher = new UpdateDispatcher(workers, queueSize, backpressure, blockTimeout);
+      dispatcher.start();
+      return dispatcher;
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private static void sleep(long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
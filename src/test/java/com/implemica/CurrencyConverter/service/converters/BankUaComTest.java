@@ -0,0 +1,109 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.tunyk.currencyconverter.api.CurrencyConverter;
+import com.tunyk.currencyconverter.api.CurrencyConverterException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests BankUaCom with converters of the library, which don't download the feed.
+ *
+ * @author Dmytro K.
+ * @see BankUaCom
+ */
+public class BankUaComTest {
+
+   /** Time in ms, during which the feed is used. */
+   private static final long REFRESH_INTERVAL = 60000;
+
+   /** Count of created converters of the library, every creation means a download of the feed. */
+   private final AtomicInteger downloads = new AtomicInteger();
+
+   /** Clock of the converter. */
+   private final TestClock clock = new TestClock();
+
+   /**
+    * Tests, that the feed is downloaded once for all pairs and again after the refresh interval.
+    */
+   @Test
+   void feedIsShared() throws Exception {
+      BankUaCom converter = new BankUaCom((from, to) -> {
+         downloads.incrementAndGet();
+         return createConverter();
+      }, REFRESH_INTERVAL, clock);
+
+      assertEquals(new BigDecimal("27.5"), converter.convert(Currency.USD, Currency.UAH, BigDecimal.ONE));
+      assertEquals(new BigDecimal("0.88"), converter.convert(Currency.USD, Currency.EUR, BigDecimal.ONE));
+      assertEquals(1, downloads.get());
+
+      clock.move(REFRESH_INTERVAL);
+      converter.convert(Currency.EUR, Currency.USD, BigDecimal.ONE);
+      assertEquals(2, downloads.get());
+   }
+
+   /**
+    * Tests, that a failed download is not kept, and the next call tries again.
+    */
+   @Test
+   void failedDownloadIsRetried() throws Exception {
+      BankUaCom converter = new BankUaCom((from, to) -> {
+         if (downloads.incrementAndGet() == 1) {
+            throw new CurrencyConverterException("Feed is not available");
+         }
+         return createConverter();
+      }, REFRESH_INTERVAL, clock);
+
+      assertThrows(CurrencyConverterException.class, () -> converter.convert(Currency.USD, Currency.UAH, BigDecimal.ONE));
+      assertEquals(new BigDecimal("27.5"), converter.convert(Currency.USD, Currency.UAH, BigDecimal.ONE));
+      assertEquals(2, downloads.get());
+   }
+
+   /**
+    * Creates converter of the library, which knows rates of USD only.
+    */
+   private CurrencyConverter createConverter() {
+      return new CurrencyConverter() {
+
+         @Override
+         public Float convertCurrency(Float value) {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public Float convertCurrency(Float value, com.tunyk.currencyconverter.api.Currency to) {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public Float convertCurrency(Float value, com.tunyk.currencyconverter.api.Currency from,
+                                      com.tunyk.currencyconverter.api.Currency to) {
+            float rate = to == com.tunyk.currencyconverter.api.Currency.UAH ? 27.5f : 0.88f;
+            return from == com.tunyk.currencyconverter.api.Currency.USD ? value * rate : value / rate;
+         }
+
+         @Override
+         public com.tunyk.currencyconverter.api.Currency getFromCurrency() {
+            return null;
+         }
+
+         @Override
+         public void setFromCurrency(com.tunyk.currencyconverter.api.Currency currency) {
+         }
+
+         @Override
+         public com.tunyk.currencyconverter.api.Currency getToCurrency() {
+            return null;
+         }
+
+         @Override
+         public void setToCurrency(com.tunyk.currencyconverter.api.Currency currency) {
+         }
+      };
+   }
+}
@@ -0,0 +1,67 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares multiplication of amounts by rates, which are kept as shortest
+ * decimals by {@link ConverterAPI#convertByOne(BigDecimal, double)}, with
+ * multiplication by rates narrowed to float, as it was made before.
+ *
+ * Run {@link #main(String[])} after {@code mvn test-compile}.
+ *
+ * @author Dmytro K.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertByOneBenchmark {
+
+   /** Rates as they are read from documents of APIs. */
+   private static final double[] RATES = {0.875, 1.142, 27.5, 0.0364, 0.00024531247, 4076.432101, 109.86, 0.7812};
+
+   /** Amounts of users. */
+   private static final BigDecimal[] AMOUNTS = {new BigDecimal("1"), new BigDecimal("10"), new BigDecimal("30.6"),
+           new BigDecimal("1000000"), new BigDecimal("12.5"), new BigDecimal("0.01")};
+
+   /** Converter, only its default functions are used. */
+   private final ConverterAPI converter = (from, to, value) -> value;
+
+   /** Index of the next rate and amount. */
+   private int index;
+
+   /**
+    * Multiplies by the rate as the shortest decimal.
+    */
+   @Benchmark
+   public BigDecimal decimal() {
+      int i = index++;
+      return converter.convertByOne(AMOUNTS[i % AMOUNTS.length], RATES[i % RATES.length]);
+   }
+
+   /**
+    * Multiplies by the exact value of the rate narrowed to float.
+    */
+   @Benchmark
+   public BigDecimal narrowedToFloat() {
+      int i = index++;
+      return AMOUNTS[i % AMOUNTS.length].multiply(new BigDecimal((float) RATES[i % RATES.length]));
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+              .include(ConvertByOneBenchmark.class.getSimpleName())
+              .build();
+
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,125 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.service.rates.RateCache;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing FloatRatesCom with a local server instead of floatrates.com.
+ *
+ * @author Dmytro K.
+ * @see FloatRatesCom
+ */
+public class FloatRatesComTest {
+
+   /** Format of one rate in the document. */
+   private static final String QUOTE_FORMAT = "\"%s\":{\"code\":\"%s\",\"alphaCode\":\"%s\",\"numericCode\":\"000\"," +
+           "\"name\":\"%s\",\"rate\":%s,\"date\":\"%s\",\"inverseRate\":%s}";
+
+   /** Date format in the document. */
+   private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+
+   /** Local server with documents. */
+   private static StubHttpServer server;
+
+   /** Client for requests to the server. */
+   private static JsonHttpClient httpClient;
+
+   /**
+    * Creates document for USD with three actual rates and one old rate.
+    */
+   @BeforeAll
+   static void createDocuments() throws IOException {
+      String today = DATE_FORMAT.format(new Date());
+      String old = DATE_FORMAT.format(new Date(System.currentTimeMillis() - DateUtils.MILLIS_PER_DAY * 30));
+
+      String document = "{" +
+              quote("EUR", "Euro", "0.875", today, "1.142") + "," +
+              quote("UAH", "Ukrainian Hryvnia", "27.5", today, "0.0364") + "," +
+              quote("BTC", "Bitcoin", "0.00024531247", today, "4076.432101") + "," +
+              quote("GBP", "U.K. Pound Sterling", "0.78", old, "1.28") + "," +
+              quote("XYZ", "Unknown", "2", today, "0.5") + "}";
+
+      server = new StubHttpServer().serve("/daily/USD.json", document);
+      httpClient = new JsonHttpClient(2, 1000, 1000);
+   }
+
+   /**
+    * Tests, that all actual rates of the document are put to the cache.
+    */
+   @Test
+   void allRatesArePutToCache() throws Exception {
+      RateCache rateCache = new RateCache(60000, 100);
+      FloatRatesCom converter = new FloatRatesCom(rateCache, httpClient, server.getUrl("/daily/%s.json"));
+
+      assertEquals(new BigDecimal("0.875"), converter.convert(Currency.USD, Currency.EUR, BigDecimal.ONE));
+
+      assertEquals(new BigDecimal("0.875"), rateCache.get(Currency.USD, Currency.EUR));
+      assertEquals(new BigDecimal("1.142"), rateCache.get(Currency.EUR, Currency.USD));
+      assertEquals(new BigDecimal("27.5"), rateCache.get(Currency.USD, Currency.UAH));
+      assertEquals(new BigDecimal("0.0364"), rateCache.get(Currency.UAH, Currency.USD));
+      assertNull(rateCache.get(Currency.USD, Currency.GBP));
+      assertEquals(6, rateCache.size());
+   }
+
+   /**
+    * Tests, that rates are not rounded, so conversion of a big amount is exact.
+    */
+   @Test
+   void bigAmountIsExact() throws Exception {
+      RateCache rateCache = new RateCache(60000, 100);
+      FloatRatesCom converter = new FloatRatesCom(rateCache, httpClient, server.getUrl("/daily/%s.json"));
+      BigDecimal million = new BigDecimal("1000000");
+
+      assertEquals(new BigDecimal("245.31247000000"), converter.convert(Currency.USD, Currency.BTC, million));
+      assertEquals(new BigDecimal("4076432101.000000"), rateCache.get(Currency.BTC, Currency.USD).multiply(million));
+   }
+
+   /**
+    * Tests, that the recorded document is read and currencies, which are not in {@link Currency}, are skipped.
+    */
+   @Test
+   void recordedDocumentIsParsed() throws Exception {
+      FloatRatesDocument document;
+      try (InputStream inputStream = getClass().getResourceAsStream("/payloads/floatrates-usd.json")) {
+         document = FloatRatesDocument.parse(inputStream);
+      }
+
+      int count = 0;
+      for (Currency currency : Currency.values()) {
+         if (document.contains(currency)) {
+            count++;
+         }
+      }
+
+      assertEquals(147, count);
+      assertEquals(1 / document.getRate(Currency.EUR), document.getInverseRate(Currency.EUR), 1e-9);
+      assertEquals(DATE_FORMAT.parse("Fri, 1 Feb 2019 12:00:01 GMT").getTime(), document.getDate(Currency.EUR));
+      assertFalse(document.contains(Currency.USD));
+   }
+
+   /**
+    * Stops the server.
+    */
+   @AfterAll
+   static void stopServer() throws IOException {
+      httpClient.close();
+      server.close();
+   }
+
+   private static String quote(String code, String name, String rate, String date, String inverseRate) {
+      return String.format(QUOTE_FORMAT, code.toLowerCase(), code, code, name, rate, date, inverseRate);
+   }
+}
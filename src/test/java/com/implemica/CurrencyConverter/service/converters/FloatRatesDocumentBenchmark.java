@@ -0,0 +1,103 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading of the recorded document of floatrates.com by
+ * {@link FloatRatesDocument} with building of {@link JSONObject}.
+ *
+ * Run {@link #main(String[])} after {@code mvn test-compile}, allocation
+ * per operation is shown by the gc profiler.
+ *
+ * @author Dmytro K.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloatRatesDocumentBenchmark {
+
+   /** Recorded document for USD. */
+   private byte[] document;
+
+   @Setup
+   public void loadDocument() throws IOException {
+      try (InputStream inputStream = getClass().getResourceAsStream("/payloads/floatrates-usd.json")) {
+         document = IOUtils.toByteArray(inputStream);
+      }
+   }
+
+   /**
+    * Reads all rates as a stream of tokens.
+    */
+   @Benchmark
+   public double streaming() throws IOException {
+      FloatRatesDocument rates = FloatRatesDocument.parse(new ByteArrayInputStream(document));
+
+      double sum = 0;
+      for (Currency currency : Currency.values()) {
+         if (rates.contains(currency)) {
+            sum += rates.getRate(currency) + rates.getInverseRate(currency) + rates.getDate(currency);
+         }
+      }
+
+      return sum;
+   }
+
+   /**
+    * Reads all rates by building of {@link JSONObject}, as it was made before.
+    */
+   @Benchmark
+   public double jsonTokener() throws ParseException {
+      JSONObject object = new JSONObject(new JSONTokener(new ByteArrayInputStream(document)));
+      SimpleDateFormat format = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+
+      double sum = 0;
+      for (String code : object.keySet()) {
+         Currency currency = getCurrency(code.toUpperCase());
+
+         if (currency != null) {
+            JSONObject quote = object.getJSONObject(code);
+            sum += quote.getDouble("rate") + quote.getDouble("inverseRate") +
+                    format.parse(quote.getString("date")).getTime();
+         }
+      }
+
+      return sum;
+   }
+
+   private static Currency getCurrency(String code) {
+      try {
+         return Currency.valueOf(code);
+      } catch (IllegalArgumentException e) {
+         return null;
+      }
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+              .include(FloatRatesDocumentBenchmark.class.getSimpleName())
+              .addProfiler("gc")
+              .build();
+
+      new Runner(options).run();
+   }
+}
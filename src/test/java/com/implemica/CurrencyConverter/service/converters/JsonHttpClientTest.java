@@ -0,0 +1,111 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing JsonHttpClient and converters, which use it, with a local
+ * server instead of real APIs.
+ *
+ * @author Dmytro K.
+ * @see JsonHttpClient
+ */
+public class JsonHttpClientTest {
+
+   /** Time of waiting for data from server in ms. */
+   private static final int READ_TIMEOUT = 300;
+
+   /** Local server. */
+   private StubHttpServer server;
+
+   /** Client. */
+   private JsonHttpClient client;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      server = new StubHttpServer();
+      client = new JsonHttpClient(4, 1000, READ_TIMEOUT);
+   }
+
+   @AfterEach
+   void tearDown() throws IOException {
+      client.close();
+      server.close();
+   }
+
+   /**
+    * Tests, that one kept alive connection is used for all requests and responses are received in gzip.
+    */
+   @Test
+   void connectionIsReused() throws IOException {
+      server.serve("/rates.json", "{\"rate\":0.875}");
+
+      for (int i = 0; i < 5; i++) {
+         JSONObject object = client.getJsonObject(new URL(server.getUrl("/rates.json")));
+         assertEquals(0.875, object.getDouble("rate"));
+      }
+
+      assertEquals(5, server.getRequests());
+      assertEquals(5, server.getGzipResponses());
+      assertEquals(1, server.getConnections());
+      assertEquals(1, client.getIdleConnections());
+   }
+
+   /**
+    * Tests, that a slow server doesn't block the client longer than the read timeout.
+    */
+   @Test
+   void readTimeout() {
+      server.serve("/slow.json", "{}").delay("/slow.json", READ_TIMEOUT * 10);
+
+      assertThrows(SocketTimeoutException.class, () -> client.getJsonObject(new URL(server.getUrl("/slow.json"))));
+   }
+
+   /**
+    * Tests, that errors of server and incorrect documents are thrown as IOException.
+    */
+   @Test
+   void serverErrors() {
+      server.serve("/broken.json", "<html>");
+
+      assertThrows(IOException.class, () -> client.getJsonObject(new URL(server.getUrl("/missing.json"))));
+      assertThrows(IOException.class, () -> client.getJsonObject(new URL(server.getUrl("/broken.json"))));
+   }
+
+   /**
+    * Tests conversion by free.currencyconverterapi.com with a canned document.
+    */
+   @Test
+   void freeCurrencyConverterApiCom() throws Exception {
+      server.serveResource("/convert", "/payloads/free-currency-converter-api.json");
+      FreeCurrencyConverterApiCom converter = new FreeCurrencyConverterApiCom(client,
+              server.getUrl("/convert?q=%s_%s&compact=y"));
+
+      assertEquals(new BigDecimal("0.875"), converter.convert(Currency.USD, Currency.EUR, BigDecimal.ONE));
+   }
+
+   /**
+    * Tests conversion by currencylayer.com with canned documents.
+    */
+   @Test
+   void currencyLayerCom() throws Exception {
+      server.serveResource("/live", "/payloads/currency-layer.json")
+              .serveResource("/limit", "/payloads/currency-layer-error.json");
+
+      CurrencyLayerCom converter = new CurrencyLayerCom(client, server.getUrl("/live?source=%s&currencies=%s"));
+      assertEquals(new BigDecimal("0.875"), converter.convert(Currency.USD, Currency.EUR, BigDecimal.ONE));
+
+      CurrencyLayerCom limited = new CurrencyLayerCom(client, server.getUrl("/limit?source=%s&currencies=%s"));
+      assertThrows(IOException.class, () -> limited.convert(Currency.USD, Currency.EUR, BigDecimal.ONE));
+   }
+}
@@ -0,0 +1,179 @@
+package com.implemica.CurrencyConverter.service.converters;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server, which serves canned documents of APIs instead of real servers.
+ *
+ * The server compresses documents in gzip, when a client accepts it, and
+ * counts connections, so tests can check reuse of connections.
+ *
+ * @author Dmytro K.
+ */
+public class StubHttpServer implements AutoCloseable {
+
+   /** Server. */
+   private final HttpServer server;
+
+   /** Documents by path. */
+   private final Map<String, String> documents = new ConcurrentHashMap<>();
+
+   /** Delays of responses in ms by path. */
+   private final Map<String, Long> delays = new ConcurrentHashMap<>();
+
+   /** Ports of clients, one port per connection. */
+   private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+   /** Count of requests. */
+   private final AtomicInteger requests = new AtomicInteger();
+
+   /** Count of responses in gzip. */
+   private final AtomicInteger gzipResponses = new AtomicInteger();
+
+   /**
+    * Starts server on a free local port.
+    *
+    * @throws IOException if the server could not be started
+    */
+   public StubHttpServer() throws IOException {
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+   }
+
+   /**
+    * Serves the document by the path.
+    *
+    * @param path path of document
+    * @param document document
+    * @return this server
+    */
+   public StubHttpServer serve(String path, String document) {
+      documents.put(path, document);
+      return this;
+   }
+
+   /**
+    * Serves the document from test resources by the path.
+    *
+    * @param path path of document
+    * @param resource name of resource
+    * @return this server
+    * @throws IOException if the resource could not be read
+    */
+   public StubHttpServer serveResource(String path, String resource) throws IOException {
+      try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+         return serve(path, IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+      }
+   }
+
+   /**
+    * Delays responses by the path.
+    *
+    * @param path path of document
+    * @param delay delay in ms
+    * @return this server
+    */
+   public StubHttpServer delay(String path, long delay) {
+      delays.put(path, delay);
+      return this;
+   }
+
+   /**
+    * @param path path on this server
+    * @return URL of the path.
+    */
+   public String getUrl(String path) {
+      return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+   }
+
+   /**
+    * @return count of connections from clients.
+    */
+   public int getConnections() {
+      return connections.size();
+   }
+
+   /**
+    * @return count of requests.
+    */
+   public int getRequests() {
+      return requests.get();
+   }
+
+   /**
+    * @return count of responses in gzip.
+    */
+   public int getGzipResponses() {
+      return gzipResponses.get();
+   }
+
+   @Override
+   public void close() {
+      server.stop(0);
+   }
+
+   private void handle(HttpExchange exchange) throws IOException {
+      requests.incrementAndGet();
+      connections.add(exchange.getRemoteAddress().getPort());
+
+      String path = exchange.getRequestURI().getPath();
+      String document = documents.get(path);
+
+      try {
+         Long delay = delays.get(path);
+         if (delay != null) {
+            Thread.sleep(delay);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+
+      if (document == null) {
+         exchange.sendResponseHeaders(404, -1);
+         exchange.close();
+         return;
+      }
+
+      byte[] body = document.getBytes(StandardCharsets.UTF_8);
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+      if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+         body = gzip(body);
+         exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+         gzipResponses.incrementAndGet();
+      }
+
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+         outputStream.write(body);
+      }
+   }
+
+   private static byte[] gzip(byte[] data) throws IOException {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+      try (GZIPOutputStream outputStream = new GZIPOutputStream(result)) {
+         outputStream.write(data);
+      }
+
+      return result.toByteArray();
+   }
+}
@@ -0,0 +1,130 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing RateCache.
+ *
+ * @author Dmytro K.
+ * @see RateCache
+ */
+public class RateCacheTest {
+
+   /** Time in ms during which a rate is valid. */
+   private static final long TIME_TO_LIVE = 1000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /**
+    * Tests, that saved rate is returned for the same pair only.
+    */
+   @Test
+   void putAndGet() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, 10, clock);
+      cache.put(Currency.USD, Currency.EUR, new BigDecimal("0.87"));
+
+      assertEquals(new BigDecimal("0.87"), cache.get(Currency.USD, Currency.EUR));
+      assertNull(cache.get(Currency.EUR, Currency.USD));
+      assertNull(cache.get(Currency.USD, Currency.UAH));
+   }
+
+   /**
+    * Tests, that a rate, which is older than the rate of the pair in the
+    * cache, is skipped and is not passed to listeners.
+    */
+   @Test
+   void olderRateIsSkipped() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, 10, clock);
+      List<Double> received = new ArrayList<>();
+      cache.addListener((from, to, rate, fetched) -> received.add(rate));
+
+      cache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      clock.move(-10);
+      cache.put(Currency.USD, Currency.UAH, new BigDecimal("28"));
+
+      assertEquals(new BigDecimal("27.5"), cache.get(Currency.USD, Currency.UAH));
+      assertEquals(Collections.singletonList(27.5), received);
+      assertFalse(cache.restore(Currency.USD, Currency.UAH, 29, clock.millis() - 100));
+   }
+
+   /**
+    * Tests, that rate is not returned after its time to live.
+    */
+   @Test
+   void expiredRate() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, 10, clock);
+      cache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+
+      clock.move(TIME_TO_LIVE - 1);
+      assertEquals(new BigDecimal("27.5"), cache.get(Currency.USD, Currency.UAH));
+
+      clock.move(1);
+      assertNull(cache.get(Currency.USD, Currency.UAH));
+      assertEquals(0, cache.size());
+   }
+
+   /**
+    * Tests, that the cache doesn't grow over its size and the oldest rate is removed first.
+    */
+   @Test
+   void maxSize() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, 2, clock);
+
+      cache.put(Currency.USD, Currency.EUR, BigDecimal.ONE);
+      clock.move(1);
+      cache.put(Currency.USD, Currency.UAH, BigDecimal.ONE);
+      clock.move(1);
+      cache.put(Currency.USD, Currency.BTC, BigDecimal.ONE);
+
+      assertEquals(2, cache.size());
+      assertNull(cache.get(Currency.USD, Currency.EUR));
+      assertNotNull(cache.get(Currency.USD, Currency.UAH));
+      assertNotNull(cache.get(Currency.USD, Currency.BTC));
+   }
+
+   /**
+    * Tests, that stale rate is served after its time to live, but not after max staleness.
+    */
+   @Test
+   void staleRate() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, TIME_TO_LIVE * 10, 10, clock);
+      cache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      long fetchedAt = cache.getFetchedAt(Currency.USD, Currency.UAH);
+
+      clock.move(TIME_TO_LIVE);
+      assertNull(cache.get(Currency.USD, Currency.UAH));
+      assertEquals(new BigDecimal("27.5"), cache.getStale(Currency.USD, Currency.UAH));
+      assertEquals(fetchedAt, cache.getFetchedAt(Currency.USD, Currency.UAH));
+
+      clock.move(TIME_TO_LIVE * 9);
+      assertNull(cache.getStale(Currency.USD, Currency.UAH));
+      assertEquals(-1, cache.getFetchedAt(Currency.USD, Currency.UAH));
+      assertEquals(0, cache.size());
+   }
+
+   /**
+    * Tests, that the cross rate is computed from fresh rates through a pivot currency.
+    */
+   @Test
+   void crossRate() {
+      RateCache cache = new RateCache(TIME_TO_LIVE, TIME_TO_LIVE * 10, 10, new Currency[]{Currency.USD}, clock);
+      cache.put(Currency.USD, Currency.UAH, new BigDecimal("27.5"));
+      cache.put(Currency.GBP, Currency.USD, new BigDecimal("1.25"));
+
+      assertNull(cache.get(Currency.GBP, Currency.UAH));
+      assertEquals(0, new BigDecimal("34.375").compareTo(cache.getCross(Currency.GBP, Currency.UAH)));
+
+      clock.move(TIME_TO_LIVE);
+      assertNull(cache.getCross(Currency.GBP, Currency.UAH));
+   }
+}
@@ -0,0 +1,74 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing RateGraph.
+ *
+ * @author Dmytro K.
+ * @see RateGraph
+ */
+public class RateGraphTest {
+
+   /** Precision of comparison of rates. */
+   private static final double DELTA = 1e-9;
+
+   /**
+    * Tests, that a pair, which was never received, is answered through a pivot
+    * by rates from and to the pivot.
+    */
+   @Test
+   void crossRateThroughPivot() {
+      RateGraph graph = new RateGraph(Currency.USD);
+
+      graph.update(Currency.USD, Currency.UAH, 27.5, 100);
+      graph.update(Currency.GBP, Currency.USD, 1.25, 100);
+
+      assertEquals(1.25 * 27.5, graph.getRate(Currency.GBP, Currency.UAH, 0), DELTA);
+      assertEquals(1 / (1.25 * 27.5), graph.getRate(Currency.UAH, Currency.GBP, 0), DELTA);
+      assertEquals(27.5, graph.getRate(Currency.USD, Currency.UAH, 0), DELTA);
+      assertEquals(1 / 27.5, graph.getRate(Currency.UAH, Currency.USD, 0), DELTA);
+
+      assertTrue(Double.isNaN(graph.getRate(Currency.GBP, Currency.PLN, 0)));
+   }
+
+   /**
+    * Tests, that rates between currencies, which are not pivots, are ignored,
+    * and old rates are not used.
+    */
+   @Test
+   void onlyPivotEdgesAndFreshRates() {
+      RateGraph graph = new RateGraph(Currency.USD);
+
+      graph.update(Currency.GBP, Currency.PLN, 5, 100);
+      assertTrue(Double.isNaN(graph.getRate(Currency.GBP, Currency.PLN, 0)));
+
+      graph.update(Currency.GBP, Currency.USD, 1.25, 100);
+      graph.update(Currency.PLN, Currency.USD, 0.25, 200);
+
+      assertEquals(5, graph.getRate(Currency.GBP, Currency.PLN, 100), DELTA);
+      assertTrue(Double.isNaN(graph.getRate(Currency.GBP, Currency.PLN, 101)));
+
+      graph.update(Currency.GBP, Currency.USD, 2, 50);
+      assertEquals(5, graph.getRate(Currency.GBP, Currency.PLN, 100), DELTA);
+   }
+
+   /**
+    * Tests, that the path through the pivot with the freshest rates is used.
+    */
+   @Test
+   void freshestPivotIsUsed() {
+      RateGraph graph = new RateGraph(Currency.USD, Currency.EUR);
+
+      graph.update(Currency.GBP, Currency.USD, 1.25, 100);
+      graph.update(Currency.PLN, Currency.USD, 0.25, 100);
+
+      graph.update(Currency.GBP, Currency.EUR, 1.2, 200);
+      graph.update(Currency.PLN, Currency.EUR, 0.3, 200);
+
+      assertEquals(4, graph.getRate(Currency.GBP, Currency.PLN, 0), DELTA);
+   }
+}
@@ -0,0 +1,153 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.dao.impl.RateHistoryDaoImpl;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.RateBar;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.List;
+
+import static com.implemica.CurrencyConverter.service.rates.RateHistory.DAY;
+import static com.implemica.CurrencyConverter.service.rates.RateHistory.HOUR;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests RateHistory class.
+ *
+ * @author Dmytro K.
+ * @see RateHistory
+ */
+public class RateHistoryTest {
+
+   /** Time in ms during which observations are kept. */
+   private static final long RETENTION = 90 * DAY;
+
+   /**
+    * Tests, that observations are grouped into bars of hours and days.
+    */
+   @Test
+   void bars() {
+      TestClock clock = new TestClock();
+      RateHistory history = new RateHistory(new RateHistoryDaoImpl(null), RETENTION, clock);
+      long start = DAY;
+      clock.move(start);
+
+      history.record(Currency.USD, Currency.EUR, 0.87, start);
+      history.record(Currency.USD, Currency.EUR, 0.89, start + 10);
+      history.record(Currency.USD, Currency.EUR, 0.86, start + 20);
+      history.record(Currency.USD, Currency.EUR, 0.88, start + 30);
+      history.record(Currency.USD, Currency.EUR, 0.9, start + HOUR);
+      history.record(Currency.USD, Currency.EUR, 0.91, start + DAY);
+
+      List<RateBar> hours = history.getBars(Currency.USD, Currency.EUR, start, start + DAY, HOUR);
+      assertEquals(2, hours.size());
+
+      RateBar first = hours.get(0);
+      assertEquals(start, first.getTime());
+      assertEquals(0.87, first.getOpen());
+      assertEquals(0.89, first.getHigh());
+      assertEquals(0.86, first.getLow());
+      assertEquals(0.88, first.getClose());
+      assertEquals(start + HOUR, hours.get(1).getTime());
+
+      List<RateBar> days = history.getBars(Currency.USD, Currency.EUR, 0, start + 2 * DAY, DAY);
+      assertEquals(2, days.size());
+      assertEquals(0.9, days.get(0).getClose());
+      assertEquals(0.91, days.get(1).getClose());
+
+      assertTrue(history.getBars(Currency.EUR, Currency.USD, 0, start + 2 * DAY, DAY).isEmpty());
+   }
+
+   /**
+    * Tests, that the same rate in the same hour and older observations are not recorded.
+    */
+   @Test
+   void duplicatesAreSkipped() {
+      TestClock clock = new TestClock();
+      RateHistory history = new RateHistory(new RateHistoryDaoImpl(null), RETENTION, clock);
+
+      history.record(Currency.USD, Currency.EUR, 0.87, 2 * HOUR);
+      history.record(Currency.USD, Currency.EUR, 0.87, 2 * HOUR + 1000);
+      history.record(Currency.USD, Currency.EUR, 0.86, HOUR);
+      history.record(Currency.USD, Currency.EUR, Double.NaN, 2 * HOUR + 2000);
+
+      List<RateBar> bars = history.getBars(Currency.USD, Currency.EUR, 0, DAY, 1);
+      assertEquals(1, bars.size());
+      assertEquals(2 * HOUR, bars.get(0).getTime());
+   }
+
+   /**
+    * Tests, that observations older than the retention are dropped.
+    */
+   @Test
+   void retention() {
+      TestClock clock = new TestClock();
+      RateHistory history = new RateHistory(new RateHistoryDaoImpl(null), RETENTION, clock);
+
+      history.record(Currency.USD, Currency.EUR, 0.87, clock.millis());
+      clock.move(RETENTION + DAY);
+      history.record(Currency.USD, Currency.EUR, 0.88, clock.millis());
+
+      List<RateBar> bars = history.getBars(Currency.USD, Currency.EUR, 0, clock.millis() + 1, DAY);
+      assertEquals(1, bars.size());
+      assertEquals(0.88, bars.get(0).getClose());
+
+      assertEquals(1, history.getLastBars(Currency.USD, Currency.EUR, 7 * DAY, DAY).size());
+   }
+
+   /**
+    * Tests, that written observations are loaded after a restart.
+    *
+    * @throws IOException if temporary directory can't be created
+    */
+   @Test
+   void restart() throws IOException {
+      File directory = Files.createTempDirectory("history").toFile();
+      TestClock clock = new TestClock();
+
+      try {
+         RateHistory history = new RateHistory(new RateHistoryDaoImpl(directory), RETENTION, clock);
+         history.start();
+         history.record(Currency.USD, Currency.UAH, 27.5, clock.millis());
+         history.stop();
+
+         RateHistory restarted = new RateHistory(new RateHistoryDaoImpl(directory), RETENTION, clock);
+         restarted.start();
+         restarted.stop();
+
+         List<RateBar> bars = restarted.getLastBars(Currency.USD, Currency.UAH, DAY, HOUR);
+         assertEquals(1, bars.size());
+         assertEquals(27.5, bars.get(0).getClose());
+         assertEquals(0, restarted.getDropped());
+
+      } finally {
+         for (File segment : directory.listFiles()) {
+            segment.delete();
+         }
+         directory.delete();
+      }
+   }
+
+   /**
+    * Tests parsing of periods.
+    *
+    * @throws ParseException if a correct period is not parsed
+    */
+   @Test
+   void parsePeriod() throws ParseException {
+      assertEquals(30 * DAY, RateHistory.parsePeriod("30d"));
+      assertEquals(24 * HOUR, RateHistory.parsePeriod("24H"));
+      assertEquals(HOUR, RateHistory.getBarSize(RateHistory.parsePeriod("3d")));
+      assertEquals(DAY, RateHistory.getBarSize(RateHistory.parsePeriod("4d")));
+
+      assertThrows(ParseException.class, () -> RateHistory.parsePeriod("0d"));
+      assertThrows(ParseException.class, () -> RateHistory.parsePeriod("91d"));
+      assertThrows(ParseException.class, () -> RateHistory.parsePeriod("73h"));
+      assertThrows(ParseException.class, () -> RateHistory.parsePeriod("week"));
+   }
+}
@@ -0,0 +1,82 @@
+package com.implemica.CurrencyConverter.service.rates;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class for testing RateMatrix.
+ *
+ * @author Dmytro K.
+ * @see RateMatrix
+ */
+public class RateMatrixTest {
+
+   /**
+    * Tests, that rates are put, read by time of fetching and removed.
+    */
+   @Test
+   void putGetAndRemove() {
+      RateMatrix matrix = new RateMatrix(2, 3);
+      int cell = matrix.cell(1, 2);
+
+      assertEquals(5, cell);
+      assertTrue(Double.isNaN(matrix.get(cell, Long.MIN_VALUE)));
+      assertEquals(RateMatrix.EMPTY, matrix.getFetched(cell));
+
+      assertTrue(matrix.put(cell, 27.5, 100));
+      assertEquals(27.5, matrix.get(cell, 100));
+      assertTrue(Double.isNaN(matrix.get(cell, 101)));
+      assertEquals(1, matrix.size());
+
+      assertFalse(matrix.put(cell, 28, 50));
+      assertEquals(27.5, matrix.get(cell, 0));
+      assertEquals(1, matrix.size());
+
+      assertFalse(matrix.remove(cell, 100));
+      assertTrue(matrix.remove(cell, 101));
+      assertTrue(Double.isNaN(matrix.get(cell, Long.MIN_VALUE)));
+      assertEquals(0, matrix.size());
+   }
+
+   /**
+    * Tests, that a reader never sees a rate with the time of another rate,
+    * while the cell is written by other threads.
+    */
+   @Test
+   void consistentReads() throws Exception {
+      RateMatrix matrix = new RateMatrix(1, 1);
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+
+      try {
+         Future<?> writer = executor.submit(() -> {
+            for (long time = 1; time <= 200000; time++) {
+               matrix.put(0, time * 2, time);
+            }
+         });
+
+         Future<?> reader = executor.submit(() -> {
+            while (!writer.isDone()) {
+               long fetched = matrix.getFetched(0);
+               double rate = matrix.get(0, fetched);
+
+               if (fetched != RateMatrix.EMPTY && !Double.isNaN(rate) && rate < fetched * 2) {
+                  fail("Rate " + rate + " was read with time " + fetched);
+               }
+            }
+         });
+
+         writer.get(30, TimeUnit.SECONDS);
+         reader.get(30, TimeUnit.SECONDS);
+         assertEquals(400000, matrix.get(0, 0));
+
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
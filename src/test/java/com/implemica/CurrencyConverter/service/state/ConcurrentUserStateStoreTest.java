@@ -0,0 +1,105 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ConcurrentUserStateStore.
+ *
+ * @author Dmytro K.
+ * @see ConcurrentUserStateStore
+ */
+public class ConcurrentUserStateStoreTest {
+
+   /** Time in ms, after which an unused entry is expired. */
+   private static final long TIME_TO_LIVE = 60000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /** Store for 10 users. */
+   private final ConcurrentUserStateStore store = new ConcurrentUserStateStore(TIME_TO_LIVE, 10, clock);
+
+   /**
+    * Tests, that a new user gets the initial state, and updates are saved.
+    */
+   @Test
+   void update() {
+      assertEquals(State.INITIAL, store.get(1));
+
+      State state = store.update(1, current -> new State("USD", "", ConvertStep.SECOND));
+
+      assertEquals(state, store.get(1));
+      assertEquals(State.INITIAL, store.get(2));
+   }
+
+   /**
+    * Tests, that an idle user falls back to the initial state, and expired entries are removed.
+    */
+   @Test
+   void idleUserIsExpired() {
+      store.update(1, current -> new State("USD", "EUR", ConvertStep.THIRD));
+      store.putChat(100, new User(1, "first"));
+      clock.move(TIME_TO_LIVE - 1);
+      store.update(2, current -> current.withConvertStep(ConvertStep.FIRST));
+
+      clock.move(1);
+      assertEquals(State.INITIAL, store.get(1));
+      assertNull(store.getUser(100));
+      assertEquals(ConvertStep.FIRST, store.get(2).getConvertStep());
+
+      assertEquals(ConvertStep.ZERO, store.update(1, current -> current).getConvertStep());
+      assertEquals(1L, store.getMetrics().get("expired"));
+
+      clock.move(TIME_TO_LIVE);
+      store.removeExpired();
+
+      Map<String, Object> metrics = store.getMetrics();
+      assertEquals(0, metrics.get("users"));
+      assertEquals(0, metrics.get("chats"));
+      assertEquals(4L, metrics.get("expired"));
+   }
+
+   /**
+    * Tests, that the least recently used users are evicted, when there are too many of them.
+    */
+   @Test
+   void leastRecentlyUsedAreEvicted() {
+      for (int userId = 1; userId <= 10; userId++) {
+         store.update(userId, current -> current.withConvertStep(ConvertStep.FIRST));
+         clock.move(1);
+      }
+      store.update(1, current -> current.withConvertStep(ConvertStep.SECOND));
+      clock.move(1);
+
+      store.update(11, current -> current.withConvertStep(ConvertStep.FIRST));
+
+      Map<String, Object> metrics = store.getMetrics();
+      assertEquals(9, metrics.get("users"));
+      assertEquals(2L, metrics.get("evicted"));
+      assertEquals(ConvertStep.SECOND, store.get(1).getConvertStep());
+      assertEquals(State.INITIAL, store.get(2));
+      assertEquals(State.INITIAL, store.get(3));
+      assertEquals(ConvertStep.FIRST, store.get(4).getConvertStep());
+      assertEquals(ConvertStep.FIRST, store.get(11).getConvertStep());
+   }
+
+   /**
+    * Tests, that the user of the chat is found.
+    */
+   @Test
+   void chats() {
+      User user = new User(1, "first");
+      store.putChat(100, user);
+
+      assertEquals(user, store.getUser(100));
+      assertNull(store.getUser(200));
+   }
+}
@@ -0,0 +1,158 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.dao.impl.StateJournalDaoImpl;
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests JournaledUserStateStore.
+ *
+ * @author Dmytro K.
+ * @see JournaledUserStateStore
+ */
+public class JournaledUserStateStoreTest {
+
+   /** Time in ms, after which an unused entry is expired. */
+   private static final long TIME_TO_LIVE = 60000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /** Journal file. */
+   private File file;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      file = Files.createTempFile("states", ".journal").toFile();
+      file.delete();
+   }
+
+   @AfterEach
+   void tearDown() {
+      file.delete();
+   }
+
+   /**
+    * Tests, that users continue their dialogs after restart, and expired states are not restored.
+    */
+   @Test
+   void statesAreRestored() {
+      JournaledUserStateStore store = createStore();
+      store.start();
+
+      store.update(1, state -> new State("USD", "", ConvertStep.SECOND));
+      store.update(2, state -> state.withConvertStep(ConvertStep.FIRST));
+      clock.move(TIME_TO_LIVE / 2);
+      store.update(3, state -> new State("USD", "EUR", ConvertStep.THIRD));
+      store.update(2, state -> state.withConvertStep(ConvertStep.ZERO));
+      store.stop();
+
+      clock.move(TIME_TO_LIVE / 2);
+      JournaledUserStateStore restarted = createStore();
+      restarted.start();
+
+      assertEquals(State.INITIAL, restarted.get(1));
+      assertEquals(State.INITIAL, restarted.get(2));
+      assertEquals(new State("USD", "EUR", ConvertStep.THIRD), restarted.get(3));
+      assertEquals(1, restarted.getMetrics().get("users"));
+      restarted.stop();
+   }
+
+   /**
+    * Tests, that transitions are written only by flush, and the same state is not written again.
+    */
+   @Test
+   void transitionsAreWrittenInBackground() {
+      JournaledUserStateStore store = createStore();
+
+      store.update(1, state -> state.withConvertStep(ConvertStep.FIRST));
+      store.update(1, state -> state);
+      store.update(2, state -> state);
+      assertEquals(1, store.getMetrics().get("journalPending"));
+      assertFalse(file.exists());
+
+      store.flush();
+      assertEquals(0, store.getMetrics().get("journalPending"));
+      assertTrue(file.exists());
+
+      store.compact();
+      assertEquals(1, new StateJournalDaoImpl(file).load(0, (userId, state, time) -> { }));
+   }
+
+   /**
+    * Tests, that an unchanged state is written again after a quarter of time to live,
+    * so an active user, whose state doesn't change, is restored after restart.
+    */
+   @Test
+   void unchangedStateIsTouched() {
+      JournaledUserStateStore store = createStore();
+      store.start();
+
+      store.update(1, state -> new State("USD", "", ConvertStep.SECOND));
+      clock.move(TIME_TO_LIVE / 4 - 1);
+      store.update(1, state -> state);
+      assertEquals(1, store.getMetrics().get("journalPending"));
+
+      clock.move(1);
+      store.update(1, state -> state);
+      assertEquals(2, store.getMetrics().get("journalPending"));
+
+      clock.move(TIME_TO_LIVE / 4);
+      store.update(2, state -> state);
+      assertEquals(2, store.getMetrics().get("journalPending"));
+      store.stop();
+
+      clock.move(TIME_TO_LIVE / 2 + 1);
+      JournaledUserStateStore restarted = createStore();
+      restarted.start();
+
+      assertEquals(new State("USD", "", ConvertStep.SECOND), restarted.get(1));
+      restarted.update(1, state -> state);
+      restarted.update(1, state -> state);
+      assertEquals(1, restarted.getMetrics().get("journalPending"));
+      restarted.stop();
+   }
+
+   /**
+    * Tests, that a transition, which was dropped, because the queue was full,
+    * is saved by the next update of user, even if it doesn't change the state.
+    */
+   @Test
+   void droppedTransitionIsSavedAgain() {
+      JournaledUserStateStore store = createStore();
+      store.start();
+
+      for (int userId = 1; userId <= 10000; userId++) {
+         store.update(userId, state -> state.withConvertStep(ConvertStep.FIRST));
+      }
+
+      store.update(1, state -> State.INITIAL);
+      assertEquals(1L, store.getMetrics().get("journalDropped"));
+
+      store.flush();
+      store.update(1, state -> state);
+      assertEquals(1, store.getMetrics().get("journalPending"));
+      store.stop();
+
+      JournaledUserStateStore restarted = createStore();
+      restarted.start();
+
+      assertEquals(State.INITIAL, restarted.get(1));
+      restarted.stop();
+   }
+
+   private JournaledUserStateStore createStore() {
+      return new JournaledUserStateStore(new ConcurrentUserStateStore(TIME_TO_LIVE, 100, clock),
+              new StateJournalDaoImpl(file), TIME_TO_LIVE, TIME_TO_LIVE, clock);
+   }
+}
@@ -0,0 +1,129 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.TestClock;
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.Currency;
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests PackedUserStateStore.
+ *
+ * @author Dmytro K.
+ * @see PackedUserStateStore
+ */
+public class PackedUserStateStoreTest {
+
+   /** Time in ms, after which an unused entry is expired. */
+   private static final long TIME_TO_LIVE = 60000;
+
+   /** Clock which can be moved forward by tests. */
+   private final TestClock clock = new TestClock();
+
+   /**
+    * Tests, that all currencies and steps are packed and unpacked without changes.
+    */
+   @Test
+   void packAndUnpack() {
+      Currency[] currencies = Currency.values();
+
+      for (int i = 0; i < currencies.length; i++) {
+         State state = new State(currencies[i].name(), currencies[currencies.length - 1 - i].name(),
+                 ConvertStep.values()[i % ConvertStep.values().length]);
+
+         assertEquals(state, PackedUserStateStore.unpack(PackedUserStateStore.pack(state, i)));
+      }
+
+      assertEquals(State.INITIAL, PackedUserStateStore.unpack(PackedUserStateStore.pack(State.INITIAL, 0)));
+      assertNotEquals(0, PackedUserStateStore.pack(State.INITIAL, 0));
+   }
+
+   /**
+    * Tests, that states of many users are kept, when tables grow.
+    */
+   @Test
+   void manyUsers() {
+      PackedUserStateStore store = new PackedUserStateStore(TIME_TO_LIVE, 100000, clock);
+
+      for (int userId = 0; userId < 10000; userId++) {
+         ConvertStep step = ConvertStep.values()[userId % ConvertStep.values().length];
+         store.update(userId, current -> new State("USD", "EUR", step));
+      }
+      store.update(5, current -> new State(current.getSecondCurrency(), "UAH", ConvertStep.THIRD));
+
+      assertEquals(10000, store.getMetrics().get("users"));
+      assertEquals(new State("EUR", "UAH", ConvertStep.THIRD), store.get(5));
+      assertEquals(new State("USD", "EUR", ConvertStep.FIRST), store.get(9997));
+      assertEquals(State.INITIAL, store.get(10000));
+      assertEquals(State.INITIAL, store.get(-1));
+   }
+
+   /**
+    * Tests, that an idle user falls back to the initial state, and expired entries are removed.
+    */
+   @Test
+   void idleUserIsExpired() {
+      PackedUserStateStore store = new PackedUserStateStore(TIME_TO_LIVE, 100, clock);
+      store.update(1, current -> new State("USD", "EUR", ConvertStep.THIRD));
+      store.putChat(100, new User(1, "first"));
+      clock.move(TIME_TO_LIVE - 1);
+      store.update(2, current -> current.withConvertStep(ConvertStep.FIRST));
+
+      clock.move(1);
+      assertEquals(State.INITIAL, store.get(1));
+      assertNull(store.getUser(100));
+      assertEquals(ConvertStep.ZERO, store.update(1, current -> current).getConvertStep());
+      assertEquals(1L, store.getMetrics().get("expired"));
+
+      clock.move(TIME_TO_LIVE);
+      store.removeExpired();
+
+      Map<String, Object> metrics = store.getMetrics();
+      assertEquals(0, metrics.get("users"));
+      assertEquals(0, metrics.get("chats"));
+      assertEquals(4L, metrics.get("expired"));
+   }
+
+   /**
+    * Tests, that count of users stays under the limit, and recently used users are kept.
+    */
+   @Test
+   void leastRecentlyUsedAreEvicted() {
+      PackedUserStateStore store = new PackedUserStateStore(TIME_TO_LIVE, 1600, clock);
+
+      for (int userId = 0; userId < 5000; userId++) {
+         store.update(userId, current -> current.withConvertStep(ConvertStep.FIRST));
+         clock.move(1);
+      }
+
+      Map<String, Object> metrics = store.getMetrics();
+      assertTrue((int) metrics.get("users") <= 1600);
+      assertEquals(5000L, (int) metrics.get("users") + (long) metrics.get("evicted"));
+      assertEquals(ConvertStep.FIRST, store.get(4999).getConvertStep());
+      assertEquals(State.INITIAL, store.get(0));
+   }
+
+   /**
+    * Tests, that the user of the chat is found, and the least recently used chat is evicted.
+    */
+   @Test
+   void chats() {
+      PackedUserStateStore store = new PackedUserStateStore(TIME_TO_LIVE, 2, clock);
+      User first = new User(1, "first");
+      User second = new User(2, "second");
+
+      store.putChat(100, first);
+      store.putChat(200, second);
+      store.putChat(100, first);
+      store.putChat(300, new User(3, "third"));
+
+      assertEquals(first, store.getUser(100));
+      assertNull(store.getUser(200));
+      assertEquals(1L, store.getMetrics().get("evicted"));
+   }
+}
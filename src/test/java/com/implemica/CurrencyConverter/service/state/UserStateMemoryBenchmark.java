@@ -0,0 +1,105 @@
+package com.implemica.CurrencyConverter.service.state;
+
+import com.implemica.CurrencyConverter.model.ConvertStep;
+import com.implemica.CurrencyConverter.model.State;
+import com.implemica.CurrencyConverter.validator.BotValidator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares heap, which is retained by states of many users in
+ * {@code HashMap<Integer, State>}, as they were kept before,
+ * in {@link ConcurrentUserStateStore} and in {@link PackedUserStateStore}.
+ * JMH measures time and allocations, but not retained heap, so the
+ * benchmark measures used heap after garbage collection.
+ *
+ * Run {@link #main(String[])} after {@code mvn test-compile}, the count of
+ * users may be given as the argument. Use a heap, which is large enough for
+ * all users, and the serial collector for stable results:
+ * {@code -Xmx2g -XX:+UseSerialGC}.
+ *
+ * @author Dmytro K.
+ */
+public class UserStateMemoryBenchmark {
+
+   /** Default count of users. */
+   private static final int USERS = 1000000;
+
+   /** Currencies, which are entered by users. */
+   private static final String[] CURRENCIES = {"usd", "eur", "uah", "gbp", "pln", "btc", "jpy", "chf"};
+
+   public static void main(String[] args) throws InterruptedException {
+      int users = args.length > 0 ? Integer.parseInt(args[0]) : USERS;
+
+      measure("HashMap<Integer, State>", users, () -> {
+         Map<Integer, State> states = new HashMap<>();
+
+         for (int userId = 0; userId < users; userId++) {
+            states.put(userId, createState(userId));
+         }
+         return states;
+      });
+
+      measure("ConcurrentUserStateStore", users, () -> fill(new ConcurrentUserStateStore(Long.MAX_VALUE, users), users));
+
+      measure("PackedUserStateStore", users, () -> fill(new PackedUserStateStore(Long.MAX_VALUE, users), users));
+   }
+
+   /**
+    * Prints heap, which is retained by the created states.
+    *
+    * @param name name of storage
+    * @param users count of users
+    * @param storage creates storage with states of all users
+    */
+   private static void measure(String name, int users, Supplier<Object> storage) throws InterruptedException {
+      long before = getUsedHeap();
+      Object states = storage.get();
+      long retained = getUsedHeap() - before;
+
+      System.out.printf("%-26s %,12d bytes for %,d users, %6.1f bytes per user%n",
+              name, retained, users, (double) retained / users);
+
+      if (states.hashCode() == 42) {
+         System.out.println();
+      }
+   }
+
+   private static UserStateStore fill(UserStateStore store, int users) {
+      for (int userId = 0; userId < users; userId++) {
+         State state = createState(userId);
+         store.update(userId, current -> state);
+      }
+      return store;
+   }
+
+   /**
+    * Creates state of user in the middle of dialog, currencies are new
+    * strings, as they are created from user's input by bot.
+    *
+    * @param userId id of user
+    * @return state of dialog.
+    */
+   private static State createState(int userId) {
+      String first = BotValidator.toUpperCase(CURRENCIES[userId % CURRENCIES.length]);
+      String second = BotValidator.toUpperCase(CURRENCIES[(userId + 1) % CURRENCIES.length]);
+
+      return new State(first, second, ConvertStep.THIRD);
+   }
+
+   /**
+    * @return used heap in bytes after garbage collection.
+    */
+   private static long getUsedHeap() throws InterruptedException {
+      Runtime runtime = Runtime.getRuntime();
+
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+         Thread.sleep(100);
+      }
+
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}